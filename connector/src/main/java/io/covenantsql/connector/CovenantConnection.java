@@ -16,8 +16,11 @@
 
 package io.covenantsql.connector;
 
+import io.covenantsql.connector.util.CovenantEndpoint;
+
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 
 public interface CovenantConnection extends Connection {
     @Override
@@ -25,4 +28,10 @@ public interface CovenantConnection extends Connection {
 
     @Override
     CovenantStatement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException;
+
+    /**
+     * @return adapters of the connection URL with their load, latency and failure statistics, shared by all
+     * connections to the same adapters
+     */
+    List<CovenantEndpoint> getEndpoints();
 }
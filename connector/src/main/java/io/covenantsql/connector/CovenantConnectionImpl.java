@@ -16,29 +16,47 @@
 
 package io.covenantsql.connector;
 
-import io.covenantsql.connector.except.CovenantException;
 import io.covenantsql.connector.settings.CovenantProperties;
-import io.covenantsql.connector.util.CovenantHTTPClientBuilder;
+import io.covenantsql.connector.util.CovenantEndpoint;
+import io.covenantsql.connector.util.CovenantHTTPClientRegistry;
+import io.covenantsql.connector.util.CovenantRetryPolicy;
 import io.covenantsql.connector.util.LogProxy;
+import io.covenantsql.connector.util.ParsedSql;
+import io.covenantsql.connector.util.ParsedSqlCache;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.concurrent.Cancellable;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 public class CovenantConnectionImpl extends CovenantMockConnectionUnused implements CovenantConnection {
     private static final Logger LOG = LoggerFactory.getLogger(CovenantConnectionImpl.class);
+    private final CovenantHTTPClientRegistry.ClientLease clientLease;
+    // adapters serving queries, null if they are served by the url hosts
+    private final CovenantHTTPClientRegistry.ClientLease readLease;
     private final CloseableHttpClient httpClient;
     private final CovenantProperties properties;
+    private final CovenantRetryPolicy retryPolicy;
     private String url;
     private boolean closed = false;
+    private volatile boolean readOnly;
+    // System.nanoTime() until which queries stay on the write hosts
+    private volatile long readsPinnedUntil = System.nanoTime();
+    // System.nanoTime() of the last successful write, long ago if none
+    private volatile long lastWrite = System.nanoTime() - Long.MAX_VALUE / 2;
+    private final Set<Cancellable> requests = ConcurrentHashMap.newKeySet();
+    // parsed statements, bounded by statement_cache_size
+    private final ParsedSqlCache statements;
 
     public CovenantConnectionImpl(String url) {
         this(url, new CovenantProperties());
@@ -51,23 +69,45 @@ public class CovenantConnectionImpl extends CovenantMockConnectionUnused impleme
         } catch (URISyntaxException e) {
             throw new IllegalArgumentException(e);
         }
-        CovenantHTTPClientBuilder clientBuilder = new CovenantHTTPClientBuilder(this.properties);
         LOG.debug("new connection");
+        statements = new ParsedSqlCache(this.properties.getStatementCacheSize());
+        retryPolicy = CovenantRetryPolicy.create(this.properties);
         try {
-            httpClient = clientBuilder.buildClient();
+            clientLease = CovenantHTTPClientRegistry.getInstance().acquire(this.properties);
         } catch (Exception e) {
             throw new IllegalStateException("cannot initialize http client", e);
         }
+        httpClient = clientLease.getClient();
+
+        try {
+            readLease = CovenantHTTPClientRegistry.getInstance().acquireReadHosts(this.properties);
+        } catch (Exception e) {
+            clientLease.close();
+            throw new IllegalStateException("cannot initialize http client for read_hosts", e);
+        }
     }
 
     @Override
     public void close() throws SQLException {
-        try {
-            httpClient.close();
-            closed = true;
-        } catch (IOException e) {
-            throw new CovenantException("HTTP client close exception", e, properties.getHost(), properties.getPort());
+        // the underlying client is shared with other connections to the same adapter
+        clientLease.close();
+        if (readLease != null) {
+            readLease.close();
         }
+        closed = true;
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        return readOnly;
+    }
+
+    /**
+     * A read only connection rejects writes and always sends queries to {@code read_hosts}.
+     */
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        this.readOnly = readOnly;
     }
 
     @Override
@@ -92,8 +132,7 @@ public class CovenantConnectionImpl extends CovenantMockConnectionUnused impleme
         URI old = URI.create(StringUtils.substringAfter(url, CovenantURLParser.JDBC_PREFIX));
         try {
             url = CovenantURLParser.JDBC_PREFIX +
-                new URI(old.getScheme(), old.getUserInfo(), old.getHost(), old.getPort(),
-                    "/" + catalog, old.getQuery(), old.getFragment());
+                new URI(old.getScheme(), old.getAuthority(), "/" + catalog, old.getQuery(), old.getFragment());
         } catch (URISyntaxException e) {
             throw new IllegalStateException(e);
         }
@@ -161,32 +200,29 @@ public class CovenantConnectionImpl extends CovenantMockConnectionUnused impleme
             new CovenantPreparedStatementImpl(httpClient, this, properties, sql, autoGeneratedKeys));
     }
 
-    private CovenantStatement createCovenantStatement(CloseableHttpClient httpClient) throws SQLException {
-        return LogProxy.wrap(CovenantStatement.class, new CovenantStatementImpl(httpClient, this, properties));
-    }
-
     @Override
     public boolean isValid(int timeout) throws SQLException {
         if (isClosed()) {
             return false;
         }
 
-        try {
-            CovenantProperties properties = new CovenantProperties(this.properties);
-            properties.setConnectionTimeout((int) TimeUnit.SECONDS.toMillis(timeout));
-            CloseableHttpClient client = new CovenantHTTPClientBuilder(properties).buildClient();
-            Statement statement = createCovenantStatement(client);
-            statement.execute("SELECT 1");
-            statement.close();
-            return true;
-        } catch (Exception e) {
-            boolean isFailOnConnectionTimeout = e.getCause() instanceof ConnectTimeoutException;
-            if (!isFailOnConnectionTimeout) {
-                LOG.warn("ping covenantsql database failed", e);
-            }
+        if (timeout < 0) {
+            throw new SQLException("timeout must not be negative");
         }
 
-        return false;
+        // answered from the adapter health shared by all connections, probed inline only when stale
+        return clientLease.getEndpoints().isAlive((int) TimeUnit.SECONDS.toMillis(timeout));
+    }
+
+    /**
+     * Switch back to a database and url saved before {@link #setCatalog(String)} or {@link #setSchema(String)}.
+     *
+     * @param database database
+     * @param url      jdbc url
+     */
+    void restoreCatalog(String database, String url) {
+        properties.setDatabase(database);
+        this.url = url;
     }
 
     @Override
@@ -196,18 +232,89 @@ public class CovenantConnectionImpl extends CovenantMockConnectionUnused impleme
 
     @Override
     public void setSchema(String schema) throws SQLException {
-        properties.setDatabase(schema);
+        setCatalog(schema);
     }
 
+    /**
+     * Abort requests in flight on this connection and close it.
+     */
     @Override
     public void abort(Executor executor) throws SQLException {
+        if (executor == null) {
+            throw new SQLException("executor must not be null");
+        }
+
+        for (Cancellable request : requests) {
+            request.cancel();
+        }
         this.close();
     }
 
+    void track(Cancellable request) {
+        requests.add(request);
+    }
+
+    void untrack(Cancellable request) {
+        requests.remove(request);
+    }
+
     String getUrl() {
         return url;
     }
 
+    CovenantRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @param read whether the request is a query
+     * @return lease of the adapters the request should go to
+     */
+    CovenantHTTPClientRegistry.ClientLease route(boolean read) {
+        if (!read || readLease == null) {
+            return clientLease;
+        }
+        if (!readOnly && System.nanoTime() - readsPinnedUntil < 0) {
+            // read your own recent writes
+            return clientLease;
+        }
+        return readLease;
+    }
+
+    /**
+     * Record a successful write, pinning queries to the write hosts for {@code read_your_writes_window}.
+     */
+    void wrote() {
+        lastWrite = System.nanoTime();
+        int window = properties.getReadYourWritesWindow();
+        if (window > 0 && readLease != null) {
+            readsPinnedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(window);
+        }
+    }
+
+    /**
+     * @param sql statement
+     * @return parsed sql from the statement cache of this connection
+     */
+    ParsedSql parse(String sql) {
+        return statements.get(sql);
+    }
+
+    long getLastWrite() {
+        return lastWrite;
+    }
+
+    @Override
+    public List<CovenantEndpoint> getEndpoints() {
+        if (readLease == null) {
+            return clientLease.getEndpoints().getEndpoints();
+        }
+
+        List<CovenantEndpoint> endpoints = new ArrayList<>(clientLease.getEndpoints().getEndpoints());
+        endpoints.addAll(readLease.getEndpoints().getEndpoints());
+        return endpoints;
+    }
+
     @Override
     public <T> T unwrap(Class<T> iface) throws SQLException {
         if (iface.isAssignableFrom(getClass())) {
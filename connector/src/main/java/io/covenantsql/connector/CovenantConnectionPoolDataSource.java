@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector;
+
+import io.covenantsql.connector.settings.CovenantProperties;
+
+import javax.sql.ConnectionPoolDataSource;
+import java.io.PrintWriter;
+import java.net.URISyntaxException;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Source of physical connections for connection pools, see {@link CovenantPooledDataSource} for a pool.
+ */
+public class CovenantConnectionPoolDataSource implements ConnectionPoolDataSource {
+    private final CovenantDriver driver = new CovenantDriver();
+    private final String url;
+    private int loginTimeout;
+    private PrintWriter printWriter;
+    private CovenantProperties properties;
+
+    public CovenantConnectionPoolDataSource(String url) {
+        this(url, new CovenantProperties());
+    }
+
+    public CovenantConnectionPoolDataSource(String url, Properties info) {
+        this(url, new CovenantProperties(info));
+    }
+
+    public CovenantConnectionPoolDataSource(String url, CovenantProperties properties) {
+        if (url == null) {
+            throw new IllegalArgumentException("Incorrect CovenantSQL jdbc url. It must be not null");
+        }
+
+        this.url = url;
+
+        try {
+            this.properties = CovenantURLParser.parse(url, properties.asProperties());
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    public CovenantProperties getProperties() {
+        return new CovenantProperties(properties);
+    }
+
+    @Override
+    public CovenantPooledConnection getPooledConnection() throws SQLException {
+        return new CovenantPooledConnection(driver.connect(url, properties));
+    }
+
+    @Override
+    public CovenantPooledConnection getPooledConnection(String user, String password) throws SQLException {
+        // no username/password is required
+        return getPooledConnection();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return printWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        this.printWriter = out;
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return loginTimeout;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
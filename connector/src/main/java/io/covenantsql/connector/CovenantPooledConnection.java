@@ -0,0 +1,270 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector;
+
+import org.apache.commons.lang3.StringUtils;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.PooledConnection;
+import javax.sql.StatementEventListener;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A physical connection handed out as short lived logical connections.
+ * <p>
+ * Closing a logical connection notifies the listeners instead of closing the physical connection, which keeps
+ * its http client lease and can be handed out again. Only the latest logical connection is usable. The database,
+ * url and read only flag a borrower changed are reset when its logical connection is closed or replaced, and the
+ * statements it created are closed with it. Those statements report the logical connection as theirs.
+ */
+public class CovenantPooledConnection implements PooledConnection {
+    private final CovenantConnection physical;
+    private final List<ConnectionEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<StatementEventListener> statementListeners = new CopyOnWriteArrayList<>();
+    private final String database;
+    private final String url;
+    private volatile LogicalConnection handle;
+
+    public CovenantPooledConnection(CovenantConnection physical) throws SQLException {
+        this.physical = physical;
+        this.database = physical.getCatalog();
+        this.url = physical.isWrapperFor(CovenantConnectionImpl.class)
+            ? physical.unwrap(CovenantConnectionImpl.class).getUrl() : null;
+    }
+
+    @Override
+    public CovenantConnection getConnection() throws SQLException {
+        if (physical.isClosed()) {
+            throw new SQLNonTransientConnectionException("pooled connection is closed");
+        }
+
+        LogicalConnection previous = handle;
+        if (previous != null) {
+            previous.closed = true;
+            previous.closeStatements();
+        }
+
+        // a new handle starts out like a fresh connection
+        reset();
+
+        LogicalConnection logical = new LogicalConnection();
+        handle = logical;
+        return logical.proxy;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        LogicalConnection previous = handle;
+        if (previous != null) {
+            previous.closed = true;
+            previous.closeStatements();
+        }
+        physical.close();
+    }
+
+    public boolean isClosed() throws SQLException {
+        return physical.isClosed();
+    }
+
+    private void reset() throws SQLException {
+        physical.setReadOnly(false);
+        if (url != null) {
+            physical.unwrap(CovenantConnectionImpl.class).restoreCatalog(database, url);
+        } else if (!StringUtils.equals(physical.getCatalog(), database)) {
+            physical.setCatalog(database);
+        }
+    }
+
+    @Override
+    public void addConnectionEventListener(ConnectionEventListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeConnectionEventListener(ConnectionEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void addStatementEventListener(StatementEventListener listener) {
+        // statements are not pooled, no statement events are fired
+        statementListeners.add(listener);
+    }
+
+    @Override
+    public void removeStatementEventListener(StatementEventListener listener) {
+        statementListeners.remove(listener);
+    }
+
+    private static boolean isConnectionError(SQLException e) {
+        return e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException
+            || (e.getSQLState() != null && e.getSQLState().startsWith("08"));
+    }
+
+    private static Class<?>[] getInterfaces(Class<?> type) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Class<?> implemented : current.getInterfaces()) {
+                interfaces.add(implemented);
+            }
+        }
+        return interfaces.toArray(new Class<?>[0]);
+    }
+
+    private final class LogicalConnection implements InvocationHandler {
+        private final CovenantConnection proxy = (CovenantConnection) Proxy.newProxyInstance(
+            CovenantConnection.class.getClassLoader(), new Class<?>[]{CovenantConnection.class}, this);
+        private final Set<LogicalStatement> statements = new LinkedHashSet<>();
+        private volatile boolean closed;
+
+        private Statement track(Statement statement) {
+            LogicalStatement logical = new LogicalStatement(this, statement);
+            synchronized (statements) {
+                statements.add(logical);
+            }
+            return logical.proxy;
+        }
+
+        private void untrack(LogicalStatement statement) {
+            synchronized (statements) {
+                statements.remove(statement);
+            }
+        }
+
+        private void closeStatements() {
+            List<LogicalStatement> open;
+            synchronized (statements) {
+                open = new ArrayList<>(statements);
+                statements.clear();
+            }
+            for (LogicalStatement statement : open) {
+                try {
+                    statement.statement.close();
+                } catch (SQLException ignored) {
+                    // the borrower is gone, nobody to report to
+                }
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if ("equals".equals(name) && args != null && args.length == 1) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name) && args == null) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(name) && args == null) {
+                return "pooled " + physical;
+            } else if ("isClosed".equals(name) && args == null) {
+                return closed || physical.isClosed();
+            } else if ("close".equals(name) && args == null) {
+                if (!closed) {
+                    closed = true;
+                    closeStatements();
+                    if (!physical.isClosed()) {
+                        reset();
+                    }
+                    ConnectionEvent event = new ConnectionEvent(CovenantPooledConnection.this);
+                    for (ConnectionEventListener listener : listeners) {
+                        listener.connectionClosed(event);
+                    }
+                }
+                return null;
+            }
+
+            if (closed) {
+                throw new SQLNonTransientConnectionException("connection is closed");
+            }
+
+            try {
+                Object result = method.invoke(physical, args);
+                // statements must not outlive the handle, nor lead to the physical connection
+                return result instanceof Statement ? track((Statement) result) : result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getTargetException();
+                if (cause instanceof SQLException && isConnectionError((SQLException) cause)) {
+                    ConnectionEvent event = new ConnectionEvent(CovenantPooledConnection.this, (SQLException) cause);
+                    for (ConnectionEventListener listener : listeners) {
+                        listener.connectionErrorOccurred(event);
+                    }
+                }
+                throw cause;
+            }
+        }
+    }
+
+    private static final class LogicalStatement implements InvocationHandler {
+        private final LogicalConnection connection;
+        private final Statement statement;
+        private final Statement proxy;
+
+        private LogicalStatement(LogicalConnection connection, Statement statement) {
+            this.connection = connection;
+            this.statement = statement;
+            this.proxy = (Statement) Proxy.newProxyInstance(CovenantConnection.class.getClassLoader(),
+                getInterfaces(statement.getClass()), this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if ("equals".equals(name) && args != null && args.length == 1) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name) && args == null) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(name) && args == null) {
+                return "pooled " + statement;
+            } else if ("isClosed".equals(name) && args == null) {
+                return connection.closed || statement.isClosed();
+            } else if ("close".equals(name) && args == null) {
+                connection.untrack(this);
+                statement.close();
+                return null;
+            } else if ("getConnection".equals(name) && args == null) {
+                if (connection.closed) {
+                    throw new SQLNonTransientConnectionException("statement is closed");
+                }
+                return connection.proxy;
+            }
+
+            if (connection.closed) {
+                throw new SQLNonTransientConnectionException("statement is closed");
+            }
+
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
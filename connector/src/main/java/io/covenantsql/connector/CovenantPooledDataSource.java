@@ -0,0 +1,362 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector;
+
+import io.covenantsql.connector.settings.CovenantProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection pool.
+ * <p>
+ * Idle connections are kept in a lock free deque and reused most recently returned first, so the warmest
+ * connections stay busy and surplus ones age out. A semaphore bounds the connections handed out; borrowing and
+ * returning do not take locks unless the pool is exhausted. A background task keeps {@code pool_min_idle}
+ * connections ready, retires connections older than {@code pool_max_lifetime} and reports connections borrowed
+ * for longer than {@code pool_leak_detection_threshold}.
+ */
+public class CovenantPooledDataSource implements DataSource, Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(CovenantPooledDataSource.class);
+    private static final long HOUSEKEEPING_PERIOD = TimeUnit.SECONDS.toMillis(30);
+    private static final ScheduledExecutorService housekeeper = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "covenantsql-pool-housekeeper");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+    private final CovenantConnectionPoolDataSource source;
+    private final CovenantProperties properties;
+    private final ConcurrentLinkedDeque<PoolEntry> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PoolEntry> entries = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Semaphore permits;
+    private final ScheduledFuture<?> housekeeping;
+    private volatile boolean closed;
+
+    public CovenantPooledDataSource(String url) {
+        this(url, new CovenantProperties());
+    }
+
+    public CovenantPooledDataSource(String url, Properties info) {
+        this(url, new CovenantProperties(info));
+    }
+
+    public CovenantPooledDataSource(String url, CovenantProperties properties) {
+        this(new CovenantConnectionPoolDataSource(url, properties));
+    }
+
+    public CovenantPooledDataSource(CovenantConnectionPoolDataSource source) {
+        this.source = source;
+        this.properties = source.getProperties();
+
+        if (properties.getPoolMaxSize() <= 0) {
+            throw new IllegalArgumentException("pool_max_size must be positive");
+        }
+
+        this.permits = new Semaphore(properties.getPoolMaxSize());
+
+        long period = HOUSEKEEPING_PERIOD;
+        if (properties.getPoolLeakDetectionThreshold() > 0) {
+            period = Math.max(100, Math.min(period, properties.getPoolLeakDetectionThreshold() / 2));
+        }
+
+        // first run fills the pool up to min idle
+        this.housekeeping = housekeeper.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                housekeep();
+            }
+        }, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public CovenantConnection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLNonTransientConnectionException("data source is closed");
+        }
+
+        try {
+            if (!permits.tryAcquire(properties.getPoolBorrowTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(String.format(
+                    "no connection available in %d ms, active: %d, max: %d", properties.getPoolBorrowTimeout(),
+                    getActiveConnections(), properties.getPoolMaxSize()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("interrupted while waiting for a connection", e);
+        }
+
+        try {
+            return take().borrow();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public CovenantConnection getConnection(String username, String password) throws SQLException {
+        // no username/password is required
+        return getConnection();
+    }
+
+    /**
+     * @return connections currently borrowed
+     */
+    public int getActiveConnections() {
+        return properties.getPoolMaxSize() - permits.availablePermits();
+    }
+
+    /**
+     * @return connections ready to be borrowed
+     */
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    /**
+     * @return physical connections held by the pool
+     */
+    public int getTotalConnections() {
+        return size.get();
+    }
+
+    /**
+     * Close idle connections and stop handing out connections, borrowed ones are closed when returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeping.cancel(false);
+
+        PoolEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            retire(entry);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private PoolEntry take() throws SQLException {
+        for (; ; ) {
+            PoolEntry entry = idle.pollFirst();
+
+            if (entry != null) {
+                if (entry.isUsable(System.currentTimeMillis())) {
+                    return entry;
+                }
+                retire(entry);
+            } else if (reserve()) {
+                return create();
+            } else {
+                // the pool is full, an entry is being returned or retired concurrently
+                Thread.yield();
+            }
+        }
+    }
+
+    private boolean reserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= properties.getPoolMaxSize()) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private PoolEntry create() throws SQLException {
+        try {
+            PoolEntry entry = new PoolEntry(source.getPooledConnection());
+            entries.add(entry);
+            return entry;
+        } catch (SQLException | RuntimeException e) {
+            size.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void retire(PoolEntry entry) {
+        if (entries.remove(entry)) {
+            size.decrementAndGet();
+            try {
+                entry.connection.close();
+            } catch (SQLException e) {
+                LOG.debug("close pooled connection failed", e);
+            }
+        }
+    }
+
+    private void release(PoolEntry entry, boolean broken) {
+        entry.borrowedAt = 0;
+        entry.borrowTrace = null;
+
+        if (broken || closed || !entry.isUsable(System.currentTimeMillis())) {
+            retire(entry);
+        } else {
+            idle.offerFirst(entry);
+        }
+        permits.release();
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            long leakThreshold = properties.getPoolLeakDetectionThreshold();
+
+            for (PoolEntry entry : entries) {
+                long borrowedAt = entry.borrowedAt;
+
+                if (borrowedAt == 0) {
+                    if (!entry.isUsable(now) && idle.removeFirstOccurrence(entry)) {
+                        retire(entry);
+                    }
+                } else if (leakThreshold > 0 && !entry.leakReported && now - borrowedAt > leakThreshold) {
+                    entry.leakReported = true;
+                    LOG.warn("possible connection leak, connection borrowed " + (now - borrowedAt) + " ms ago",
+                        entry.borrowTrace);
+                }
+            }
+
+            while (!closed && idle.size() < properties.getPoolMinIdle() && reserve()) {
+                idle.offerLast(create());
+            }
+        } catch (Exception e) {
+            LOG.warn("pool housekeeping failed", e);
+        }
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isAssignableFrom(getClass())) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Cannot unwrap to " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isAssignableFrom(getClass());
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return source.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        source.setLogWriter(out);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return source.getLoginTimeout();
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        source.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    private final class PoolEntry implements ConnectionEventListener {
+        private final CovenantPooledConnection connection;
+        private final long expiresAt;
+        private volatile long borrowedAt;
+        private volatile Exception borrowTrace;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+
+        private PoolEntry(CovenantPooledConnection connection) {
+            this.connection = connection;
+
+            long lifetime = properties.getPoolMaxLifetime();
+            if (lifetime > 0) {
+                // up to 2.5% variance so that connections created together do not expire together
+                lifetime -= ThreadLocalRandom.current().nextLong(lifetime / 40 + 1);
+                this.expiresAt = System.currentTimeMillis() + lifetime;
+            } else {
+                this.expiresAt = Long.MAX_VALUE;
+            }
+
+            connection.addConnectionEventListener(this);
+        }
+
+        private boolean isUsable(long now) {
+            try {
+                return now < expiresAt && !connection.isClosed();
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private CovenantConnection borrow() throws SQLException {
+            leakReported = false;
+            if (properties.getPoolLeakDetectionThreshold() > 0) {
+                borrowTrace = new Exception("connection borrowed here");
+            }
+            borrowedAt = System.currentTimeMillis();
+            return connection.getConnection();
+        }
+
+        @Override
+        public void connectionClosed(ConnectionEvent event) {
+            release(this, broken);
+        }
+
+        @Override
+        public void connectionErrorOccurred(ConnectionEvent event) {
+            // the logical connection stays in use until closed, just make sure it is not reused
+            LOG.debug("pooled connection failed", event.getSQLException());
+            broken = true;
+        }
+    }
+}
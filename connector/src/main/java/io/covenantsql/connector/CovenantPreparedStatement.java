@@ -17,6 +17,23 @@
 package io.covenantsql.connector;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.CompletableFuture;
 
 public interface CovenantPreparedStatement extends PreparedStatement, CovenantStatement {
+    /**
+     * Execute the query with the current parameters without blocking the calling thread, parameters are
+     * cleared once the request is sent.
+     *
+     * @return future of the buffered result set
+     */
+    CompletableFuture<ResultSet> executeQueryAsync();
+
+    /**
+     * Execute the update with the current parameters without blocking the calling thread, parameters are
+     * cleared once the request is sent.
+     *
+     * @return future of the number of affected rows
+     */
+    CompletableFuture<Integer> executeUpdateAsync();
 }
@@ -16,8 +16,10 @@
 
 package io.covenantsql.connector;
 
-import com.google.common.base.Charsets;
 import io.covenantsql.connector.settings.CovenantProperties;
+import io.covenantsql.connector.util.BatchInsertRewriter;
+import io.covenantsql.connector.util.BindBuffer;
+import io.covenantsql.connector.util.ParsedSql;
 import org.apache.http.impl.client.CloseableHttpClient;
 
 import java.io.InputStream;
@@ -25,33 +27,26 @@ import java.io.Reader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URL;
-import java.nio.charset.Charset;
 import java.sql.*;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
-import java.util.TimeZone;
-import java.util.Vector;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class CovenantPreparedStatementImpl extends CovenantStatementImpl implements CovenantPreparedStatement {
-    private static final SimpleDateFormat dateFormat;
-    private static final SimpleDateFormat dateTimeFormat;
-    private static final Charset defaultCharset = Charsets.UTF_8;
-
-    static {
-        dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-        dateTimeFormat = new SimpleDateFormat("yyyy-MM-dd' 'HH:mm:ss'+00:00'");
-        TimeZone tzUTC = TimeZone.getTimeZone("UTC");
-        dateTimeFormat.setTimeZone(tzUTC);
-    }
-
     private final String sql;
-    private Vector<Object> binds;
+    private final ParsedSql parsed;
+    private final BindBuffer binds;
+    private final List<List<Object>> batchBinds = new ArrayList<>();
 
     public CovenantPreparedStatementImpl(CloseableHttpClient httpClient, CovenantConnection connection,
                                          CovenantProperties properties, String sql) throws SQLException {
         super(httpClient, connection, properties);
         this.sql = sql;
-        this.binds = new Vector<>();
+        this.parsed = parseOnce(connection, sql);
+        this.binds = new BindBuffer(Math.max(parsed.getParameterCount(), 0));
     }
 
     public CovenantPreparedStatementImpl(CloseableHttpClient httpClient, CovenantConnection connection,
@@ -59,18 +54,97 @@ public class CovenantPreparedStatementImpl extends CovenantStatementImpl impleme
                                          int autoGeneratedKeys) throws SQLException {
         super(httpClient, connection, properties, autoGeneratedKeys);
         this.sql = sql;
-        this.binds = new Vector<>();
+        this.parsed = parseOnce(connection, sql);
+        this.binds = new BindBuffer(Math.max(parsed.getParameterCount(), 0));
+    }
+
+    private static ParsedSql parseOnce(CovenantConnection connection, String sql) {
+        if (connection instanceof CovenantConnectionImpl) {
+            return ((CovenantConnectionImpl) connection).parse(sql);
+        }
+        return new ParsedSql(sql);
+    }
+
+    @Override
+    protected ParsedSql parse(String sql) {
+        // the statement's own sql is passed down unchanged, batches and generated key queries are not
+        return sql == this.sql ? parsed : super.parse(sql);
     }
 
     @Override
     public boolean execute() throws SQLException {
         executeQuery();
-        return isSelect(sql);
+        return parsed.isSelect();
     }
 
     @Override
     public void addBatch() throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+        batchBinds.add(binds.copy());
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        throw new SQLException("addBatch(String) cannot be called on a PreparedStatement");
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        batchBinds.clear();
+    }
+
+    /**
+     * Execute the batch, rewriting single row INSERTs into chunked multi row INSERTs.
+     * <p>
+     * Other statements are joined into as few requests as the batch budget allows.
+     *
+     * @return update count of each bind set
+     * @throws SQLException if a request failed
+     */
+    @Override
+    public int[] executeBatch() throws SQLException {
+        if (batchBinds.isEmpty()) {
+            return new int[0];
+        }
+
+        try {
+            BatchInsertRewriter rewriter = BatchInsertRewriter.parse(sql);
+            if (rewriter == null) {
+                return executeJoinedBatch(Collections.nCopies(batchBinds.size(), sql), batchBinds);
+            }
+            return executeRewrittenBatch(rewriter);
+        } finally {
+            batchBinds.clear();
+        }
+    }
+
+    private int[] executeRewrittenBatch(BatchInsertRewriter rewriter) throws SQLException {
+        int[] counts = new int[batchBinds.size()];
+        int maxRows = maxBatchRows(rewriter.getParameterCount());
+        int start = 0;
+
+        while (start < batchBinds.size()) {
+            List<Object> args = new ArrayList<>();
+            long bytes = 0;
+            int end = start;
+
+            while (end < batchBinds.size() && end - start < maxRows) {
+                long size = sql.length() + estimateSize(batchBinds.get(end));
+                if (end > start && bytes + size > properties.getBatchMaxBytes()) {
+                    break;
+                }
+                args.addAll(batchBinds.get(end));
+                bytes += size;
+                end++;
+            }
+
+            int rows = end - start;
+            int affected = executeBatchRequest(rewriter.rewrite(rows), args, counts, start);
+            // per row counts are only known if every row was inserted
+            Arrays.fill(counts, start, end, affected == rows ? 1 : Statement.SUCCESS_NO_INFO);
+            start = end;
+        }
+
+        return counts;
     }
 
     @Override
@@ -87,82 +161,105 @@ public class CovenantPreparedStatementImpl extends CovenantStatementImpl impleme
         return result;
     }
 
+    @Override
+    public CompletableFuture<ResultSet> executeQueryAsync() {
+        CompletableFuture<ResultSet> result = executeQueryAsync(sql, binds.copy());
+        binds.clearValues();
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Integer> executeUpdateAsync() {
+        CompletableFuture<Integer> result = executeUpdateAsync(sql, binds.copy());
+        binds.clearValues();
+        return result;
+    }
+
     public void setBind(int parameterIndex, Object obj) {
-        if (binds.size() < parameterIndex) {
-            binds.setSize(parameterIndex);
-        }
         binds.set(parameterIndex - 1, obj);
     }
 
     @Override
     public void setNull(int parameterIndex, int sqlType) throws SQLException {
-        setBind(parameterIndex, null);
+        binds.setNull(parameterIndex - 1);
     }
 
     @Override
     public void setBoolean(int parameterIndex, boolean x) throws SQLException {
-        setBind(parameterIndex, x);
+        binds.setBoolean(parameterIndex - 1, x);
     }
 
     @Override
     public void setByte(int parameterIndex, byte x) throws SQLException {
         // treat byte as integer
-        setBind(parameterIndex, (int) x);
+        binds.setInt(parameterIndex - 1, x);
     }
 
     @Override
     public void setShort(int parameterIndex, short x) throws SQLException {
-        setBind(parameterIndex, x);
+        binds.setShort(parameterIndex - 1, x);
     }
 
     @Override
     public void setInt(int parameterIndex, int x) throws SQLException {
-        setBind(parameterIndex, x);
+        binds.setInt(parameterIndex - 1, x);
     }
 
     @Override
     public void setLong(int parameterIndex, long x) throws SQLException {
-        setBind(parameterIndex, x);
+        binds.setLong(parameterIndex - 1, x);
     }
 
     @Override
     public void setFloat(int parameterIndex, float x) throws SQLException {
-        setBind(parameterIndex, x);
+        binds.setFloat(parameterIndex - 1, x);
     }
 
     @Override
     public void setDouble(int parameterIndex, double x) throws SQLException {
-        setBind(parameterIndex, x);
+        binds.setDouble(parameterIndex - 1, x);
     }
 
     @Override
     public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
-        setBind(parameterIndex, x.toPlainString());
+        binds.setDecimal(parameterIndex - 1, x);
     }
 
     @Override
     public void setString(int parameterIndex, String x) throws SQLException {
-        setBind(parameterIndex, x);
+        binds.setString(parameterIndex - 1, x);
     }
 
     @Override
     public void setBytes(int parameterIndex, byte[] x) throws SQLException {
-        setBind(parameterIndex, new String(x, defaultCharset));
+        binds.setBytes(parameterIndex - 1, x);
     }
 
     @Override
     public void setDate(int parameterIndex, Date x) throws SQLException {
-        setBind(parameterIndex, dateFormat.format(x));
+        if (x == null) {
+            binds.setNull(parameterIndex - 1);
+        } else {
+            binds.setDate(parameterIndex - 1, x.getTime());
+        }
     }
 
     @Override
     public void setTime(int parameterIndex, Time x) throws SQLException {
-        setBind(parameterIndex, dateTimeFormat.format(x));
+        if (x == null) {
+            binds.setNull(parameterIndex - 1);
+        } else {
+            binds.setTimestamp(parameterIndex - 1, x.getTime());
+        }
     }
 
     @Override
     public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
-        setBind(parameterIndex, dateTimeFormat.format(x));
+        if (x == null) {
+            binds.setNull(parameterIndex - 1);
+        } else {
+            binds.setTimestamp(parameterIndex - 1, x.getTime());
+        }
     }
 
     @Override
@@ -183,9 +280,7 @@ public class CovenantPreparedStatementImpl extends CovenantStatementImpl impleme
 
     @Override
     public void clearParameters() throws SQLException {
-        int sz = binds.size();
-        binds.clear();
-        binds.setSize(sz);
+        binds.clearValues();
     }
 
     @Override
@@ -223,7 +318,7 @@ public class CovenantPreparedStatementImpl extends CovenantStatementImpl impleme
             } else if (x instanceof Timestamp) {
                 setTimestamp(parameterIndex, (Timestamp) x);
             } else if (x instanceof java.util.Date) {
-                setTimestamp(parameterIndex, new Timestamp(((java.util.Date) x).getTime()));
+                binds.setTimestamp(parameterIndex - 1, ((java.util.Date) x).getTime());
             } else if (x instanceof Boolean) {
                 setBoolean(parameterIndex, (Boolean) x);
             } else if (x instanceof InputStream) {
@@ -233,7 +328,7 @@ public class CovenantPreparedStatementImpl extends CovenantStatementImpl impleme
             } else if (x instanceof Clob) {
                 setClob(parameterIndex, (Clob) x);
             } else if (x instanceof BigInteger) {
-                setBind(parameterIndex, x.toString());
+                binds.setBigInteger(parameterIndex - 1, (BigInteger) x);
             } else {
                 throw new SQLDataException("Can't bind object of class " + x.getClass().getCanonicalName());
             }
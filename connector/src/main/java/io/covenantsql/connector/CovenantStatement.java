@@ -16,7 +16,54 @@
 
 package io.covenantsql.connector;
 
+import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
 
 public interface CovenantStatement extends Statement {
+    /**
+     * Execute a query without blocking the calling thread.
+     * <p>
+     * The request runs on the non-blocking http client shared by connections to the same adapter; the returned
+     * result set is independent of the statement's current result set. Cancelling the future aborts the request.
+     *
+     * @param sql query
+     * @return future of the buffered result set
+     */
+    CompletableFuture<ResultSet> executeQueryAsync(String sql);
+
+    /**
+     * Execute an update without blocking the calling thread.
+     *
+     * @param sql statement
+     * @return future of the number of affected rows
+     */
+    CompletableFuture<Integer> executeUpdateAsync(String sql);
+
+    /**
+     * @return whether statements of this object may be sent again after a transient failure
+     */
+    boolean isIdempotent();
+
+    /**
+     * Mark statements executed by this object as safe to repeat, so that they are retried after transient failures
+     * like queries are. Statements are not idempotent by default.
+     *
+     * @param idempotent whether statements may be sent again
+     */
+    void setIdempotent(boolean idempotent);
+
+    /**
+     * @return whether queries of this object are hedged
+     */
+    boolean isHedged();
+
+    /**
+     * Hedge queries of this object: when a query has not been answered within the {@code hedge_percentile} of
+     * recent query latency a second request is sent to another adapter and the first response wins, as long as
+     * the {@code hedge_budget} allows. Defaults to {@code hedge_reads}; streamed results are never hedged.
+     *
+     * @param hedged whether queries are hedged
+     */
+    void setHedged(boolean hedged);
 }
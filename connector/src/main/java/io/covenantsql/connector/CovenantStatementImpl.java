@@ -16,41 +16,129 @@
 
 package io.covenantsql.connector;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.covenantsql.connector.except.CovenantException;
+import io.covenantsql.connector.except.CovenantNonTransientException;
+import io.covenantsql.connector.except.CovenantTransientException;
+import io.covenantsql.connector.response.CovenantResponseParser;
+import io.covenantsql.connector.response.CovenantResponseReader;
+import io.covenantsql.connector.response.CovenantResultData;
 import io.covenantsql.connector.response.CovenantResultSet;
-import io.covenantsql.connector.response.beans.CovenantRequestBean;
 import io.covenantsql.connector.response.beans.CovenantResponseBean;
 import io.covenantsql.connector.settings.CovenantProperties;
+import io.covenantsql.connector.util.BackoffRetryPolicy;
+import io.covenantsql.connector.util.CovenantDiskCache;
+import io.covenantsql.connector.util.CovenantEndpoint;
+import io.covenantsql.connector.util.CovenantEndpointGroup;
+import io.covenantsql.connector.util.CovenantHTTPClientRegistry;
+import io.covenantsql.connector.util.CovenantRetryPolicy;
+import io.covenantsql.connector.util.CovenantSingleFlight;
+import io.covenantsql.connector.util.ParsedSql;
+import io.covenantsql.connector.util.RequestBuffer;
+import io.covenantsql.connector.util.SqlScanner;
+import io.covenantsql.connector.util.TinyLfuCache;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.ResponseHandler;
-import org.apache.http.client.fluent.Executor;
-import org.apache.http.client.fluent.Request;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.collections.Lists;
 
 import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.net.URI;
+import java.nio.file.Paths;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CovenantStatementImpl extends CovenantMockStatementUnused implements CovenantStatement {
     private static final Logger LOG = LoggerFactory.getLogger(CovenantStatementImpl.class);
+    // identical queries in flight, keyed by endpoint group, database, sql and arguments
+    private static final CovenantSingleFlight<List<Object>, CovenantResultData> flights = new CovenantSingleFlight<>();
+    // query results of all connections, sized by the first connection enabling the cache
+    private static volatile TinyLfuCache<List<Object>, CovenantResultData> results;
+    // result cache directories by path, null if a directory could not be opened
+    private static final Map<String, CovenantDiskCache> disks = new HashMap<>();
     private static final String API_EXEC = "/v1/exec";
     private static final String API_QUERY = "/v1/query";
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    // default SQLite limit of host parameters in one statement
+    private static final int MAX_BATCH_PARAMETERS = 999;
+    /**
+     * Request header carrying the request deadline in epoch milliseconds, so that the adapter or a proxy in front
+     * of it can drop work nobody waits for anymore.
+     */
+    public static final String DEADLINE_HEADER = "X-CQL-Deadline";
+    private static final ScheduledThreadPoolExecutor deadlines = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "covenantsql-request-deadline");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+    // reads and decodes async responses and runs the stages of their futures, the io dispatcher only does io
+    private static final ThreadPoolExecutor responses = new ThreadPoolExecutor(PROCESSORS, PROCESSORS,
+        60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "covenantsql-response-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+    static {
+        deadlines.setRemoveOnCancelPolicy(true);
+        responses.allowCoreThreadTimeOut(true);
+    }
 
-    private final Executor executor;
     private final CloseableHttpClient httpClient;
-    private final String database;
     protected CovenantProperties properties;
     private CovenantConnection connection;
     private CovenantResultSet currentResultSet;
@@ -59,13 +147,19 @@ public class CovenantStatementImpl extends CovenantMockStatementUnused implement
     private int queryTimeout;
     private int maxRows;
     private int autoGeneratedKeys;
+    private final List<String> batch = new ArrayList<>();
+    private final Set<Call> calls = ConcurrentHashMap.newKeySet();
+    private final Set<Future<?>> waits = ConcurrentHashMap.newKeySet();
+    private CovenantEndpointGroup endpoints;
+    private CovenantRetryPolicy retryPolicy;
+    private volatile boolean idempotent;
+    private volatile boolean hedged;
 
     public CovenantStatementImpl(CloseableHttpClient httpClient, CovenantConnection connection, CovenantProperties properties) {
         this.httpClient = httpClient;
         this.properties = properties;
         this.connection = connection;
-        this.database = properties.getDatabase();
-        this.executor = Executor.newInstance(httpClient);
+        this.hedged = properties.isHedgeReads();
     }
 
     public CovenantStatementImpl(CloseableHttpClient httpClient, CovenantConnection connection,
@@ -75,30 +169,18 @@ public class CovenantStatementImpl extends CovenantMockStatementUnused implement
     }
 
     protected static boolean isSelect(String sql) {
-        return StringUtils.startsWithIgnoreCase(sql, "SELECT") ||
-            StringUtils.startsWithIgnoreCase(sql, "SHOW") ||
-            StringUtils.startsWithIgnoreCase(sql, "DESC");
+        return ParsedSql.isSelect(sql);
     }
 
-    private static String extractTableName(String sql) {
-        if (isSelect(sql)) {
-            String[] tokens = StringUtils.splitByWholeSeparatorPreserveAllTokens(sql, null);
-
-            boolean nextIsTableName = false;
-
-            for (String s : tokens) {
-                if (nextIsTableName) {
-                    // parse table name
-                    return StringUtils.stripToEmpty(StringUtils.strip(s, "'`"));
-                }
-
-                if (StringUtils.equalsIgnoreCase(s, "FROM")) {
-                    nextIsTableName = true;
-                }
-            }
+    /**
+     * @param sql statement
+     * @return classification and request template of sql, shared through the statement cache of the connection
+     */
+    protected ParsedSql parse(String sql) {
+        if (connection instanceof CovenantConnectionImpl) {
+            return ((CovenantConnectionImpl) connection).parse(sql);
         }
-
-        return "";
+        return new ParsedSql(sql);
     }
 
     @Override
@@ -113,26 +195,105 @@ public class CovenantStatementImpl extends CovenantMockStatementUnused implement
 
     public ResultSet executeQuery(String sql, List<Object> params) throws SQLException {
         try {
-            if (isSelect(sql)) {
-                CovenantResponseBean resultBean = sendRequest(API_QUERY, sql, params);
+            closeCurrentResultSet();
+            // setCatalog may switch the connection in between, the request and its cache entry must agree
+            String database = properties.getDatabase();
+            ParsedSql parsed = parse(sql);
+            CachedQuery cached = parsed.isSelect() ? getCachedQuery(database, parsed, params) : null;
+            if (parsed.isSelect() && properties.isStreamResults() && cached == null) {
+                CovenantResponseReader reader = openRequest(database, API_QUERY, sql, params);
 
-                if (!resultBean.isSuccess()) {
-                    throw new CovenantException(resultBean.getStatus(), properties.getHost(), properties.getPort());
+                if (!reader.isSuccess()) {
+                    reader.close();
+                    throw new CovenantNonTransientException(reader.getStatus(),
+                        properties.getHost(), properties.getPort());
                 }
 
-                currentResultSet = new CovenantResultSet(resultBean.getData(), database, extractTableName(sql), this);
+                currentResultSet = new CovenantResultSet(reader, database, parsed.getTableName(), this);
+                currentResultSet.setMaxRows(maxRows);
+                return currentResultSet;
+            } else if (parsed.isSelect()) {
+                CovenantResultData data = cached != null ? cached.get() : null;
+
+                if (data == null) {
+                    data = query(database, sql, params);
+                    if (cached != null) {
+                        cached.put(data);
+                    }
+                } else if (cached.stale) {
+                    revalidate(database, sql, params);
+                }
+
+                currentResultSet = new CovenantResultSet(data, database, parsed.getTableName(), this);
                 currentResultSet.setMaxRows(maxRows);
                 return currentResultSet;
             } else {
                 executeUpdate(sql, params);
                 return currentResultSet;
             }
+        } catch (SQLException e) {
+            throw e;
         } catch (Exception e) {
             // re-throw
             throw new CovenantException(e, properties.getHost(), properties.getPort());
         }
     }
 
+    @Override
+    public CompletableFuture<ResultSet> executeQueryAsync(String sql) {
+        return executeQueryAsync(sql, null);
+    }
+
+    @Override
+    public CompletableFuture<Integer> executeUpdateAsync(String sql) {
+        return executeUpdateAsync(sql, null);
+    }
+
+    public CompletableFuture<ResultSet> executeQueryAsync(final String sql, List<Object> params) {
+        final ParsedSql parsed = parse(sql);
+        if (!parsed.isSelect()) {
+            return executeUpdateAsync(sql, params).thenApply(affected -> (ResultSet) CovenantResultSet.EMPTY);
+        }
+
+        final int maxRows = this.maxRows;
+        final String database = properties.getDatabase();
+        final CachedQuery cached = getCachedQuery(database, parsed, params);
+        CovenantResultData hit = cached != null ? cached.get() : null;
+        CompletableFuture<CovenantResultData> data;
+
+        if (hit != null) {
+            data = CompletableFuture.completedFuture(hit);
+            if (cached.stale) {
+                revalidate(database, sql, params);
+            }
+        } else {
+            data = queryAsync(database, sql, params);
+            if (cached != null) {
+                data = data.thenApply(fetched -> {
+                    cached.put(fetched);
+                    return fetched;
+                });
+            }
+        }
+
+        return data.thenApply(fetched -> {
+            CovenantResultSet resultSet = new CovenantResultSet(fetched, database, parsed.getTableName(), this);
+            resultSet.setMaxRows(maxRows);
+            return resultSet;
+        });
+    }
+
+    public CompletableFuture<Integer> executeUpdateAsync(String sql, List<Object> params) {
+        return sendRequestAsync(API_EXEC, sql, params).thenApply(resultBean -> {
+            if (!resultBean.isSuccess()) {
+                throw new CompletionException(
+                    new CovenantNonTransientException(resultBean.getStatus(),
+                        properties.getHost(), properties.getPort()));
+            }
+            return resultBean.getData() != null ? resultBean.getData().getAffectedRows() : 0;
+        });
+    }
+
     @Override
     public int getUpdateCount() throws SQLException {
         return currentUpdateCount;
@@ -140,16 +301,20 @@ public class CovenantStatementImpl extends CovenantMockStatementUnused implement
 
     public int executeUpdate(String sql, List<Object> params) throws SQLException {
         try {
+            closeCurrentResultSet();
             CovenantResponseBean resultBean = sendRequest(API_EXEC, sql, params);
 
             if (!resultBean.isSuccess()) {
-                throw new CovenantException(resultBean.getStatus(), properties.getHost(), properties.getPort());
+                throw new CovenantNonTransientException(resultBean.getStatus(),
+                    properties.getHost(), properties.getPort());
             }
             currentResultSet = CovenantResultSet.EMPTY;
             currentUpdateCount = resultBean.getData() != null ? resultBean.getData().getAffectedRows() : -1;
             currentLastInsertId = resultBean.getData() != null ? resultBean.getData().getLastInsertId() : -1;
 
             return 1;
+        } catch (SQLException e) {
+            throw e;
         } catch (Exception e) {
             // re-throw
             throw new CovenantException(e, properties.getHost(), properties.getPort());
@@ -157,32 +322,771 @@ public class CovenantStatementImpl extends CovenantMockStatementUnused implement
     }
 
     public CovenantResponseBean sendRequest(String path, String sql, List<Object> params) throws SQLException {
-        try {
-            URI uri = new URIBuilder()
-                .setHost(properties.getHost())
-                .setPort(properties.getPort())
-                .setScheme(properties.isSsl() ? "https" : "http")
-                .setPath(path)
-                .build();
-
-            CovenantRequestBean bean = new CovenantRequestBean();
-            bean.setDatabase(properties.getDatabase());
-            bean.setQuery(sql);
-            bean.setArgs(params);
-
-            return executor.execute(Request.Post(uri)
-                .bodyString(objectMapper.writeValueAsString(bean), ContentType.APPLICATION_JSON))
-                .handleResponse(new ResponseHandler<CovenantResponseBean>() {
+        return sendRequest(properties.getDatabase(), path, sql, params);
+    }
+
+    private CovenantResponseBean sendRequest(String database, String path, String sql, List<Object> params)
+        throws SQLException {
+        if (isHedged(path)) {
+            return await(sendRequestAsync(database, path, sql, params));
+        }
+
+        return execute(database, path, sql, params, new Exchange<CovenantResponseBean>() {
+            @Override
+            public CovenantResponseBean execute(CloseableHttpClient client, HttpPost request) throws Exception {
+                return client.execute(request, new ResponseHandler<CovenantResponseBean>() {
                     @Override
                     public CovenantResponseBean handleResponse(HttpResponse response) throws IOException {
-                        return objectMapper.readValue(response.getEntity().getContent(), CovenantResponseBean.class);
+                        checkOverload(response);
+                        byte[] body = EntityUtils.toByteArray(response.getEntity());
+                        return CovenantResponseParser.parse(body, objectMapper, properties.isLazyResults());
                     }
                 });
+            }
+        });
+    }
+
+    /**
+     * Send request and keep the response open for incremental reading.
+     *
+     * @param path   api path
+     * @param sql    query
+     * @param params query arguments
+     * @return reader positioned at the result rows, owning the http response
+     * @throws SQLException if the request failed
+     */
+    public CovenantResponseReader openRequest(String path, String sql, List<Object> params) throws SQLException {
+        return openRequest(properties.getDatabase(), path, sql, params);
+    }
+
+    private CovenantResponseReader openRequest(String database, String path, String sql, List<Object> params)
+        throws SQLException {
+        // the deadline covers the request up to the start of the rows, reading them is bounded by socket timeout
+        return execute(database, path, sql, params, new Exchange<CovenantResponseReader>() {
+            @Override
+            public CovenantResponseReader execute(CloseableHttpClient client, HttpPost request) throws Exception {
+                CloseableHttpResponse response = client.execute(request);
+                try {
+                    checkOverload(response);
+                    return new CovenantResponseReader(response.getEntity().getContent(), response);
+                } catch (Exception e) {
+                    try {
+                        response.close();
+                    } catch (IOException ignored) {
+                    }
+                    throw e;
+                }
+            }
+        });
+    }
+
+    /**
+     * Send request on the non-blocking client.
+     * <p>
+     * The response is read and decoded on a driver thread, which also runs the dependent stages of the returned
+     * future; the client's io threads only do io. Cancelling the returned future aborts the request.
+     *
+     * @param path   api path
+     * @param sql    query
+     * @param params query arguments
+     * @return future of the decoded response, failing with {@link CovenantException}
+     */
+    public CompletableFuture<CovenantResponseBean> sendRequestAsync(String path, String sql, List<Object> params) {
+        return sendRequestAsync(properties.getDatabase(), path, sql, params);
+    }
+
+    private CompletableFuture<CovenantResponseBean> sendRequestAsync(String database, String path, String sql,
+                                                                     List<Object> params) {
+        if (isHedged(path)) {
+            return new HedgedRequest(database, path, sql, params).start();
+        }
+
+        AsyncRequest request = new AsyncRequest(database, path, sql, params, null);
+        start(request);
+        return request.result;
+    }
+
+    private void start(AsyncRequest request) {
+        try {
+            checkWritable(request.read);
+            if (!(connection instanceof CovenantConnectionImpl)) {
+                throw new SQLFeatureNotSupportedException("asynchronous execution is not supported by this connection");
+            }
+            request.attempt();
+        } catch (SQLException e) {
+            request.result.completeExceptionally(e);
         } catch (Exception e) {
-            throw new CovenantException(e, properties.getHost(), properties.getPort());
+            request.result.completeExceptionally(new CovenantException(e, properties.getHost(), properties.getPort()));
+        }
+    }
+
+    private boolean isHedged(String path) {
+        return hedged && API_QUERY.equals(path) && connection instanceof CovenantConnectionImpl;
+    }
+
+    private <T> T await(CompletableFuture<T> future) throws SQLException {
+        int timeout = getTimeout();
+        try {
+            return timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for the adapter", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new SQLTimeoutException(String.format("request timed out after %d ms, host: %s, port: %d",
+                timeout, properties.getHost(), properties.getPort()), e);
+        } catch (CancellationException e) {
+            throw new SQLException("statement was cancelled", "HY008", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new CovenantException(e.getCause(), properties.getHost(), properties.getPort());
+        }
+    }
+
+    private boolean isCoalesced() {
+        return properties.isCoalesceReads() && connection instanceof CovenantConnectionImpl;
+    }
+
+    /**
+     * Run a query, sharing the request and the decoded result with identical queries in flight on any connection
+     * to the same adapters. Queries started before the last write of this connection are not joined.
+     *
+     * @param database database the query is sent to
+     * @param sql      query
+     * @param params   query arguments
+     * @return future of the decoded result, private to the caller
+     */
+    private CompletableFuture<CovenantResultData> coalesce(final String database, final String sql,
+                                                           List<Object> params) {
+        final List<Object> args = params == null ? null : new ArrayList<>(params);
+        final CompletableFuture<CovenantResultData> result = new CompletableFuture<>();
+        CovenantConnectionImpl impl = (CovenantConnectionImpl) connection;
+        List<Object> key = Arrays.asList(impl.route(true).getEndpoints(), database, sql, args);
+
+        waits.add(result);
+        result.whenComplete((data, e) -> waits.remove(result));
+        flights.execute(key, impl.getLastWrite(), () -> decode(sendRequestAsync(database, API_QUERY, sql, args)))
+            .whenComplete((data, e) -> {
+                if (e == null) {
+                    result.complete(data);
+                } else if (isCancellation(e) && !result.isDone()) {
+                    // the statement that sent the shared request was cancelled, not this one
+                    decode(sendRequestAsync(database, API_QUERY, sql, args)).whenComplete((retried, failure) -> {
+                        if (failure == null) {
+                            result.complete(retried);
+                        } else {
+                            result.completeExceptionally(unwrap(failure));
+                        }
+                    });
+                } else {
+                    result.completeExceptionally(unwrap(e));
+                }
+            });
+        return result;
+    }
+
+    private CompletableFuture<CovenantResultData> decode(CompletableFuture<CovenantResponseBean> response) {
+        return response.thenApply(resultBean -> {
+            try {
+                if (!resultBean.isSuccess()) {
+                    throw new CovenantNonTransientException(resultBean.getStatus(),
+                        properties.getHost(), properties.getPort());
+                }
+                return CovenantResultData.decode(resultBean.getData());
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static boolean isCancellation(Throwable e) {
+        Throwable cause = unwrap(e);
+        return cause instanceof SQLException && "HY008".equals(((SQLException) cause).getSQLState());
+    }
+
+    /**
+     * Run a request, retrying queries and idempotent statements on transient failures as the retry policy allows
+     * within the statement timeout.
+     */
+    private <T> T execute(String database, String path, String sql, List<Object> params, Exchange<T> exchange)
+        throws SQLException {
+        boolean read = API_QUERY.equals(path);
+        checkWritable(read);
+
+        long deadline = getDeadline();
+        CovenantEndpoint[] failedOn = new CovenantEndpoint[1];
+        for (int attempts = 1; ; attempts++) {
+            try {
+                return execute(database, read, path, sql, params, exchange, deadline, failedOn);
+            } catch (SQLException e) {
+                long delay = getRetryDelay(read, attempts, e, deadline);
+                if (delay < 0) {
+                    if (!read) {
+                        // the statement may have been applied
+                        invalidate(database, sql);
+                    }
+                    throw e;
+                }
+
+                failedOn[0].markRetry();
+                LOG.debug("retry covenantsql request in {} ms after {} attempts", delay, attempts, e);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    if (!read) {
+                        invalidate(database, sql);
+                    }
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Run a request on the first reachable endpoint, failing over to the next one on connect failures.
+     */
+    private <T> T execute(String database, boolean read, String path, String sql, List<Object> params,
+                          Exchange<T> exchange, long deadline, CovenantEndpoint[] failedOn) throws SQLException {
+        // one route for all endpoints, the read your writes window may pass in between
+        CloseableHttpClient client = httpClient;
+        CovenantEndpointGroup group;
+        if (connection instanceof CovenantConnectionImpl) {
+            CovenantHTTPClientRegistry.ClientLease lease = ((CovenantConnectionImpl) connection).route(read);
+            client = lease.getClient();
+            group = lease.getEndpoints();
+        } else {
+            if (endpoints == null) {
+                // without a shared group the failure state lives as long as the statement
+                endpoints = new CovenantEndpointGroup(httpClient, properties);
+            }
+            group = endpoints;
+        }
+
+        Call last = null;
+        Exception failure = null;
+
+        for (CovenantEndpoint endpoint : group.candidates()) {
+            Call call = null;
+            failedOn[0] = endpoint;
+            try {
+                int timeout = getRemaining(deadline);
+                call = new Call(endpoint, buildRequest(endpoint, database, path, sql, params, timeout, true), timeout);
+                T result = exchange.execute(client, call.request);
+                endpoint.markSuccess();
+                if (read) {
+                    group.recordQuery(System.nanoTime() - call.started);
+                } else {
+                    wrote(database, sql);
+                }
+                return result;
+            } catch (Exception e) {
+                if (!isFailover(call, e)) {
+                    throw translate(call, e);
+                }
+                endpoint.markFailure();
+                LOG.debug("fail over from covenantsql adapter {}", endpoint, e);
+                last = call;
+                failure = e;
+            } finally {
+                if (call != null) {
+                    call.finish();
+                }
+            }
+        }
+
+        throw translate(last, failure);
+    }
+
+    /**
+     * @return delay in milliseconds before the next attempt, negative if the request must not be retried
+     */
+    private long getRetryDelay(boolean read, int attempts, SQLException failure, long deadline) {
+        if (!(read || idempotent) || !(failure instanceof SQLTransientException)) {
+            return -1;
+        }
+
+        long delay = getRetryPolicy().nextDelay(attempts, failure);
+        if (delay < 0 || (deadline != 0 && System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) - deadline >= 0)) {
+            return -1;
+        }
+        return delay;
+    }
+
+    private CovenantRetryPolicy getRetryPolicy() {
+        if (connection instanceof CovenantConnectionImpl) {
+            return ((CovenantConnectionImpl) connection).getRetryPolicy();
+        }
+        if (retryPolicy == null) {
+            retryPolicy = new BackoffRetryPolicy(properties);
+        }
+        return retryPolicy;
+    }
+
+    /**
+     * @return System.nanoTime() by which the statement must have completed including retries, 0 for none
+     */
+    private long getDeadline() {
+        int timeout = getTimeout();
+        return timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+    }
+
+    /**
+     * @return milliseconds left until the deadline, at least 1, or 0 for no deadline
+     */
+    private static int getRemaining(long deadline) {
+        if (deadline == 0) {
+            return 0;
+        }
+        return (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    private static void checkOverload(HttpResponse response) throws HttpResponseException {
+        int status = response.getStatusLine().getStatusCode();
+        if (status == 429 || status == HttpStatus.SC_BAD_GATEWAY || status == HttpStatus.SC_SERVICE_UNAVAILABLE
+            || status == HttpStatus.SC_GATEWAY_TIMEOUT) {
+            throw new HttpResponseException(status,
+                "adapter unavailable: " + response.getStatusLine().getReasonPhrase());
+        }
+    }
+
+    private static boolean isFailover(Call call, Exception e) {
+        return call != null && !call.cancelled && !call.timedOut && CovenantEndpointGroup.isConnectFailure(e);
+    }
+
+    private void checkWritable(boolean read) throws SQLException {
+        if (!read && connection.isReadOnly()) {
+            throw new SQLException("connection is read only", "25006");
+        }
+    }
+
+    private void wrote(String database, String sql) {
+        invalidate(database, sql);
+        if (connection instanceof CovenantConnectionImpl) {
+            ((CovenantConnectionImpl) connection).wrote();
+        }
+    }
+
+    /**
+     * Drop cached results of the tables written by sql, of the whole database if they are not known.
+     */
+    private void invalidate(String database, String sql) {
+        TinyLfuCache<List<Object>, CovenantResultData> cache = results;
+        if (cache == null) {
+            return;
+        }
+
+        String namespace = getCacheNamespace(database);
+        Set<String> tables = parse(sql).getWrittenTables();
+        List<String> tags = new ArrayList<>();
+        if (tables == null) {
+            tags.add(namespace);
+        } else {
+            for (String table : tables) {
+                tags.add(namespace + "/" + table);
+            }
+        }
+
+        for (String tag : tags) {
+            cache.invalidate(tag);
+        }
+        synchronized (disks) {
+            for (CovenantDiskCache disk : disks.values()) {
+                if (disk != null) {
+                    for (String tag : tags) {
+                        disk.invalidate(tag);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return prefix of the invalidation tags of a database, shared by every client identity reading its data
+     */
+    private String getCacheNamespace(String database) {
+        return properties.getHosts() + "/" + database;
+    }
+
+    /**
+     * @return client identity results are cached for, the fields the shared http client is keyed by
+     */
+    private String getCacheIdentity() {
+        return properties.isSsl() + "," + properties.getSslMode() + "," + properties.getKeyPath() + ","
+            + properties.getCertPath();
+    }
+
+    private static TinyLfuCache<List<Object>, CovenantResultData> getResultCache(CovenantProperties properties) {
+        if (properties.getResultCacheSize() <= 0) {
+            return null;
+        }
+
+        TinyLfuCache<List<Object>, CovenantResultData> cache = results;
+        if (cache == null) {
+            synchronized (CovenantStatementImpl.class) {
+                if (results == null) {
+                    results = new TinyLfuCache<>(properties.getResultCacheSize());
+                }
+                cache = results;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * @return cache entry of the query, null if the query is not to be cached
+     */
+    private CachedQuery getCachedQuery(String database, ParsedSql parsed, List<Object> params) {
+        TinyLfuCache<List<Object>, CovenantResultData> cache = getResultCache(properties);
+        if (cache == null) {
+            return null;
+        }
+
+        long ttl = parsed.getCacheTtl();
+        if (ttl < 0) {
+            ttl = properties.getResultCacheTtl();
+        }
+        if (ttl <= 0) {
+            return null;
+        }
+
+        List<Object> args = params == null ? null : new ArrayList<>(params);
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof byte[]) {
+                    // arrays do not implement equals
+                    return null;
+                }
+            }
+        }
+
+        String namespace = getCacheNamespace(database);
+        List<String> tags = new ArrayList<>();
+        tags.add(namespace);
+        for (String table : parsed.getReadTables()) {
+            tags.add(namespace + "/" + table);
+        }
+        String normalized = parsed.getNormalized();
+        // the adapter may let each client certificate read other rows, results are only served to the identity
+        // they were fetched with; writes through any identity still drop them by their tags
+        String scope = namespace + "\n" + getCacheIdentity();
+        CachedQuery cached = new CachedQuery(cache, Arrays.asList(scope, normalized, args), tags, ttl);
+
+        CovenantDiskCache disk = getDiskCache(properties);
+        if (disk != null) {
+            try {
+                cached.disk = disk;
+                cached.diskKey = scope + "\n" + normalized + "\n" + objectMapper.writeValueAsString(args);
+            } catch (JsonProcessingException e) {
+                cached.disk = null;
+            }
+        }
+        return cached;
+    }
+
+    private static CovenantDiskCache getDiskCache(CovenantProperties properties) {
+        String directory = properties.getResultCacheDir();
+        if (StringUtils.isEmpty(directory)) {
+            return null;
+        }
+
+        synchronized (disks) {
+            if (!disks.containsKey(directory)) {
+                CovenantDiskCache disk = null;
+                try {
+                    disk = new CovenantDiskCache(Paths.get(directory));
+                } catch (IOException | RuntimeException e) {
+                    LOG.warn("open covenantsql result cache directory {} failed", directory, e);
+                }
+                // failures are remembered as well, the cache then stays in memory
+                disks.put(directory, disk);
+            }
+            return disks.get(directory);
+        }
+    }
+
+    /**
+     * Refresh a result served from disk in the background, it may predate writes seen by other JVMs.
+     */
+    private void revalidate(String database, String sql, List<Object> params) {
+        final CachedQuery fresh = getCachedQuery(database, parse(sql), params);
+        if (fresh == null || !(connection instanceof CovenantConnectionImpl)) {
+            return;
+        }
+
+        queryAsync(database, sql, params == null ? null : new ArrayList<>(params)).whenComplete((data, e) -> {
+            if (e == null) {
+                fresh.put(data);
+            } else {
+                LOG.debug("revalidate cached covenantsql query failed", e);
+            }
+        });
+    }
+
+    /**
+     * Fetch and decode the result of a query.
+     */
+    private CovenantResultData query(String database, String sql, List<Object> params) throws SQLException {
+        if (isCoalesced()) {
+            return await(coalesce(database, sql, params));
+        }
+
+        CovenantResponseBean resultBean = sendRequest(database, API_QUERY, sql, params);
+        if (!resultBean.isSuccess()) {
+            throw new CovenantNonTransientException(resultBean.getStatus(), properties.getHost(), properties.getPort());
+        }
+        return CovenantResultData.decode(resultBean.getData());
+    }
+
+    private CompletableFuture<CovenantResultData> queryAsync(String database, String sql, List<Object> params) {
+        return isCoalesced() ? coalesce(database, sql, params)
+            : decode(sendRequestAsync(database, API_QUERY, sql, params));
+    }
+
+    /**
+     * @param recycle whether the request is sent on this thread before it builds another one, its body is then
+     *                encoded into the recycled buffer of the thread
+     */
+    private HttpPost buildRequest(CovenantEndpoint endpoint, String database, String path, String sql,
+                                  List<Object> params, int timeout, boolean recycle) throws Exception {
+        URI uri = new URIBuilder()
+            .setHost(endpoint.getHost())
+            .setPort(endpoint.getPort())
+            .setScheme(properties.isSsl() ? "https" : "http")
+            .setPath(path)
+            .build();
+
+        HttpPost request = new HttpPost(uri);
+        // the http client is shared between connections, so timeouts are applied per request
+        request.setConfig(RequestConfig.custom()
+            .setConnectTimeout(properties.getConnectionTimeout())
+            .setConnectionRequestTimeout(timeout)
+            .setSocketTimeout(timeout)
+            .build());
+        if (timeout > 0) {
+            request.setHeader(DEADLINE_HEADER, String.valueOf(System.currentTimeMillis() + timeout));
+        }
+        ParsedSql parsed = parse(sql);
+        if (recycle) {
+            RequestBuffer body = RequestBuffer.recycled();
+            parsed.encode(objectMapper, database, params, body);
+            request.setEntity(new ByteArrayEntity(body.getBuffer(), 0, body.size(), ContentType.APPLICATION_JSON));
+        } else {
+            request.setEntity(new ByteArrayEntity(parsed.encode(objectMapper, database, params),
+                ContentType.APPLICATION_JSON));
+        }
+        return request;
+    }
+
+    /**
+     * @return request timeout in milliseconds, the query timeout if set or else the operation timeout, 0 for none
+     */
+    private int getTimeout() {
+        return queryTimeout > 0 ? (int) TimeUnit.SECONDS.toMillis(queryTimeout) : properties.getOperationTimeout();
+    }
+
+    private SQLException translate(Call call, Exception e) {
+        String host = call != null ? call.endpoint.getHost() : properties.getHost();
+        int port = call != null ? call.endpoint.getPort() : properties.getPort();
+
+        if (call != null && call.cancelled) {
+            return new SQLException("statement was cancelled", "HY008", e);
+        } else if ((call != null && call.timedOut) || e instanceof SocketTimeoutException
+            || (e != null && e.getCause() instanceof SocketTimeoutException)) {
+            return new SQLTimeoutException(String.format("request timed out after %d ms, host: %s, port: %d",
+                getTimeout(), host, port), e);
+        } else if (CovenantEndpointGroup.isConnectFailure(e)) {
+            return new CovenantTransientException(CovenantTransientException.CONNECT_FAILURE, e, host, port);
+        } else if (e instanceof IOException && !(e instanceof JsonProcessingException)) {
+            // connection lost or adapter overloaded, a malformed response is not going to change though
+            return new CovenantTransientException(CovenantTransientException.CONNECTION_FAILURE, e, host, port);
+        }
+        return new CovenantException(e, host, port);
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    @Override
+    public void setIdempotent(boolean idempotent) {
+        this.idempotent = idempotent;
+    }
+
+    @Override
+    public boolean isHedged() {
+        return hedged;
+    }
+
+    @Override
+    public void setHedged(boolean hedged) {
+        this.hedged = hedged;
+    }
+
+    /**
+     * Abort in-flight requests of this statement, they fail with an {@link SQLException}.
+     */
+    @Override
+    public void cancel() throws SQLException {
+        // before the calls, so that queries waiting on a cancelled shared request do not send their own
+        for (Future<?> wait : waits) {
+            wait.cancel(false);
+        }
+        for (Call call : calls) {
+            call.cancel();
         }
     }
 
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        batch.add(sql);
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        batch.clear();
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        try {
+            return executeJoinedBatch(batch, null);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Send statements joined by ';' in as few exec requests as the batch budget allows. Statements with numbered
+     * or named placeholders are sent on their own, their arguments would bind to the first statement otherwise.
+     * <p>
+     * Only the total affected rows of a request is known, so statements sharing a request report
+     * {@link Statement#SUCCESS_NO_INFO}.
+     *
+     * @param statements statements
+     * @param params     arguments of each statement, null if the statements have none
+     * @return update count of each statement
+     * @throws SQLException if a request failed
+     */
+    protected int[] executeJoinedBatch(List<String> statements, List<List<Object>> params) throws SQLException {
+        int[] counts = new int[statements.size()];
+        int start = 0;
+
+        while (start < statements.size()) {
+            StringBuilder query = new StringBuilder();
+            List<Object> args = new ArrayList<>();
+            long bytes = 0;
+            int end = start;
+
+            while (end < statements.size() && end - start < properties.getBatchMaxRows()) {
+                String sql = statements.get(end);
+                List<Object> statementArgs = params != null ? params.get(end) : null;
+                int argCount = statementArgs != null ? statementArgs.size() : 0;
+                boolean alone = argCount > 0 && !parse(sql).hasPlainParameters();
+
+                if (isSelect(sql)) {
+                    throw new BatchUpdateException("query is not allowed in batch: " + sql,
+                        Arrays.copyOf(counts, start));
+                }
+
+                long size = sql.length() + estimateSize(statementArgs);
+                if (end > start && (alone || bytes + size > properties.getBatchMaxBytes()
+                    || args.size() + argCount > MAX_BATCH_PARAMETERS)) {
+                    break;
+                }
+
+                if (end > start) {
+                    query.append(";\n");
+                }
+                // a trailing line comment would swallow the separator
+                query.append(SqlScanner.trimEnd(sql));
+                if (statementArgs != null) {
+                    args.addAll(statementArgs);
+                }
+                bytes += size;
+                end++;
+                if (alone) {
+                    break;
+                }
+            }
+
+            int affected = executeBatchRequest(query.toString(), args, counts, start);
+            if (end - start == 1) {
+                counts[start] = affected;
+            } else {
+                Arrays.fill(counts, start, end, Statement.SUCCESS_NO_INFO);
+            }
+            start = end;
+        }
+
+        return counts;
+    }
+
+    /**
+     * Send one batch request.
+     *
+     * @param query  statement
+     * @param args   arguments
+     * @param counts update counts of the whole batch, used for error reporting
+     * @param done   number of batch entries already executed
+     * @return affected rows
+     * @throws BatchUpdateException if the request failed
+     */
+    protected int executeBatchRequest(String query, List<Object> args, int[] counts, int done)
+        throws BatchUpdateException {
+        try {
+            closeCurrentResultSet();
+            CovenantResponseBean resultBean = sendRequest(API_EXEC, query, args.isEmpty() ? null : args);
+
+            if (!resultBean.isSuccess()) {
+                throw new BatchUpdateException(resultBean.getStatus(), Arrays.copyOf(counts, done));
+            }
+
+            currentResultSet = CovenantResultSet.EMPTY;
+            currentUpdateCount = resultBean.getData() != null ? resultBean.getData().getAffectedRows() : -1;
+            currentLastInsertId = resultBean.getData() != null ? resultBean.getData().getLastInsertId() : -1;
+            return currentUpdateCount;
+        } catch (BatchUpdateException e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new BatchUpdateException(e.getMessage(), Arrays.copyOf(counts, done), e);
+        }
+    }
+
+    /**
+     * @return max rows of a multi row statement with parameterCount parameters per row
+     */
+    protected int maxBatchRows(int parameterCount) {
+        int rows = properties.getBatchMaxRows();
+        if (parameterCount > 0) {
+            rows = Math.min(rows, MAX_BATCH_PARAMETERS / parameterCount);
+        }
+        return Math.max(rows, 1);
+    }
+
+    /**
+     * @return approximate encoded size of arguments in bytes
+     */
+    protected static long estimateSize(List<Object> args) {
+        if (args == null) {
+            return 0;
+        }
+
+        long size = 0;
+        for (Object arg : args) {
+            size += arg instanceof String ? ((String) arg).length() + 3 : 21;
+        }
+        return size;
+    }
+
     @Override
     public ResultSet getGeneratedKeys() throws SQLException {
         if (autoGeneratedKeys != Statement.RETURN_GENERATED_KEYS) {
@@ -206,7 +1110,7 @@ public class CovenantStatementImpl extends CovenantMockStatementUnused implement
         keyResult.setColumns(Lists.newArrayList("insert_id"));
         keyResult.setTypes(Lists.newArrayList("INT"));
 
-        return new CovenantResultSet(keyResult, database, "", this);
+        return new CovenantResultSet(keyResult, properties.getDatabase(), "", this);
     }
 
     @Override
@@ -245,6 +1149,19 @@ public class CovenantStatementImpl extends CovenantMockStatementUnused implement
         return isSelect(sql);
     }
 
+    /**
+     * Close the result set of the previous execution so that a streamed response gives its connection back to the pool.
+     * Called before a request is sent, which could otherwise wait for the connection the stream holds.
+     *
+     * @throws SQLException if the previous response stream cannot be closed
+     */
+    private void closeCurrentResultSet() throws SQLException {
+        if (currentResultSet != null && currentResultSet != CovenantResultSet.EMPTY) {
+            currentResultSet.close();
+        }
+        currentResultSet = null;
+    }
+
     @Override
     public ResultSet getResultSet() throws SQLException {
         return currentResultSet;
@@ -278,4 +1195,360 @@ public class CovenantStatementImpl extends CovenantMockStatementUnused implement
     public boolean isWrapperFor(Class<?> iface) throws SQLException {
         return iface.isAssignableFrom(getClass());
     }
+
+    /**
+     * A request on the non-blocking client, failing over between endpoints and retried like synchronous ones.
+     */
+    private final class AsyncRequest {
+        private final CompletableFuture<CovenantResponseBean> result = new CompletableFuture<>();
+        private final String database;
+        private final String path;
+        private final String sql;
+        private final List<Object> params;
+        private final boolean read;
+        private final long deadline;
+        // endpoint to try last, the one a hedged request is already waiting for
+        private final CovenantEndpoint avoid;
+        private int attempts;
+        private volatile CovenantEndpointGroup group;
+        private volatile CovenantEndpoint endpoint;
+
+        private AsyncRequest(String database, String path, String sql, List<Object> params, CovenantEndpoint avoid) {
+            this.database = database;
+            this.path = path;
+            this.sql = sql;
+            this.params = params;
+            this.read = API_QUERY.equals(path);
+            this.deadline = getDeadline();
+            this.avoid = avoid;
+        }
+
+        private void attempt() throws Exception {
+            if (result.isDone()) {
+                // cancelled while waiting for a retry
+                return;
+            }
+
+            attempts++;
+            CovenantHTTPClientRegistry.ClientLease lease = ((CovenantConnectionImpl) connection).route(read);
+            group = lease.getEndpoints();
+            List<CovenantEndpoint> candidates = group.candidates();
+            if (avoid != null && candidates.size() > 1 && candidates.get(0) == avoid) {
+                candidates = new ArrayList<>(candidates);
+                candidates.add(candidates.remove(0));
+            }
+            send(lease.getAsyncClient(), candidates.iterator());
+        }
+
+        private void send(final CloseableHttpAsyncClient client, final Iterator<CovenantEndpoint> candidates)
+            throws Exception {
+            final CovenantEndpoint endpoint = candidates.next();
+            this.endpoint = endpoint;
+            final int timeout = getRemaining(deadline);
+            final Call call = new Call(endpoint,
+                buildRequest(endpoint, database, path, sql, params, timeout, false), timeout);
+            call.future = client.execute(call.request, new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(final HttpResponse response) {
+                    call.finish();
+                    responses.execute(() -> receive(response));
+                }
+
+                private void receive(HttpResponse response) {
+                    CovenantResponseBean bean;
+                    try {
+                        checkOverload(response);
+                        bean = CovenantResponseParser.parse(EntityUtils.toByteArray(response.getEntity()),
+                            objectMapper, properties.isLazyResults());
+                    } catch (Exception e) {
+                        fail(endpoint, translate(call, e));
+                        return;
+                    }
+
+                    endpoint.markSuccess();
+                    if (read) {
+                        group.recordQuery(System.nanoTime() - call.started);
+                    } else {
+                        wrote(database, sql);
+                    }
+                    result.complete(bean);
+                }
+
+                @Override
+                public void failed(final Exception e) {
+                    call.finish();
+                    responses.execute(() -> failover(e));
+                }
+
+                private void failover(Exception e) {
+                    if (isFailover(call, e)) {
+                        endpoint.markFailure();
+                        if (candidates.hasNext() && !result.isDone()) {
+                            LOG.debug("fail over from covenantsql adapter {}", endpoint, e);
+                            try {
+                                send(client, candidates);
+                                return;
+                            } catch (Exception retry) {
+                                e = retry;
+                            }
+                        }
+                    }
+                    fail(endpoint, translate(call, e));
+                }
+
+                @Override
+                public void cancelled() {
+                    call.finish();
+                    responses.execute(() -> {
+                        if (call.timedOut || call.cancelled) {
+                            fail(endpoint, translate(call, null));
+                        } else {
+                            result.cancel(false);
+                        }
+                    });
+                }
+            });
+
+            result.whenComplete((response, e) -> {
+                if (result.isCancelled()) {
+                    call.finish();
+                    call.future.cancel(true);
+                }
+            });
+        }
+
+        private void fail(CovenantEndpoint endpoint, SQLException failure) {
+            long delay = result.isDone() ? -1 : getRetryDelay(read, attempts, failure, deadline);
+            if (delay < 0) {
+                if (!read) {
+                    // the statement may have been applied
+                    invalidate(database, sql);
+                }
+                result.completeExceptionally(failure);
+                return;
+            }
+
+            endpoint.markRetry();
+            LOG.debug("retry covenantsql request in {} ms after {} attempts", delay, attempts, failure);
+            deadlines.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        attempt();
+                    } catch (Exception e) {
+                        result.completeExceptionally(
+                            new CovenantException(e, endpoint.getHost(), endpoint.getPort()));
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * A query that sends a second request to another endpoint, or over another pooled socket of the same one,
+     * when the first has not answered within the {@code hedge_percentile} of recent query latency. The first
+     * response wins and the other request is aborted.
+     */
+    private final class HedgedRequest {
+        private final CompletableFuture<CovenantResponseBean> result = new CompletableFuture<>();
+        private final String database;
+        private final String path;
+        private final String sql;
+        private final List<Object> params;
+        private final List<AsyncRequest> requests = new ArrayList<>(2);
+        private int failures;
+        private Throwable failure;
+        private ScheduledFuture<?> timer;
+
+        private HedgedRequest(String database, String path, String sql, List<Object> params) {
+            this.database = database;
+            this.path = path;
+            this.sql = sql;
+            this.params = params;
+        }
+
+        private CompletableFuture<CovenantResponseBean> start() {
+            final AsyncRequest primary = new AsyncRequest(database, path, sql, params, null);
+            launch(primary);
+
+            CovenantEndpointGroup group = primary.group;
+            long delay = group == null ? -1 : group.getQueryLatency(properties.getHedgePercentile());
+            synchronized (this) {
+                if (delay >= 0 && !result.isDone()) {
+                    timer = deadlines.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            hedge(primary);
+                        }
+                    }, delay, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            result.whenComplete((response, e) -> {
+                List<AsyncRequest> pending;
+                synchronized (this) {
+                    if (timer != null) {
+                        timer.cancel(false);
+                    }
+                    pending = new ArrayList<>(requests);
+                }
+                // abort the loser, a no-op for requests already done
+                for (AsyncRequest request : pending) {
+                    request.result.cancel(false);
+                }
+            });
+            return result;
+        }
+
+        private void hedge(AsyncRequest primary) {
+            CovenantEndpointGroup group = primary.group;
+            if (!primary.result.isDone() && group != null && group.tryHedge()) {
+                LOG.debug("hedge covenantsql query waiting on adapter {}", primary.endpoint);
+                launch(new AsyncRequest(database, path, sql, params, primary.endpoint));
+            }
+        }
+
+        private synchronized void launch(final AsyncRequest request) {
+            if (result.isDone()) {
+                return;
+            }
+
+            requests.add(request);
+            request.result.whenComplete((response, e) -> settle(response, e));
+            CovenantStatementImpl.this.start(request);
+        }
+
+        private synchronized void settle(CovenantResponseBean response, Throwable e) {
+            if (e == null) {
+                result.complete(response);
+                return;
+            }
+
+            failures++;
+            if (failure == null) {
+                failure = e;
+            }
+            // requests retry on their own, fail once none of them is left
+            if (failures == requests.size()) {
+                result.completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * Result cache entry of one query, remembers the invalidation clock from before the query was sent.
+     */
+    private static final class CachedQuery {
+        private final TinyLfuCache<List<Object>, CovenantResultData> cache;
+        private final List<Object> key;
+        private final List<String> tags;
+        private final long ttl;
+        private final long since;
+        private CovenantDiskCache disk;
+        private String diskKey;
+        // served from disk, not seen by this JVM yet
+        private boolean stale;
+
+        private CachedQuery(TinyLfuCache<List<Object>, CovenantResultData> cache, List<Object> key, List<String> tags,
+                            long ttl) {
+            this.cache = cache;
+            this.key = key;
+            this.tags = tags;
+            this.ttl = ttl;
+            this.since = cache.tick();
+        }
+
+        private CovenantResultData get() {
+            CovenantResultData data = cache.get(key);
+            if (data != null || disk == null) {
+                return data;
+            }
+
+            CovenantDiskCache.Entry entry = disk.get(diskKey);
+            if (entry == null) {
+                return null;
+            }
+            try {
+                data = CovenantResultData.decode(entry.getData());
+            } catch (SQLException e) {
+                return null;
+            }
+            cache.put(key, data, data.getWeight(),
+                TimeUnit.MILLISECONDS.toNanos(entry.getExpiresAt() - System.currentTimeMillis()), tags, since);
+            stale = true;
+            return data;
+        }
+
+        private void put(CovenantResultData data) {
+            if (cache.put(key, data, data.getWeight(), TimeUnit.MILLISECONDS.toNanos(ttl), tags, since)
+                && disk != null) {
+                disk.put(diskKey, data.toDataBean(), System.currentTimeMillis() + ttl, tags);
+            }
+        }
+    }
+
+    private interface Exchange<T> {
+        T execute(CloseableHttpClient client, HttpPost request) throws Exception;
+    }
+
+    /**
+     * An in-flight request, aborted when its deadline passes, on {@link #cancel()} or on connection abort.
+     */
+    private final class Call implements Cancellable {
+        private final CovenantEndpoint endpoint;
+        private final HttpPost request;
+        private final ScheduledFuture<?> deadline;
+        private final long started;
+        private volatile Future<?> future;
+        private volatile boolean timedOut;
+        private volatile boolean cancelled;
+
+        private Call(CovenantEndpoint endpoint, HttpPost request, int timeout) {
+            this.endpoint = endpoint;
+            this.request = request;
+
+            this.deadline = timeout <= 0 ? null : deadlines.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    timedOut = true;
+                    abort();
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+
+            calls.add(this);
+            if (connection instanceof CovenantConnectionImpl) {
+                ((CovenantConnectionImpl) connection).track(this);
+            }
+            this.started = endpoint.begin();
+        }
+
+        private void finish() {
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+
+            if (!calls.remove(this)) {
+                return;
+            }
+            endpoint.end(started);
+            if (connection instanceof CovenantConnectionImpl) {
+                ((CovenantConnectionImpl) connection).untrack(this);
+            }
+        }
+
+        @Override
+        public boolean cancel() {
+            cancelled = true;
+            abort();
+            return true;
+        }
+
+        private void abort() {
+            request.abort();
+            Future<?> pending = future;
+            if (pending != null) {
+                pending.cancel(true);
+            }
+        }
+    }
 }
@@ -19,11 +19,15 @@ package io.covenantsql.connector;
 import io.covenantsql.connector.settings.CovenantConnectionSettings;
 import io.covenantsql.connector.settings.CovenantProperties;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHost;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -49,12 +53,10 @@ public class CovenantURLParser {
         URI uri = new URI(uriString);
         Properties urlProperties = parseURIQueryPart(uri, defaults);
         CovenantProperties props = new CovenantProperties(urlProperties);
-        props.setHost(uri.getHost());
-        int port = uri.getPort();
-        if (port == -1) {
-            throw new IllegalArgumentException("port is missed or wrong");
-        }
-        props.setPort(port);
+        List<HttpHost> hosts = parseHosts(uri);
+        props.setHost(hosts.get(0).getHostName());
+        props.setPort(hosts.get(0).getPort());
+        props.setHosts(hosts);
         String database = uri.getPath();
         if (StringUtils.isEmpty(database)) {
             database = defaults.getProperty(CovenantConnectionSettings.DATABASE.getKey());
@@ -73,6 +75,40 @@ public class CovenantURLParser {
         return props;
     }
 
+    /**
+     * Adapter endpoints of the URL, either a single {@code host:port} or a comma separated list of them
+     * such as {@code covenantsql://h1:p1,h2:p2/db}, which is kept as a registry based authority by {@link URI}.
+     */
+    private static List<HttpHost> parseHosts(URI uri) throws URISyntaxException {
+        if (uri.getHost() != null) {
+            if (uri.getPort() == -1) {
+                throw new IllegalArgumentException("port is missed or wrong");
+            }
+            return Collections.singletonList(new HttpHost(uri.getHost(), uri.getPort()));
+        }
+
+        if (StringUtils.isEmpty(uri.getRawAuthority())) {
+            throw new URISyntaxException(uri.toString(), "host is missed");
+        }
+        return parseHosts(uri.getRawAuthority());
+    }
+
+    /**
+     * @param hosts comma separated {@code host:port} list
+     * @return hosts in the order of the list
+     */
+    public static List<HttpHost> parseHosts(String hosts) throws URISyntaxException {
+        List<HttpHost> result = new ArrayList<>();
+        for (String hostPort : StringUtils.split(hosts, ',')) {
+            URI host = new URI(null, StringUtils.trim(hostPort), null, null, null);
+            if (host.getHost() == null || host.getPort() == -1) {
+                throw new IllegalArgumentException("host or port is missed or wrong: '" + hostPort + "'");
+            }
+            result.add(new HttpHost(host.getHost(), host.getPort()));
+        }
+        return result;
+    }
+
     private static Properties parseURIQueryPart(URI uri, Properties defaults) {
         String query = uri.getQuery();
         if (query == null) {
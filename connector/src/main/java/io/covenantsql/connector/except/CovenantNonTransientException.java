@@ -0,0 +1,30 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.except;
+
+import java.sql.SQLNonTransientException;
+
+/**
+ * The adapter answered the request with an error, such as a syntax error or a missing table.
+ * Trying the same statement again fails the same way.
+ */
+public class CovenantNonTransientException extends SQLNonTransientException {
+    public CovenantNonTransientException(String message, String host, int port) {
+        super(String.format("CovenantException, message: %s, host: %s, port: %s",
+            message, host, port), null, 0);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.except;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * The request failed on its way to or from the adapter, or the adapter was too busy to take it.
+ * Trying again later may succeed.
+ */
+public class CovenantTransientException extends SQLTransientConnectionException {
+    // unable to establish the connection
+    public static final String CONNECT_FAILURE = "08001";
+    // connection failed after the request was sent
+    public static final String CONNECTION_FAILURE = "08006";
+
+    public CovenantTransientException(String sqlState, Throwable cause, String host, int port) {
+        super(String.format("CovenantException, host: %s, port: %d; %s",
+            host, port, (cause == null ? "" : cause.getMessage())), sqlState, 0, cause);
+    }
+}
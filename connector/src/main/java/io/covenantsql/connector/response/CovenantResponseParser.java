@@ -0,0 +1,644 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.covenantsql.connector.response.beans.CovenantResponseBean;
+import io.covenantsql.connector.response.column.Column;
+import io.covenantsql.connector.response.column.ColumnBuilder;
+import io.covenantsql.connector.response.column.RawColumn;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decoder specialized for the adapter response schema
+ * {@code {"status", "success", "data": {"types", "columns", "rows", "affected_rows", "last_insert_id"}}}.
+ * <p>
+ * Rows are scanned byte by byte straight into {@link ColumnBuilder}s: integers and floating point numbers are
+ * decoded without intermediate strings or boxes, strings of text columns are copied from a reused buffer and no
+ * row lists are built. The result is attached to the data bean, see
+ * {@link CovenantResponseBean.DataBean#getDecoded()}. In lazy mode rows are only delimited and cells are decoded
+ * on access by {@link RawColumn}. Anything outside the schema the scanner knows (unknown
+ * fields, nested values aside, malformed input) is handed to the object mapper, so errors and results are the
+ * same as with a plain {@code readValue}.
+ */
+public final class CovenantResponseParser {
+    private static final Mismatch MISMATCH = new Mismatch();
+    // powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18,
+        1e19, 1e20, 1e21, 1e22};
+
+    private final byte[] json;
+    private final ObjectMapper objectMapper;
+    private final boolean lazy;
+    // last decoded string
+    private char[] text = new char[64];
+    private int textLength;
+    private int pos;
+
+    private CovenantResponseParser(byte[] json, ObjectMapper objectMapper, boolean lazy) {
+        this.json = json;
+        this.objectMapper = objectMapper;
+        this.lazy = lazy;
+    }
+
+    /**
+     * @param json         UTF-8 response body
+     * @param objectMapper mapper used for values and responses outside the schema
+     * @return response
+     * @throws IOException on malformed response
+     */
+    public static CovenantResponseBean parse(byte[] json, ObjectMapper objectMapper) throws IOException {
+        return parse(json, objectMapper, false);
+    }
+
+    /**
+     * @param json         UTF-8 response body
+     * @param objectMapper mapper used for values and responses outside the schema
+     * @param lazy         keep the token spans of the rows in {@link RawColumn}s, which decode a cell when it is
+     *                     first read, instead of decoding all cells
+     * @return response
+     * @throws IOException on malformed response
+     */
+    public static CovenantResponseBean parse(byte[] json, ObjectMapper objectMapper, boolean lazy)
+        throws IOException {
+        try {
+            return new CovenantResponseParser(json, objectMapper, lazy).response();
+        } catch (Mismatch e) {
+            return objectMapper.readValue(json, CovenantResponseBean.class);
+        }
+    }
+
+    private CovenantResponseBean response() throws IOException {
+        CovenantResponseBean response = new CovenantResponseBean();
+        expect('{');
+        if (!consume('}')) {
+            do {
+                name();
+                if (is("status")) {
+                    response.setStatus(nullableString());
+                } else if (is("success")) {
+                    response.setSuccess(bool());
+                } else if (is("data")) {
+                    response.setData(consumeNull() ? null : data());
+                } else {
+                    // rejected or ignored by the object mapper
+                    throw MISMATCH;
+                }
+            } while (consume(','));
+            expect('}');
+        }
+        space();
+        if (pos != json.length) {
+            throw MISMATCH;
+        }
+        return response;
+    }
+
+    private CovenantResponseBean.DataBean data() throws IOException {
+        CovenantResponseBean.DataBean data = new CovenantResponseBean.DataBean();
+        int rows = -1;
+
+        expect('{');
+        if (!consume('}')) {
+            do {
+                name();
+                if (is("types")) {
+                    data.setTypes(strings());
+                } else if (is("columns")) {
+                    data.setColumns(strings());
+                } else if (is("affected_rows")) {
+                    data.setAffectedRows(integer());
+                } else if (is("last_insert_id")) {
+                    data.setLastInsertId(integer());
+                } else if (is("rows")) {
+                    if (data.getColumns() != null && data.getTypes() != null) {
+                        data.setDecoded(consumeNull() ? null : rows(data.getColumns(), data.getTypes()));
+                        rows = -1;
+                    } else {
+                        // decoded once the column types are known, they may follow the rows
+                        space();
+                        rows = pos;
+                        skip();
+                    }
+                } else {
+                    skip();
+                }
+            } while (consume(','));
+            expect('}');
+        }
+
+        if (rows >= 0) {
+            int end = pos;
+            pos = rows;
+            if (!consumeNull()) {
+                if (data.getColumns() == null || data.getTypes() == null) {
+                    throw MISMATCH;
+                }
+                data.setDecoded(rows(data.getColumns(), data.getTypes()));
+            }
+            pos = end;
+        }
+        return data;
+    }
+
+    private CovenantResultData rows(List<String> columnNames, List<String> types) throws IOException {
+        if (lazy) {
+            return rawRows(columnNames, types);
+        }
+
+        ColumnBuilder[] builders = new ColumnBuilder[columnNames.size()];
+        for (int i = 0; i < builders.length; i++) {
+            builders[i] = ColumnBuilder.forType(i < types.size() ? types.get(i) : null, 16);
+        }
+
+        int rowCount = 0;
+        expect('[');
+        if (!consume(']')) {
+            do {
+                expect('[');
+                int i = 0;
+                if (!consume(']')) {
+                    do {
+                        if (i == builders.length) {
+                            // reported by CovenantResultData.decode
+                            throw MISMATCH;
+                        }
+                        value(builders[i++]);
+                    } while (consume(','));
+                    expect(']');
+                }
+                if (i != builders.length) {
+                    throw MISMATCH;
+                }
+                rowCount++;
+            } while (consume(','));
+            expect(']');
+        }
+
+        Column[] columns = new Column[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            columns[i] = builders[i].build();
+        }
+        return new CovenantResultData(columnNames.toArray(new String[0]), types.toArray(new String[0]), columns,
+            rowCount);
+    }
+
+    private CovenantResultData rawRows(List<String> columnNames, List<String> types) {
+        RawColumn.Builder[] builders = new RawColumn.Builder[columnNames.size()];
+        for (int i = 0; i < builders.length; i++) {
+            builders[i] = new RawColumn.Builder(i < types.size() ? types.get(i) : null, 16);
+        }
+
+        int rowCount = 0;
+        expect('[');
+        if (!consume(']')) {
+            do {
+                expect('[');
+                int i = 0;
+                if (!consume(']')) {
+                    do {
+                        if (i == builders.length) {
+                            throw MISMATCH;
+                        }
+                        if (consumeNull()) {
+                            builders[i++].appendNull();
+                        } else {
+                            int start = pos;
+                            skip();
+                            builders[i++].append(start, pos);
+                        }
+                    } while (consume(','));
+                    expect(']');
+                }
+                if (i != builders.length) {
+                    throw MISMATCH;
+                }
+                rowCount++;
+            } while (consume(','));
+            expect(']');
+        }
+
+        Column[] columns = new Column[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            columns[i] = builders[i].build(json);
+        }
+        return new CovenantResultData(columnNames.toArray(new String[0]), types.toArray(new String[0]), columns,
+            rowCount);
+    }
+
+    private void value(ColumnBuilder builder) throws IOException {
+        space();
+        byte b = peek();
+        if (b == '"') {
+            string();
+            builder.appendString(text, 0, textLength);
+        } else if (b == '-' || b >= '0' && b <= '9') {
+            number(builder);
+        } else if (b == 'n') {
+            literal("null");
+            builder.appendNull();
+        } else if (b == 't') {
+            literal("true");
+            builder.append(Boolean.TRUE);
+        } else if (b == 'f') {
+            literal("false");
+            builder.append(Boolean.FALSE);
+        } else {
+            // nested structure, decoded like an untyped value
+            int start = pos;
+            skip();
+            builder.append(objectMapper.readValue(json, start, pos - start, Object.class));
+        }
+    }
+
+    private void number(ColumnBuilder builder) {
+        int start = pos;
+        boolean negative = json[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+
+        int digitsStart = pos;
+        long mantissa = 0;
+        boolean overflow = false;
+        while (pos < json.length && json[pos] >= '0' && json[pos] <= '9') {
+            int digit = json[pos] - '0';
+            // accumulated negatively, the range of negative longs is one larger
+            if (mantissa < (Long.MIN_VALUE + digit) / 10) {
+                overflow = true;
+            }
+            mantissa = mantissa * 10 - digit;
+            pos++;
+        }
+        int digits = pos - digitsStart;
+        if (digits == 0 || digits > 1 && json[digitsStart] == '0') {
+            throw MISMATCH;
+        }
+
+        boolean fraction = pos < json.length && json[pos] == '.';
+        boolean exponent = false;
+        int scale = 0;
+        if (fraction) {
+            pos++;
+            int fractionStart = pos;
+            while (pos < json.length && json[pos] >= '0' && json[pos] <= '9') {
+                int digit = json[pos] - '0';
+                if (mantissa < (Long.MIN_VALUE + digit) / 10) {
+                    overflow = true;
+                }
+                mantissa = mantissa * 10 - digit;
+                pos++;
+            }
+            scale = pos - fractionStart;
+            digits += scale;
+            if (scale == 0) {
+                throw MISMATCH;
+            }
+        }
+
+        int power = 0;
+        if (pos < json.length && (json[pos] == 'e' || json[pos] == 'E')) {
+            exponent = true;
+            pos++;
+            boolean negativePower = false;
+            if (pos < json.length && (json[pos] == '+' || json[pos] == '-')) {
+                negativePower = json[pos++] == '-';
+            }
+            int powerStart = pos;
+            while (pos < json.length && json[pos] >= '0' && json[pos] <= '9') {
+                power = Math.min(power * 10 + json[pos++] - '0', 100000);
+            }
+            if (pos == powerStart) {
+                throw MISMATCH;
+            }
+            if (negativePower) {
+                power = -power;
+            }
+        }
+
+        if (!fraction && !exponent) {
+            if (overflow || !negative && mantissa == Long.MIN_VALUE) {
+                builder.append(new BigInteger(new String(json, start, pos - start, StandardCharsets.ISO_8859_1)));
+            } else {
+                builder.appendLong(negative ? mantissa : -mantissa);
+            }
+            return;
+        }
+
+        int exp = power - scale;
+        if (!overflow && digits <= 15 && exp >= -22 && exp <= 22) {
+            // both operands are exact, so is the correctly rounded result
+            double value = -mantissa;
+            value = exp < 0 ? value / POWERS_OF_TEN[-exp] : value * POWERS_OF_TEN[exp];
+            builder.appendDouble(negative ? -value : value);
+        } else {
+            builder.appendDouble(Double.parseDouble(new String(json, start, pos - start,
+                StandardCharsets.ISO_8859_1)));
+        }
+    }
+
+    private List<String> strings() {
+        if (consumeNull()) {
+            return null;
+        }
+
+        List<String> values = new ArrayList<>();
+        expect('[');
+        if (!consume(']')) {
+            do {
+                values.add(nullableString());
+            } while (consume(','));
+            expect(']');
+        }
+        return values;
+    }
+
+    private String nullableString() {
+        if (consumeNull()) {
+            return null;
+        }
+        space();
+        string();
+        return new String(text, 0, textLength);
+    }
+
+    private boolean bool() {
+        space();
+        if (peek() == 't') {
+            literal("true");
+            return true;
+        }
+        literal("false");
+        return false;
+    }
+
+    private int integer() {
+        space();
+        int start = pos;
+        if (peek() == '-') {
+            pos++;
+        }
+        long value = 0;
+        while (pos < json.length && json[pos] >= '0' && json[pos] <= '9' && value <= Integer.MAX_VALUE) {
+            value = value * 10 + json[pos++] - '0';
+        }
+        if (pos == start || value > Integer.MAX_VALUE
+            || pos < json.length && (json[pos] == '.' || json[pos] == 'e' || json[pos] == 'E')) {
+            // floating point and out of range values are coerced or rejected by the object mapper
+            throw MISMATCH;
+        }
+        return (int) (json[start] == '-' ? -value : value);
+    }
+
+    /**
+     * Read a field name and its colon, the name is left in {@link #text}.
+     */
+    private void name() {
+        space();
+        string();
+        expect(':');
+    }
+
+    private boolean is(String name) {
+        if (name.length() != textLength) {
+            return false;
+        }
+        for (int i = 0; i < textLength; i++) {
+            if (name.charAt(i) != text[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode the string at the current position into {@link #text}.
+     */
+    private void string() {
+        if (peek() != '"') {
+            throw MISMATCH;
+        }
+        pos++;
+        textLength = 0;
+
+        while (true) {
+            int b = peek() & 0xff;
+            pos++;
+            if (textLength + 2 > text.length) {
+                text = Arrays.copyOf(text, text.length * 2);
+            }
+            if (b == '"') {
+                return;
+            } else if (b == '\\') {
+                escape();
+            } else if (b < 0x20) {
+                throw MISMATCH;
+            } else if (b < 0x80) {
+                text[textLength++] = (char) b;
+            } else if (b >= 0xc2 && b < 0xe0) {
+                text[textLength++] = (char) ((b & 0x1f) << 6 | continuation());
+            } else if (b >= 0xe0 && b < 0xf0) {
+                int c = (b & 0x0f) << 12 | continuation() << 6 | continuation();
+                if (c < 0x800 || Character.isSurrogate((char) c)) {
+                    throw MISMATCH;
+                }
+                text[textLength++] = (char) c;
+            } else if (b >= 0xf0 && b < 0xf5) {
+                int c = (b & 0x07) << 18 | continuation() << 12 | continuation() << 6 | continuation();
+                if (c < 0x10000 || c > Character.MAX_CODE_POINT) {
+                    throw MISMATCH;
+                }
+                text[textLength++] = Character.highSurrogate(c);
+                text[textLength++] = Character.lowSurrogate(c);
+            } else {
+                throw MISMATCH;
+            }
+        }
+    }
+
+    private int continuation() {
+        int b = peek() & 0xff;
+        if ((b & 0xc0) != 0x80) {
+            throw MISMATCH;
+        }
+        pos++;
+        return b & 0x3f;
+    }
+
+    private void escape() {
+        byte b = peek();
+        pos++;
+        switch (b) {
+            case '"':
+            case '\\':
+            case '/':
+                text[textLength++] = (char) b;
+                break;
+            case 'b':
+                text[textLength++] = '\b';
+                break;
+            case 'f':
+                text[textLength++] = '\f';
+                break;
+            case 'n':
+                text[textLength++] = '\n';
+                break;
+            case 'r':
+                text[textLength++] = '\r';
+                break;
+            case 't':
+                text[textLength++] = '\t';
+                break;
+            case 'u':
+                int c = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(peek(), 16);
+                    if (digit < 0) {
+                        throw MISMATCH;
+                    }
+                    c = c << 4 | digit;
+                    pos++;
+                }
+                text[textLength++] = (char) c;
+                break;
+            default:
+                throw MISMATCH;
+        }
+    }
+
+    /**
+     * Skip the value at the current position.
+     */
+    private void skip() {
+        space();
+        byte b = peek();
+        if (b == '"') {
+            skipString();
+        } else if (b == '{' || b == '[') {
+            byte close = b == '{' ? (byte) '}' : (byte) ']';
+            pos++;
+            if (!consume((char) close)) {
+                do {
+                    if (b == '{') {
+                        name();
+                    }
+                    skip();
+                } while (consume(','));
+                expect((char) close);
+            }
+        } else if (b == '-' || b >= '0' && b <= '9') {
+            pos++;
+            while (pos < json.length && (json[pos] >= '0' && json[pos] <= '9' || json[pos] == '.'
+                || json[pos] == 'e' || json[pos] == 'E' || json[pos] == '+' || json[pos] == '-')) {
+                pos++;
+            }
+        } else if (b == 'n') {
+            literal("null");
+        } else if (b == 't') {
+            literal("true");
+        } else if (b == 'f') {
+            literal("false");
+        } else {
+            throw MISMATCH;
+        }
+    }
+
+    /**
+     * Skip the string at the current position without decoding it.
+     */
+    private void skipString() {
+        pos++;
+        while (true) {
+            byte b = peek();
+            pos++;
+            if (b == '"') {
+                return;
+            } else if (b == '\\') {
+                peek();
+                pos++;
+            } else if (b >= 0 && b < 0x20) {
+                throw MISMATCH;
+            }
+        }
+    }
+
+    private void literal(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (peek() != literal.charAt(i)) {
+                throw MISMATCH;
+            }
+            pos++;
+        }
+    }
+
+    private boolean consumeNull() {
+        space();
+        if (pos + 4 <= json.length && json[pos] == 'n') {
+            literal("null");
+            return true;
+        }
+        return false;
+    }
+
+    private boolean consume(char c) {
+        space();
+        if (pos < json.length && json[pos] == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!consume(c)) {
+            throw MISMATCH;
+        }
+    }
+
+    private byte peek() {
+        if (pos >= json.length) {
+            throw MISMATCH;
+        }
+        return json[pos];
+    }
+
+    private void space() {
+        while (pos < json.length) {
+            byte b = json[pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * Input the scanner does not handle, thrown without a stack trace.
+     */
+    private static final class Mismatch extends RuntimeException {
+        private Mismatch() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental reader of an adapter response.
+ * <p>
+ * The reader consumes the response header fields up to the start of the {@code rows} array and then hands out
+ * one row per {@link #nextRow()} call, so memory use does not depend on the size of the result. Fields that
+ * follow the rows in the response (the adapter does not guarantee an order) only become available once all
+ * rows have been read.
+ */
+public class CovenantResponseReader implements Closeable {
+    private static final JsonFactory jsonFactory = new MappingJsonFactory();
+
+    private final JsonParser parser;
+    private final Closeable owner;
+
+    private String status;
+    private Boolean success;
+    private List<String> types;
+    private List<String> columns;
+    private int affectedRows;
+    private int lastInsertId;
+
+    // depth 1: top level object, depth 2: data object
+    private int depth;
+    private boolean inRows;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * @param stream response body
+     * @param owner  resource released with the reader, e.g. the http response, may be null
+     * @throws IOException on malformed or truncated response
+     */
+    public CovenantResponseReader(InputStream stream, Closeable owner) throws IOException {
+        this.parser = jsonFactory.createParser(stream);
+        this.owner = owner;
+
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("unexpected response, object expected");
+        }
+
+        depth = 1;
+        advance();
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * A response carrying rows is a successful one even if the success flag has not been read yet.
+     *
+     * @return whether the adapter reported success
+     */
+    public boolean isSuccess() {
+        return success != null ? success : inRows;
+    }
+
+    /**
+     * @return declared column types, null while they have not been read
+     */
+    public List<String> getTypes() {
+        return types;
+    }
+
+    /**
+     * @return column names, null while they have not been read
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public int getAffectedRows() {
+        return affectedRows;
+    }
+
+    public int getLastInsertId() {
+        return lastInsertId;
+    }
+
+    /**
+     * @return whether the whole response has been consumed
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return next row values, or null if there are no more rows
+     * @throws IOException on malformed or truncated response
+     */
+    public Object[] nextRow() throws IOException {
+        if (!inRows) {
+            return null;
+        }
+
+        JsonToken token = parser.nextToken();
+
+        if (token == JsonToken.END_ARRAY) {
+            // end of rows, read remaining fields
+            inRows = false;
+            advance();
+            return null;
+        }
+
+        if (token != JsonToken.START_ARRAY) {
+            throw new IOException("unexpected token in rows: " + token);
+        }
+
+        List<Object> row = new ArrayList<>(columns != null ? columns.size() : 8);
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IOException("unexpected end of response");
+            }
+            row.add(readValue(token));
+        }
+
+        return row.toArray();
+    }
+
+    /**
+     * Read fields until positioned inside the rows array or at the end of the response.
+     */
+    private void advance() throws IOException {
+        JsonToken token;
+
+        while ((token = parser.nextToken()) != null) {
+            if (token == JsonToken.END_OBJECT) {
+                depth--;
+                if (depth == 0) {
+                    finished = true;
+                    return;
+                }
+                continue;
+            }
+
+            if (token != JsonToken.FIELD_NAME) {
+                throw new IOException("unexpected token in response: " + token);
+            }
+
+            String field = parser.getCurrentName();
+            token = parser.nextToken();
+
+            if (depth == 1) {
+                if ("status".equals(field)) {
+                    status = parser.getValueAsString();
+                } else if ("success".equals(field)) {
+                    success = parser.getValueAsBoolean();
+                } else if ("data".equals(field) && token == JsonToken.START_OBJECT) {
+                    depth = 2;
+                } else {
+                    parser.skipChildren();
+                }
+            } else {
+                if ("types".equals(field)) {
+                    types = readStrings(token);
+                } else if ("columns".equals(field)) {
+                    columns = readStrings(token);
+                } else if ("affected_rows".equals(field)) {
+                    affectedRows = parser.getValueAsInt();
+                } else if ("last_insert_id".equals(field)) {
+                    lastInsertId = parser.getValueAsInt();
+                } else if ("rows".equals(field) && token == JsonToken.START_ARRAY) {
+                    inRows = true;
+                    return;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        throw new IOException("unexpected end of response");
+    }
+
+    private List<String> readStrings(JsonToken token) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+
+        List<String> values = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(parser.getValueAsString());
+        }
+        return values;
+    }
+
+    private Object readValue(JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                // nested structure, same representation as the buffered result
+                return parser.readValueAs(Object.class);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        if (!finished && owner != null) {
+            // closing the stream first would drain the rest of the response, drop the connection instead
+            try {
+                owner.close();
+            } finally {
+                parser.close();
+            }
+            return;
+        }
+
+        try {
+            parser.close();
+        } finally {
+            if (owner != null) {
+                owner.close();
+            }
+        }
+    }
+}
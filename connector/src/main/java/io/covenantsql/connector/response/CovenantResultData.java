@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response;
+
+import io.covenantsql.connector.response.beans.CovenantResponseBean;
+import io.covenantsql.connector.response.column.Column;
+import io.covenantsql.connector.response.column.ColumnBuilder;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decoded, column oriented result of a query.
+ * <p>
+ * Instances are immutable and may back any number of result sets.
+ */
+public class CovenantResultData {
+    private final String[] columnNames;
+    private final String[] types;
+    private final Column[] columns;
+    private final int rowCount;
+
+    public CovenantResultData(String[] columnNames, String[] types, Column[] columns, int rowCount) {
+        this.columnNames = columnNames;
+        this.types = types;
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Decode row oriented response data into typed column storage.
+     *
+     * @param bean response data
+     * @return decoded data
+     * @throws SQLException if a row does not match the column count
+     */
+    public static CovenantResultData decode(CovenantResponseBean.DataBean bean) throws SQLException {
+        if (bean.getDecoded() != null) {
+            return bean.getDecoded();
+        }
+
+        String[] columnNames = bean.getColumns().toArray(new String[0]);
+        String[] types = bean.getTypes().toArray(new String[0]);
+        List<List<Object>> rows = bean.getRows();
+        int rowCount = rows != null ? rows.size() : 0;
+
+        ColumnBuilder[] builders = new ColumnBuilder[columnNames.length];
+        for (int i = 0; i < builders.length; i++) {
+            builders[i] = ColumnBuilder.forType(i < types.length ? types[i] : null, rowCount);
+        }
+
+        for (int r = 0; r < rowCount; r++) {
+            List<Object> row = rows.get(r);
+            if (row.size() != columnNames.length) {
+                throw new SQLException("field count mismatched");
+            }
+            for (int i = 0; i < builders.length; i++) {
+                builders[i].append(row.get(i));
+            }
+        }
+
+        Column[] columns = new Column[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            columns[i] = builders[i].build();
+        }
+
+        return new CovenantResultData(columnNames, types, columns, rowCount);
+    }
+
+    /**
+     * Encode back into the row oriented response schema, the inverse of {@link #decode(CovenantResponseBean.DataBean)}.
+     *
+     * @return response data
+     */
+    public CovenantResponseBean.DataBean toDataBean() {
+        List<List<Object>> rows = new ArrayList<>(rowCount);
+        for (int r = 0; r < rowCount; r++) {
+            List<Object> row = new ArrayList<>(columns.length);
+            for (Column column : columns) {
+                row.add(column.get(r));
+            }
+            rows.add(row);
+        }
+
+        CovenantResponseBean.DataBean bean = new CovenantResponseBean.DataBean();
+        bean.setColumns(Arrays.asList(columnNames));
+        bean.setTypes(Arrays.asList(types));
+        bean.setRows(rows);
+        return bean;
+    }
+
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    public String[] getTypes() {
+        return types;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return estimated heap footprint in bytes
+     */
+    public long getWeight() {
+        long weight = 64;
+        for (int i = 0; i < columns.length; i++) {
+            weight += columns[i].getWeight() + Column.weigh(columnNames[i]);
+            if (i < types.length) {
+                weight += Column.weigh(types[i]);
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * @param index column index, starting from 0
+     * @return column storage
+     */
+    public Column getColumn(int index) {
+        return columns[index];
+    }
+}
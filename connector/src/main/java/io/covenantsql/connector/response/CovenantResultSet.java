@@ -18,17 +18,19 @@ package io.covenantsql.connector.response;
 
 import io.covenantsql.connector.CovenantStatement;
 import io.covenantsql.connector.response.beans.CovenantResponseBean;
+import io.covenantsql.connector.response.column.Column;
+import io.covenantsql.connector.util.TemporalParser;
 import io.covenantsql.connector.util.TypeUtils;
 import org.apache.commons.lang3.BooleanUtils;
-import org.apache.commons.lang3.time.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.*;
-import java.text.ParseException;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Map;
@@ -36,21 +38,6 @@ import java.util.Map;
 public class CovenantResultSet extends CovenantMockResultSetUnused {
     public static final CovenantResultSet EMPTY;
     private static final Logger LOG = LoggerFactory.getLogger(CovenantResultSet.class);
-    private static final String[] dateFormats = {
-        "yyyy-MM-dd'T'HH:mm:ssXXX",
-        "yyyy-MM-dd'T'HH:mm:ss",
-        "yyyy-MM-dd HH:mm:ss",
-        "MMMM/dd/yyyy HH:mm:ss",
-        "MMMM dd, yyyy HH:mm:ss",
-        "dd/MM/yyyy HH:mm:ss",
-        "dd-MM-yyyy HH:mm:ss",
-        "yyyy-MM-dd",
-        "MMMM/dd/yyyy",
-        "MMMM dd, yyyy",
-        "dd/MM/yyyy",
-        "dd-MM-yyyy",
-        "HH:mm:ss",
-    };
 
     static {
         EMPTY = new CovenantResultSet();
@@ -62,7 +49,11 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
     private final Map<String, Integer> col = new HashMap<>();
     private final String[] types;
     private final String[] columns;
-    private final CovenantResponseBean.DataBean dataBean;
+    private final int[] sqlTypes;
+    private final ValueConverter[] converters;
+    private final TemporalParser[] temporalParsers;
+    private final CovenantResultData data;
+    private final CovenantResponseReader reader;
 
     private int maxRows;
     private int lastReadColumn;
@@ -76,24 +67,91 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
         this.table = "";
         this.types = new String[0];
         this.columns = new String[0];
-        this.dataBean = null;
+        this.sqlTypes = new int[0];
+        this.converters = new ValueConverter[0];
+        this.temporalParsers = new TemporalParser[0];
+        this.data = null;
+        this.reader = null;
         this.closed = true;
     }
 
     public CovenantResultSet(CovenantResponseBean.DataBean bean, String db, String table,
+                             CovenantStatement statement) throws SQLException {
+        this(CovenantResultData.decode(bean), db, table, statement);
+    }
+
+    /**
+     * Buffered result set over decoded column data, the data may be shared with other result sets.
+     *
+     * @param data      decoded result
+     * @param db        database
+     * @param table     table
+     * @param statement statement
+     */
+    public CovenantResultSet(CovenantResultData data, String db, String table, CovenantStatement statement) {
+        this.db = db;
+        this.table = table;
+        this.statement = statement;
+        this.data = data;
+        this.reader = null;
+        this.types = data.getTypes();
+        this.columns = data.getColumnNames();
+
+        this.sqlTypes = toSQLTypes(types, columns.length);
+        this.converters = toConverters(sqlTypes);
+        this.temporalParsers = new TemporalParser[columns.length];
+
+        for (int i = 0; i < columns.length; i++) {
+            col.put(columns[i], i + 1);
+        }
+    }
+
+    /**
+     * Streaming result set, rows are pulled from the reader one at a time.
+     * <p>
+     * If the adapter sends the column types after the rows, the types are unknown while iterating and values
+     * are typed by detection.
+     *
+     * @param reader    response reader positioned at the rows, closed with the result set
+     * @param db        database
+     * @param table     table
+     * @param statement statement
+     */
+    public CovenantResultSet(CovenantResponseReader reader, String db, String table,
                              CovenantStatement statement) {
         this.db = db;
         this.table = table;
         this.statement = statement;
-        this.dataBean = bean;
-        this.types = bean.getTypes().toArray(new String[0]);
-        this.columns = bean.getColumns().toArray(new String[0]);
+        this.data = null;
+        this.reader = reader;
+        this.columns = reader.getColumns() != null ? reader.getColumns().toArray(new String[0]) : new String[0];
+        this.types = reader.getTypes() != null ? reader.getTypes().toArray(new String[0]) : new String[columns.length];
+
+        this.sqlTypes = toSQLTypes(types, columns.length);
+        this.converters = toConverters(sqlTypes);
+        this.temporalParsers = new TemporalParser[columns.length];
 
         for (int i = 0; i < columns.length; i++) {
             col.put(columns[i], i + 1);
         }
     }
 
+    private static int[] toSQLTypes(String[] types, int columnCount) {
+        int[] sqlTypes = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            sqlTypes[i] = TypeUtils.toSQLType(i < types.length ? types[i] : null);
+        }
+        return sqlTypes;
+    }
+
+    private static ValueConverter[] toConverters(int[] sqlTypes) {
+        ValueConverter[] converters = new ValueConverter[sqlTypes.length];
+        for (int i = 0; i < sqlTypes.length; i++) {
+            converters[i] = ValueConverter.forSQLType(sqlTypes[i]);
+        }
+        return converters;
+    }
+
     @Override
     public int getRow() {
         return rowNumber + 1;
@@ -131,7 +189,11 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
             return false;
         }
 
-        if (rowNumber >= dataBean.getRows().size()) {
+        if (reader != null) {
+            return nextStreamed();
+        }
+
+        if (rowNumber >= data.getRowCount()) {
             return false;
         }
 
@@ -140,7 +202,28 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
             return false;
         }
 
-        values = dataBean.getRows().get(rowNumber).toArray();
+        rowNumber += 1;
+        return true;
+    }
+
+    private boolean nextStreamed() throws SQLException {
+        if (maxRows != 0 && rowNumber >= maxRows) {
+            // no more values
+            return false;
+        }
+
+        Object[] row;
+        try {
+            row = reader.nextRow();
+        } catch (IOException e) {
+            throw new SQLException("read result row failed", e);
+        }
+
+        if (row == null) {
+            return false;
+        }
+
+        values = row;
         checkValues(columns, values);
         rowNumber += 1;
         return true;
@@ -149,6 +232,14 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
     @Override
     public void close() throws SQLException {
         closed = true;
+
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new SQLException("close result stream failed", e);
+            }
+        }
     }
 
     @Override
@@ -174,6 +265,14 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
         return types;
     }
 
+    /**
+     * @param columnIndex column index, starting from 1
+     * @return sql type resolved from the declared column type
+     */
+    public int getColumnSQLType(int columnIndex) {
+        return sqlTypes[columnIndex - 1];
+    }
+
     public Map<String, Integer> getCol() {
         return col;
     }
@@ -191,51 +290,103 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
         return getValue(lastReadColumn) == null;
     }
 
-    private Object[] getValues() {
-        return values;
-    }
-
     private Object getValue(int colNum) {
         lastReadColumn = colNum;
-        return values[colNum - 1];
-    }
 
-    @Override
-    public Object getObject(int columnIndex) throws SQLException {
-        // with type detection
-        Object val = getValue(columnIndex);
-        int sqlType = TypeUtils.toSQLTypeWithDetection(types[columnIndex - 1], val);
-
-        if (sqlType == Types.OTHER) {
-            return val;
+        if (data != null) {
+            return data.getColumn(colNum - 1).get(rowNumber - 1);
         }
 
-        Class classType = TypeUtils.toClass(sqlType);
+        return values[colNum - 1];
+    }
 
-        switch (classType.getSimpleName()) {
-            case "Boolean":
-                return getBoolean(columnIndex);
-            case "Integer":
-                return getInt(columnIndex);
-            case "Long":
-                return getLong(columnIndex);
-            case "Double":
-                return getDouble(columnIndex);
-            case "BigDecimal":
-                return getBigDecimal(columnIndex);
-            case "String":
-                return getString(columnIndex);
-            case "Float":
-                return getFloat(columnIndex);
-            case "Date":
-                return getDate(columnIndex);
-            case "Timestamp":
-                return getTimestamp(columnIndex);
-            case "Time":
-                return getTime(columnIndex);
+    private Column bufferedColumn(int columnIndex) throws SQLException {
+        if (data == null) {
+            throw new SQLFeatureNotSupportedException("column access is only supported by buffered result sets");
+        }
+        if (columnIndex < 1 || columnIndex > columns.length) {
+            throw new SQLException("column index out of range: " + columnIndex);
+        }
+        return data.getColumn(columnIndex - 1);
+    }
+
+    private int bufferedRowCount() {
+        return maxRows != 0 ? Math.min(maxRows, data.getRowCount()) : data.getRowCount();
+    }
+
+    /**
+     * Bulk access to a whole column without iterating the result set.
+     * <p>
+     * Integer columns hand out their backing array, which must not be modified; other columns are converted.
+     * Null cells are 0, see {@link #getNullColumn(int)}.
+     *
+     * @param columnIndex column index, starting from 1
+     * @return values of all rows
+     * @throws SQLException if the result set is streamed or a value is not numeric
+     */
+    public long[] getLongColumn(int columnIndex) throws SQLException {
+        Column column = bufferedColumn(columnIndex);
+        long[] values;
+        try {
+            values = column.toLongArray();
+        } catch (NumberFormatException e) {
+            throw new SQLDataException("column " + columnIndex + " is not numeric", e);
         }
+        int rows = bufferedRowCount();
+        return rows == values.length ? values : Arrays.copyOf(values, rows);
+    }
+
+    /**
+     * Bulk access to a whole column without iterating the result set.
+     * <p>
+     * Floating point columns hand out their backing array, which must not be modified; other columns are
+     * converted. Null cells are 0, see {@link #getNullColumn(int)}.
+     *
+     * @param columnIndex column index, starting from 1
+     * @return values of all rows
+     * @throws SQLException if the result set is streamed or a value is not numeric
+     */
+    public double[] getDoubleColumn(int columnIndex) throws SQLException {
+        Column column = bufferedColumn(columnIndex);
+        double[] values;
+        try {
+            values = column.toDoubleArray();
+        } catch (NumberFormatException e) {
+            throw new SQLDataException("column " + columnIndex + " is not numeric", e);
+        }
+        int rows = bufferedRowCount();
+        return rows == values.length ? values : Arrays.copyOf(values, rows);
+    }
+
+    /**
+     * @param columnIndex column index, starting from 1
+     * @return string values of all rows
+     * @throws SQLException if the result set is streamed
+     */
+    public String[] getStringColumn(int columnIndex) throws SQLException {
+        String[] values = bufferedColumn(columnIndex).toStringArray();
+        int rows = bufferedRowCount();
+        return rows == values.length ? values : Arrays.copyOf(values, rows);
+    }
+
+    /**
+     * @param columnIndex column index, starting from 1
+     * @return null bitmap of the column, bit i is set if row i + 1 is null
+     * @throws SQLException if the result set is streamed
+     */
+    public BitSet getNullColumn(int columnIndex) throws SQLException {
+        BitSet nulls = bufferedColumn(columnIndex).getNulls();
+        int rows = bufferedRowCount();
+        if (nulls.length() > rows) {
+            nulls.clear(rows, nulls.length());
+        }
+        return nulls;
+    }
 
-        return val;
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+        // with type detection for columns of unknown type
+        return converters[columnIndex - 1].convert(this, columnIndex, getValue(columnIndex));
     }
 
     @Override
@@ -246,6 +397,11 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
 
     @Override
     public String getString(int columnIndex) throws SQLException {
+        if (data != null) {
+            lastReadColumn = columnIndex;
+            return data.getColumn(columnIndex - 1).getString(rowNumber - 1);
+        }
+
         Object val = getValue(columnIndex);
 
         if (val == null) {
@@ -257,6 +413,12 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
 
     @Override
     public boolean getBoolean(int columnIndex) throws SQLException {
+        if (data != null) {
+            lastReadColumn = columnIndex;
+            Column column = data.getColumn(columnIndex - 1);
+            return column.isNull(rowNumber - 1) ? false : column.getBoolean(rowNumber - 1);
+        }
+
         Object val = getValue(columnIndex);
 
         if (val == null) {
@@ -282,6 +444,12 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
 
     @Override
     public byte getByte(int columnIndex) throws SQLException {
+        if (data != null) {
+            lastReadColumn = columnIndex;
+            Column column = data.getColumn(columnIndex - 1);
+            return column.isNull(rowNumber - 1) ? 0 : (byte) column.getLong(rowNumber - 1);
+        }
+
         Object val = getValue(columnIndex);
 
         if (val == null) {
@@ -297,6 +465,12 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
 
     @Override
     public short getShort(int columnIndex) throws SQLException {
+        if (data != null) {
+            lastReadColumn = columnIndex;
+            Column column = data.getColumn(columnIndex - 1);
+            return column.isNull(rowNumber - 1) ? 0 : (short) column.getLong(rowNumber - 1);
+        }
+
         Object val = getValue(columnIndex);
 
         if (val == null) {
@@ -312,6 +486,12 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
 
     @Override
     public int getInt(int columnIndex) throws SQLException {
+        if (data != null) {
+            lastReadColumn = columnIndex;
+            Column column = data.getColumn(columnIndex - 1);
+            return column.isNull(rowNumber - 1) ? 0 : (int) column.getLong(rowNumber - 1);
+        }
+
         Object val = getValue(columnIndex);
 
         if (val == null) {
@@ -327,6 +507,12 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
 
     @Override
     public long getLong(int columnIndex) throws SQLException {
+        if (data != null) {
+            lastReadColumn = columnIndex;
+            Column column = data.getColumn(columnIndex - 1);
+            return column.isNull(rowNumber - 1) ? 0 : column.getLong(rowNumber - 1);
+        }
+
         Object val = getValue(columnIndex);
 
         if (val == null) {
@@ -342,6 +528,12 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
 
     @Override
     public float getFloat(int columnIndex) throws SQLException {
+        if (data != null) {
+            lastReadColumn = columnIndex;
+            Column column = data.getColumn(columnIndex - 1);
+            return column.isNull(rowNumber - 1) ? 0 : (float) column.getDouble(rowNumber - 1);
+        }
+
         Object val = getValue(columnIndex);
 
         if (val == null) {
@@ -357,6 +549,12 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
 
     @Override
     public double getDouble(int columnIndex) throws SQLException {
+        if (data != null) {
+            lastReadColumn = columnIndex;
+            Column column = data.getColumn(columnIndex - 1);
+            return column.isNull(rowNumber - 1) ? 0 : column.getDouble(rowNumber - 1);
+        }
+
         Object val = getValue(columnIndex);
 
         if (val == null) {
@@ -372,25 +570,15 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
 
     @Override
     public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
-        Object val = getValue(columnIndex);
-
-        if (val == null) {
-            return BigDecimal.ZERO;
-        }
-
-        if (val instanceof Number) {
-            if (val instanceof BigDecimal) {
-                return ((BigDecimal) val).add(BigDecimal.ZERO);
-            } else if (val instanceof BigInteger) {
-                return new BigDecimal((BigInteger) val);
-            } else if (val instanceof Float || val instanceof Double) {
-                return new BigDecimal(((Number) val).doubleValue());
-            } else {
-                return new BigDecimal(((Number) val).longValue());
-            }
+        BigDecimal val;
+        if (data != null) {
+            // lazily decoded columns parse the token text exactly
+            lastReadColumn = columnIndex;
+            val = data.getColumn(columnIndex - 1).getBigDecimal(rowNumber - 1);
         } else {
-            return new BigDecimal(val.toString());
+            val = Column.toBigDecimal(getValue(columnIndex));
         }
+        return val != null ? val : BigDecimal.ZERO;
     }
 
     @Override
@@ -405,46 +593,41 @@ public class CovenantResultSet extends CovenantMockResultSetUnused {
         return getString(columnIndex).getBytes();
     }
 
-    @Override
-    public Date getDate(int columnIndex) throws SQLException {
-        try {
-            String dateString = getString(columnIndex);
-            if (dateString == null) {
-                return null;
-            }
-            return new Date(DateUtils.parseDate(dateString, dateFormats).getTime());
-        } catch (ParseException e) {
-            LOG.warn("parse field to date type failed", e);
+    private Timestamp parseTemporal(int columnIndex, String kind) throws SQLException {
+        String dateString = getString(columnIndex);
+        if (dateString == null) {
             return null;
         }
+
+        // parser learns the layout used by the column
+        TemporalParser parser = temporalParsers[columnIndex - 1];
+        if (parser == null) {
+            parser = new TemporalParser();
+            temporalParsers[columnIndex - 1] = parser;
+        }
+
+        Timestamp result = parser.parse(dateString);
+        if (result == null) {
+            LOG.warn("parse field to {} type failed, unsupported value: {}", kind, dateString);
+        }
+        return result;
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+        Timestamp result = parseTemporal(columnIndex, "date");
+        return result == null ? null : new Date(result.getTime());
     }
 
     @Override
     public Time getTime(int columnIndex) throws SQLException {
-        try {
-            String dateString = getString(columnIndex);
-            if (dateString == null) {
-                return null;
-            }
-            return new Time(DateUtils.parseDate(dateString, dateFormats).getTime());
-        } catch (ParseException e) {
-            LOG.warn("parse field to time type failed", e);
-            return null;
-        }
+        Timestamp result = parseTemporal(columnIndex, "time");
+        return result == null ? null : new Time(result.getTime());
     }
 
     @Override
     public Timestamp getTimestamp(int columnIndex) throws SQLException {
-        try {
-            String dateString = getString(columnIndex);
-            if (dateString == null) {
-                return null;
-            }
-            return new Timestamp(DateUtils.parseDate(dateString, dateFormats).getTime());
-        } catch (ParseException e) {
-            LOG.warn("parse field to timestamp type failed", e);
-            return null;
-        }
+        return parseTemporal(columnIndex, "timestamp");
     }
 
     @Override
@@ -84,7 +84,7 @@ public class CovenantResultSetMetaData extends CovenantMockResultSetMetaDataUnus
 
     @Override
     public int getColumnType(int column) throws SQLException {
-        return TypeUtils.toSQLType(getColumnTypeName(column));
+        return resultSet.getColumnSQLType(column);
     }
 
     @Override
@@ -94,9 +94,7 @@ public class CovenantResultSetMetaData extends CovenantMockResultSetMetaDataUnus
 
     @Override
     public String getColumnClassName(int column) throws SQLException {
-        String columnTypeName = getColumnTypeName(column);
-        int sqlType = TypeUtils.toSQLType(columnTypeName);
-        return TypeUtils.toClass(sqlType).getName();
+        return TypeUtils.toClass(resultSet.getColumnSQLType(column)).getName();
     }
 
     @Override
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Per column conversion used by {@link CovenantResultSet#getObject(int)}, resolved once from the declared
+ * column type so that no type name matching happens per cell.
+ */
+enum ValueConverter {
+    BOOLEAN {
+        @Override
+        Object convert(CovenantResultSet resultSet, int columnIndex, Object value) throws SQLException {
+            return resultSet.getBoolean(columnIndex);
+        }
+    },
+    INTEGER {
+        @Override
+        Object convert(CovenantResultSet resultSet, int columnIndex, Object value) throws SQLException {
+            return resultSet.getInt(columnIndex);
+        }
+    },
+    LONG {
+        @Override
+        Object convert(CovenantResultSet resultSet, int columnIndex, Object value) throws SQLException {
+            return resultSet.getLong(columnIndex);
+        }
+    },
+    FLOAT {
+        @Override
+        Object convert(CovenantResultSet resultSet, int columnIndex, Object value) throws SQLException {
+            return resultSet.getFloat(columnIndex);
+        }
+    },
+    DOUBLE {
+        @Override
+        Object convert(CovenantResultSet resultSet, int columnIndex, Object value) throws SQLException {
+            return resultSet.getDouble(columnIndex);
+        }
+    },
+    DECIMAL {
+        @Override
+        Object convert(CovenantResultSet resultSet, int columnIndex, Object value) throws SQLException {
+            return resultSet.getBigDecimal(columnIndex);
+        }
+    },
+    STRING {
+        @Override
+        Object convert(CovenantResultSet resultSet, int columnIndex, Object value) throws SQLException {
+            return resultSet.getString(columnIndex);
+        }
+    },
+    DATE {
+        @Override
+        Object convert(CovenantResultSet resultSet, int columnIndex, Object value) throws SQLException {
+            return resultSet.getDate(columnIndex);
+        }
+    },
+    TIME {
+        @Override
+        Object convert(CovenantResultSet resultSet, int columnIndex, Object value) throws SQLException {
+            return resultSet.getTime(columnIndex);
+        }
+    },
+    TIMESTAMP {
+        @Override
+        Object convert(CovenantResultSet resultSet, int columnIndex, Object value) throws SQLException {
+            return resultSet.getTimestamp(columnIndex);
+        }
+    },
+    /**
+     * Declared type is unknown, convert by the decoded value type.
+     */
+    DETECT {
+        @Override
+        Object convert(CovenantResultSet resultSet, int columnIndex, Object value) throws SQLException {
+            if (value instanceof String || value instanceof BigInteger) {
+                return STRING.convert(resultSet, columnIndex, value);
+            } else if (value instanceof Integer) {
+                return INTEGER.convert(resultSet, columnIndex, value);
+            } else if (value instanceof Long) {
+                return LONG.convert(resultSet, columnIndex, value);
+            } else if (value instanceof Float) {
+                return FLOAT.convert(resultSet, columnIndex, value);
+            } else if (value instanceof Double) {
+                return DOUBLE.convert(resultSet, columnIndex, value);
+            } else if (value instanceof Number) {
+                return DECIMAL.convert(resultSet, columnIndex, value);
+            }
+            return value;
+        }
+    };
+
+    /**
+     * @param resultSet   result set positioned on a row
+     * @param columnIndex column index, starting from 1
+     * @param value       decoded cell value
+     * @return converted value
+     * @throws SQLException if the value can not be converted
+     */
+    abstract Object convert(CovenantResultSet resultSet, int columnIndex, Object value) throws SQLException;
+
+    /**
+     * @param sqlType sql type from {@link io.covenantsql.connector.util.TypeUtils#toSQLType(String)}
+     * @return converter for values of the type
+     */
+    static ValueConverter forSQLType(int sqlType) {
+        switch (sqlType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return BOOLEAN;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return INTEGER;
+            case Types.BIGINT:
+                return LONG;
+            case Types.DOUBLE:
+                return DOUBLE;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return DECIMAL;
+            case Types.FLOAT:
+            case Types.REAL:
+                return FLOAT;
+            case Types.DATE:
+                return DATE;
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            case Types.TIME:
+                return TIME;
+            case Types.OTHER:
+                return DETECT;
+            default:
+                return STRING;
+        }
+    }
+}
@@ -16,9 +16,12 @@
 
 package io.covenantsql.connector.response.beans;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import io.covenantsql.connector.response.CovenantResultData;
+
 import java.util.List;
 
 public class CovenantResponseBean {
@@ -65,6 +68,8 @@ public class CovenantResponseBean {
         int affectedRows;
         @JsonProperty(value = "last_insert_id")
         int lastInsertId;
+        @JsonIgnore
+        CovenantResultData decoded;
 
         public List<String> getTypes() {
             return types;
@@ -82,7 +87,13 @@ public class CovenantResponseBean {
             this.columns = columns;
         }
 
+        /**
+         * @return rows, built from the decoded columns if the response was decoded into columns directly
+         */
         public List<List<Object>> getRows() {
+            if (rows == null && decoded != null) {
+                rows = decoded.toDataBean().getRows();
+            }
             return rows;
         }
 
@@ -105,5 +116,16 @@ public class CovenantResponseBean {
         public void setLastInsertId(int lastInsertId) {
             this.lastInsertId = lastInsertId;
         }
+
+        /**
+         * @return rows decoded into columns while the response was parsed, null if they were not
+         */
+        public CovenantResultData getDecoded() {
+            return decoded;
+        }
+
+        public void setDecoded(CovenantResultData decoded) {
+            this.decoded = decoded;
+        }
     }
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response.column;
+
+import org.apache.commons.lang3.BooleanUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.BitSet;
+
+/**
+ * Immutable storage of all values of one result column.
+ * <p>
+ * Subclasses keep values in primitive arrays where the declared column type allows it; nulls are tracked in a
+ * bitmap so primitive slots of null cells are never looked at.
+ */
+public abstract class Column {
+    protected final int size;
+    protected final BitSet nulls;
+
+    protected Column(int size, BitSet nulls) {
+        this.size = size;
+        this.nulls = nulls;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    /**
+     * @return copy of the null bitmap, bit i is set if row i is null
+     */
+    public BitSet getNulls() {
+        return (BitSet) nulls.clone();
+    }
+
+    /**
+     * @param row row index, starting from 0
+     * @return boxed value, null for null cells
+     */
+    public abstract Object get(int row);
+
+    /**
+     * @return estimated heap footprint in bytes
+     */
+    public long getWeight() {
+        long weight = 32 + nulls.size() / 8;
+        for (int i = 0; i < size; i++) {
+            weight += weigh(get(i));
+        }
+        return weight;
+    }
+
+    /**
+     * @param value decoded value
+     * @return estimated heap footprint of value in bytes
+     */
+    public static long weigh(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        } else if (value instanceof byte[]) {
+            return 24 + ((byte[]) value).length;
+        }
+        return 24;
+    }
+
+    public long getLong(int row) {
+        Object val = get(row);
+
+        if (val == null) {
+            return 0;
+        } else if (val instanceof Number) {
+            return ((Number) val).longValue();
+        } else if (val instanceof Boolean) {
+            return (Boolean) val ? 1 : 0;
+        } else {
+            return Long.parseLong(val.toString());
+        }
+    }
+
+    public double getDouble(int row) {
+        Object val = get(row);
+
+        if (val == null) {
+            return 0;
+        } else if (val instanceof Number) {
+            return ((Number) val).doubleValue();
+        } else if (val instanceof Boolean) {
+            return (Boolean) val ? 1 : 0;
+        } else {
+            return Double.parseDouble(val.toString());
+        }
+    }
+
+    /**
+     * @param row row index, starting from 0
+     * @return true for true booleans, positive numbers and text {@code BooleanUtils} reads as true
+     */
+    public boolean getBoolean(int row) {
+        Object val = get(row);
+
+        if (val == null) {
+            return false;
+        } else if (val instanceof Boolean) {
+            return (Boolean) val;
+        } else if (val instanceof BigInteger) {
+            return ((BigInteger) val).signum() > 0;
+        } else if (val instanceof BigDecimal) {
+            return ((BigDecimal) val).signum() > 0;
+        } else if (val instanceof Float || val instanceof Double) {
+            return ((Number) val).doubleValue() > 0;
+        } else if (val instanceof Number) {
+            return ((Number) val).longValue() > 0;
+        } else {
+            return BooleanUtils.toBoolean(val.toString());
+        }
+    }
+
+    public String getString(int row) {
+        Object val = get(row);
+        return val == null ? null : val.toString();
+    }
+
+    /**
+     * @param row row index, starting from 0
+     * @return value as decimal, null for null cells
+     */
+    public BigDecimal getBigDecimal(int row) {
+        return toBigDecimal(get(row));
+    }
+
+    /**
+     * @param val decoded value
+     * @return val as decimal, null if val is null
+     */
+    public static BigDecimal toBigDecimal(Object val) {
+        if (val == null) {
+            return null;
+        }
+
+        if (val instanceof Number) {
+            if (val instanceof BigDecimal) {
+                return ((BigDecimal) val).add(BigDecimal.ZERO);
+            } else if (val instanceof BigInteger) {
+                return new BigDecimal((BigInteger) val);
+            } else if (val instanceof Float || val instanceof Double) {
+                return new BigDecimal(((Number) val).doubleValue());
+            } else {
+                return new BigDecimal(((Number) val).longValue());
+            }
+        } else {
+            return new BigDecimal(val.toString());
+        }
+    }
+
+    /**
+     * @return all values as long, nulls as 0
+     */
+    public long[] toLongArray() {
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            if (!isNull(i)) {
+                values[i] = getLong(i);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return all values as double, nulls as 0
+     */
+    public double[] toDoubleArray() {
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            if (!isNull(i)) {
+                values[i] = getDouble(i);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return all values as string
+     */
+    public String[] toStringArray() {
+        String[] values = new String[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = getString(i);
+        }
+        return values;
+    }
+
+    static boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    static boolean isFloating(Object value) {
+        return value instanceof Number && !(value instanceof BigInteger) && !(value instanceof BigDecimal);
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response.column;
+
+import io.covenantsql.connector.util.TypeUtils;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Accumulates decoded values of one column into the storage suggested by the declared column type.
+ * <p>
+ * The database is dynamically typed, so a value that does not fit the chosen storage (e.g. text in an
+ * integer column) demotes the whole column to an {@link ObjectColumn}. Integers in a floating point column are
+ * stored as doubles and remembered, so their text stays the integer the adapter sent; integers a double cannot hold
+ * exactly demote the column.
+ */
+public class ColumnBuilder {
+    // largest magnitude below which every long is exactly representable as a double
+    private static final long EXACT_DOUBLE = 1L << 53;
+
+    private static final int KIND_LONG = 1;
+    private static final int KIND_DOUBLE = 2;
+    private static final int KIND_STRING = 3;
+    private static final int KIND_OBJECT = 4;
+
+    private int kind;
+    private int size;
+    private final BitSet nulls = new BitSet();
+    private final BitSet integral = new BitSet();
+
+    private long[] longs;
+    private double[] doubles;
+    private char[] chars;
+    private int charLength;
+    private int[] offsets;
+    private Object[] objects;
+
+    private ColumnBuilder(int kind, int capacity) {
+        this.kind = kind;
+        capacity = Math.max(capacity, 1);
+
+        switch (kind) {
+            case KIND_LONG:
+                longs = new long[capacity];
+                break;
+            case KIND_DOUBLE:
+                doubles = new double[capacity];
+                break;
+            case KIND_STRING:
+                chars = new char[capacity * 16];
+                offsets = new int[capacity + 1];
+                break;
+            default:
+                objects = new Object[capacity];
+        }
+    }
+
+    /**
+     * @param declaredType declared column type, may be null if unknown
+     * @param capacity     expected number of rows
+     * @return builder with storage chosen from the declared type
+     */
+    public static ColumnBuilder forType(String declaredType, int capacity) {
+        switch (TypeUtils.toSQLType(declaredType)) {
+            case Types.BIGINT:
+                return new ColumnBuilder(KIND_LONG, capacity);
+            case Types.DOUBLE:
+                return new ColumnBuilder(KIND_DOUBLE, capacity);
+            case Types.VARCHAR:
+            case Types.BLOB:
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                return new ColumnBuilder(KIND_STRING, capacity);
+            default:
+                return new ColumnBuilder(KIND_OBJECT, capacity);
+        }
+    }
+
+    public void appendNull() {
+        ensureCapacity(size + 1);
+        nulls.set(size);
+        if (kind == KIND_STRING) {
+            offsets[size + 1] = charLength;
+        }
+        size++;
+    }
+
+    public void appendLong(long value) {
+        if (kind == KIND_LONG) {
+            ensureCapacity(size + 1);
+            longs[size++] = value;
+        } else if (kind == KIND_DOUBLE && value > -EXACT_DOUBLE && value < EXACT_DOUBLE) {
+            integral.set(size);
+            appendDouble(value);
+        } else if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            appendObject((int) value);
+        } else {
+            appendObject(value);
+        }
+    }
+
+    public void appendDouble(double value) {
+        if (kind == KIND_DOUBLE) {
+            ensureCapacity(size + 1);
+            doubles[size++] = value;
+        } else {
+            appendObject(value);
+        }
+    }
+
+    public void appendString(CharSequence value) {
+        if (kind != KIND_STRING) {
+            appendObject(value.toString());
+            return;
+        }
+
+        ensureCapacity(size + 1);
+        int length = value.length();
+        ensureCharCapacity(charLength + length);
+        if (value instanceof String) {
+            ((String) value).getChars(0, length, chars, charLength);
+        } else {
+            for (int i = 0; i < length; i++) {
+                chars[charLength + i] = value.charAt(i);
+            }
+        }
+        charLength += length;
+        offsets[++size] = charLength;
+    }
+
+    /**
+     * @param value  buffer holding the string
+     * @param offset start of the string in value
+     * @param length length of the string
+     */
+    public void appendString(char[] value, int offset, int length) {
+        if (kind != KIND_STRING) {
+            appendObject(new String(value, offset, length));
+            return;
+        }
+
+        ensureCapacity(size + 1);
+        ensureCharCapacity(charLength + length);
+        System.arraycopy(value, offset, chars, charLength, length);
+        charLength += length;
+        offsets[++size] = charLength;
+    }
+
+    /**
+     * Append a decoded value of any type.
+     *
+     * @param value value as produced by the json decoder
+     */
+    public void append(Object value) {
+        if (value == null) {
+            appendNull();
+        } else if (kind == KIND_LONG && Column.isIntegral(value)) {
+            appendLong(((Number) value).longValue());
+        } else if (kind == KIND_DOUBLE && Column.isIntegral(value)) {
+            appendLong(((Number) value).longValue());
+        } else if (kind == KIND_DOUBLE && Column.isFloating(value)) {
+            appendDouble(((Number) value).doubleValue());
+        } else if (kind == KIND_STRING && value instanceof String) {
+            appendString((String) value);
+        } else {
+            appendObject(value);
+        }
+    }
+
+    private void appendObject(Object value) {
+        if (kind != KIND_OBJECT) {
+            demote();
+        }
+        ensureCapacity(size + 1);
+        objects[size++] = value;
+    }
+
+    private void demote() {
+        Column column = build();
+        objects = new Object[Math.max(size * 2, 1)];
+        for (int i = 0; i < size; i++) {
+            objects[i] = integral.get(i) ? box(doubles[i]) : column.get(i);
+        }
+        kind = KIND_OBJECT;
+        longs = null;
+        doubles = null;
+        chars = null;
+        offsets = null;
+    }
+
+    // integers as the json decoder boxes them
+    private static Object box(double value) {
+        long integer = (long) value;
+        if (integer >= Integer.MIN_VALUE && integer <= Integer.MAX_VALUE) {
+            return (int) integer;
+        }
+        return integer;
+    }
+
+    private void ensureCapacity(int capacity) {
+        switch (kind) {
+            case KIND_LONG:
+                if (capacity > longs.length) {
+                    longs = Arrays.copyOf(longs, Math.max(capacity, longs.length * 2));
+                }
+                break;
+            case KIND_DOUBLE:
+                if (capacity > doubles.length) {
+                    doubles = Arrays.copyOf(doubles, Math.max(capacity, doubles.length * 2));
+                }
+                break;
+            case KIND_STRING:
+                if (capacity + 1 > offsets.length) {
+                    offsets = Arrays.copyOf(offsets, Math.max(capacity + 1, offsets.length * 2));
+                }
+                break;
+            default:
+                if (capacity > objects.length) {
+                    objects = Arrays.copyOf(objects, Math.max(capacity, objects.length * 2));
+                }
+        }
+    }
+
+    private void ensureCharCapacity(int capacity) {
+        if (capacity > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return immutable column, primitive storage trimmed to the number of rows
+     */
+    public Column build() {
+        switch (kind) {
+            case KIND_LONG:
+                return new LongColumn(Arrays.copyOf(longs, size), size, (BitSet) nulls.clone());
+            case KIND_DOUBLE:
+                return new DoubleColumn(Arrays.copyOf(doubles, size), size, (BitSet) nulls.clone(),
+                    (BitSet) integral.clone());
+            case KIND_STRING:
+                return new StringColumn(Arrays.copyOf(chars, charLength), Arrays.copyOf(offsets, size + 1), size,
+                    (BitSet) nulls.clone());
+            default:
+                return new ObjectColumn(Arrays.copyOf(objects, size), size, (BitSet) nulls.clone());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response.column;
+
+import java.util.BitSet;
+
+/**
+ * Floating point column stored as {@code double[]}.
+ * <p>
+ * Cells the adapter sent as integers read back as that integer text from {@link #getString(int)}, like the decoded
+ * value would print.
+ */
+public class DoubleColumn extends Column {
+    private final double[] values;
+    private final BitSet integral;
+
+    public DoubleColumn(double[] values, int size, BitSet nulls) {
+        this(values, size, nulls, new BitSet());
+    }
+
+    /**
+     * @param integral rows sent as integers, all of them exactly representable as double
+     */
+    public DoubleColumn(double[] values, int size, BitSet nulls, BitSet integral) {
+        super(size, nulls);
+        this.values = values;
+        this.integral = integral;
+    }
+
+    @Override
+    public Object get(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    public long getLong(int row) {
+        return (long) values[row];
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public boolean getBoolean(int row) {
+        return values[row] > 0;
+    }
+
+    @Override
+    public String getString(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        return integral.get(row) ? Long.toString((long) values[row]) : Double.toString(values[row]);
+    }
+
+    @Override
+    public long getWeight() {
+        return 32 + (nulls.size() + integral.size()) / 8 + 8L * values.length;
+    }
+
+    /**
+     * @return backing array, must not be modified; nulls are stored as 0
+     */
+    @Override
+    public double[] toDoubleArray() {
+        return values;
+    }
+}
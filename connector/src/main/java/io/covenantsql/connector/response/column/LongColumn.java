@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response.column;
+
+import java.util.BitSet;
+
+/**
+ * Integer column stored as {@code long[]}.
+ */
+public class LongColumn extends Column {
+    private final long[] values;
+
+    public LongColumn(long[] values, int size, BitSet nulls) {
+        super(size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public Object get(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+
+        long value = values[row];
+        // same boxing as the json decoder: smallest fitting type
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return (int) value;
+        }
+        return value;
+    }
+
+    @Override
+    public long getLong(int row) {
+        return values[row];
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public boolean getBoolean(int row) {
+        return values[row] > 0;
+    }
+
+    @Override
+    public String getString(int row) {
+        return isNull(row) ? null : Long.toString(values[row]);
+    }
+
+    @Override
+    public long getWeight() {
+        return 32 + nulls.size() / 8 + 8L * values.length;
+    }
+
+    /**
+     * @return backing array, must not be modified; nulls are stored as 0
+     */
+    @Override
+    public long[] toLongArray() {
+        return values;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response.column;
+
+import java.util.BitSet;
+
+/**
+ * Column of mixed or non primitive values, kept as decoded.
+ */
+public class ObjectColumn extends Column {
+    private final Object[] values;
+
+    public ObjectColumn(Object[] values, int size, BitSet nulls) {
+        super(size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public Object get(int row) {
+        return values[row];
+    }
+
+    @Override
+    public long getWeight() {
+        long weight = 32 + nulls.size() / 8 + 8L * values.length;
+        for (int i = 0; i < size; i++) {
+            weight += weigh(values[i]);
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response.column;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.covenantsql.connector.util.TypeUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Column kept as the spans of its JSON tokens in the response body, a cell is decoded when it is first read.
+ * <p>
+ * Decoded values are memoized, so cells that are never read cost neither parse time nor allocation. Values are
+ * typed like the json decoder types them, numbers of floating point columns as {@code Double}. Decimals are
+ * parsed from the token text by {@link #getBigDecimal(int)}, without a detour through {@code double}.
+ * Memoization races between threads sharing the column only decode a cell twice.
+ * <p>
+ * The weight charges every cell as decoded from the start, so a cached column does not grow past what the cache
+ * admitted it with as it is read.
+ */
+public class RawColumn extends Column {
+    // escaped strings and nested values, rare enough to go through the object mapper
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final byte[] json;
+    private final int[] starts;
+    private final int[] ends;
+    private final boolean floating;
+    private final long weight;
+    private Object[] decoded;
+
+    private RawColumn(byte[] json, int[] starts, int[] ends, boolean floating, int size, BitSet nulls) {
+        super(size, nulls);
+        this.json = json;
+        this.starts = starts;
+        this.ends = ends;
+        this.floating = floating;
+        long weight = 32 + nulls.size() / 8 + 16L * size;
+        for (int i = 0; i < size; i++) {
+            weight += ends[i] - starts[i];
+            if (!nulls.get(i)) {
+                weight += weigh(starts[i], ends[i]);
+            }
+        }
+        this.weight = weight;
+    }
+
+    @Override
+    public Object get(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+
+        Object[] values = decoded;
+        if (values == null) {
+            values = new Object[size];
+            decoded = values;
+        }
+
+        Object value = values[row];
+        if (value == null) {
+            value = decode(starts[row], ends[row]);
+            values[row] = value;
+        }
+        return value;
+    }
+
+    /**
+     * @param row row index, starting from 0
+     * @return exact value of a numeric token or of a string holding a number, null for null cells
+     */
+    @Override
+    public BigDecimal getBigDecimal(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+
+        byte first = json[starts[row]];
+        if (first == '-' || first >= '0' && first <= '9') {
+            return new BigDecimal(text(starts[row], ends[row]));
+        }
+        return super.getBigDecimal(row);
+    }
+
+    /**
+     * @param row row index, starting from 0
+     * @return text of the cell, integers of floating point columns keep the text the adapter sent
+     */
+    @Override
+    public String getString(int row) {
+        if (floating && !isNull(row) && isInteger(starts[row], ends[row])) {
+            return text(starts[row], ends[row]);
+        }
+        return super.getString(row);
+    }
+
+    @Override
+    public long getWeight() {
+        return weight;
+    }
+
+    // upper bound of the footprint of the decoded token, escapes only shorten strings
+    private long weigh(int start, int end) {
+        byte first = json[start];
+        if (first == '"') {
+            return 40 + 2L * (end - start - 2);
+        } else if (first == '-' || first >= '0' && first <= '9' || first == 't' || first == 'f') {
+            return 24 + (end - start > 18 ? end - start : 0);
+        }
+        // nested values, maps and lists of boxed values
+        return 40 + 8L * (end - start);
+    }
+
+    private Object decode(int start, int end) {
+        byte first = json[start];
+        if (first == '"') {
+            for (int i = start + 1; i < end - 1; i++) {
+                if (json[i] == '\\') {
+                    return map(start, end);
+                }
+            }
+            return new String(json, start + 1, end - start - 2, StandardCharsets.UTF_8);
+        } else if (first == '-' || first >= '0' && first <= '9') {
+            String text = text(start, end);
+            if (!isInteger(start, end) || floating) {
+                return Double.parseDouble(text);
+            } else if (end - start < 10) {
+                return Integer.parseInt(text);
+            }
+            BigInteger value = new BigInteger(text);
+            if (value.bitLength() < 32) {
+                return value.intValue();
+            } else if (value.bitLength() < 64) {
+                return value.longValue();
+            }
+            return value;
+        } else if (first == 't') {
+            return Boolean.TRUE;
+        } else if (first == 'f') {
+            return Boolean.FALSE;
+        }
+        return map(start, end);
+    }
+
+    private boolean isInteger(int start, int end) {
+        byte first = json[start];
+        if (first != '-' && (first < '0' || first > '9')) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (json[i] == '.' || json[i] == 'e' || json[i] == 'E') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object map(int start, int end) {
+        try {
+            return objectMapper.readValue(json, start, end - start, Object.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("malformed value in response", e);
+        }
+    }
+
+    private String text(int start, int end) {
+        return new String(json, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Collects the token spans of one column.
+     */
+    public static class Builder {
+        private final boolean floating;
+        private final BitSet nulls = new BitSet();
+        private int[] starts;
+        private int[] ends;
+        private int size;
+
+        /**
+         * @param declaredType declared column type, may be null if unknown
+         * @param capacity     expected number of rows
+         */
+        public Builder(String declaredType, int capacity) {
+            this.floating = TypeUtils.toSQLType(declaredType) == Types.DOUBLE;
+            capacity = Math.max(capacity, 1);
+            this.starts = new int[capacity];
+            this.ends = new int[capacity];
+        }
+
+        public void appendNull() {
+            append(0, 0);
+            nulls.set(size - 1);
+        }
+
+        /**
+         * @param start offset of the first byte of the token
+         * @param end   offset after the last byte of the token
+         */
+        public void append(int start, int end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        /**
+         * @param json response body the spans refer to
+         * @return column decoding the spans of json
+         */
+        public RawColumn build(byte[] json) {
+            return new RawColumn(json, Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), floating, size,
+                (BitSet) nulls.clone());
+        }
+    }
+}
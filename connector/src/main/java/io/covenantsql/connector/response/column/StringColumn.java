@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response.column;
+
+import java.util.BitSet;
+
+/**
+ * Text column, all values are kept in one character buffer addressed by offsets.
+ */
+public class StringColumn extends Column {
+    private final char[] chars;
+    // offsets[i] is the start of row i, offsets[size] the end of the last row
+    private final int[] offsets;
+
+    public StringColumn(char[] chars, int[] offsets, int size, BitSet nulls) {
+        super(size, nulls);
+        this.chars = chars;
+        this.offsets = offsets;
+    }
+
+    @Override
+    public Object get(int row) {
+        return getString(row);
+    }
+
+    @Override
+    public long getWeight() {
+        return 32 + nulls.size() / 8 + 2L * chars.length + 4L * offsets.length;
+    }
+
+    @Override
+    public String getString(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        return new String(chars, offsets[row], offsets[row + 1] - offsets[row]);
+    }
+}
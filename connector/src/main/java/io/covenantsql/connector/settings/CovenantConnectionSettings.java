@@ -26,7 +26,38 @@ public enum CovenantConnectionSettings {
     SSL_MODE("sslmode", "strict", "verify certificate or not: none (don't verify), strict (verify)"),
     KEY_PATH("key_path", "", "client key use for requests in ssl mode"),
     CERT_PATH("cert_path", "", "client certificate use for requests in ssl mode"),
-    DATABASE("database", "", "database use to query");
+    DATABASE("database", "", "database use to query"),
+    MAX_TOTAL_CONNECTIONS("max_total_connections", 64, "max pooled http connections shared by connections to the same adapter"),
+    MAX_CONNECTIONS_PER_ROUTE("max_connections_per_route", 32, "max pooled http connections per adapter route"),
+    IDLE_CONNECTION_TIMEOUT("idle_connection_timeout", 60 * 1000, "evict pooled http connections idle longer than this in milliseconds"),
+    STREAM_RESULTS("stream_results", false, "read query result rows incrementally from the response instead of buffering them"),
+    BATCH_MAX_ROWS("batch_max_rows", 500, "max rows or statements sent in one batch request"),
+    BATCH_MAX_BYTES("batch_max_bytes", 1024 * 1024, "approximate max size in bytes of one batch request"),
+    POOL_MAX_SIZE("pool_max_size", 10, "max connections held by the pooled data source"),
+    POOL_MIN_IDLE("pool_min_idle", 1, "idle connections the pooled data source keeps ready"),
+    POOL_MAX_LIFETIME("pool_max_lifetime", 30 * 60 * 1000, "retire pooled connections older than this in milliseconds, 0 to disable"),
+    POOL_BORROW_TIMEOUT("pool_borrow_timeout", 30 * 1000, "max wait for a pooled connection in milliseconds"),
+    POOL_LEAK_DETECTION_THRESHOLD("pool_leak_detection_threshold", 0, "log connections borrowed longer than this in milliseconds, 0 to disable"),
+    HEALTH_CHECK_INTERVAL("health_check_interval", 5 * 1000, "interval of background adapter health probes in milliseconds, 0 to disable"),
+    HEALTH_FRESHNESS("health_freshness", 10 * 1000, "max age of the cached adapter health used by isValid in milliseconds"),
+    FAILOVER_QUARANTINE("failover_quarantine", 1000, "initial quarantine in milliseconds of an adapter endpoint after a connect failure, doubled on each consecutive failure"),
+    FAILOVER_MAX_QUARANTINE("failover_max_quarantine", 60 * 1000, "max quarantine of an adapter endpoint in milliseconds"),
+    LOAD_BALANCE("load_balance", "latency", "endpoint choice of multi-host urls: latency (power of two choices over latency and load), ordered (first available in url order)"),
+    READ_HOSTS("read_hosts", "", "comma separated host:port list of adapters serving reads, empty to read from the url hosts"),
+    READ_YOUR_WRITES_WINDOW("read_your_writes_window", 0, "time in milliseconds reads stay on the write hosts after a write on the same connection, 0 to disable"),
+    RETRY_POLICY("retry_policy", "io.covenantsql.connector.util.BackoffRetryPolicy", "class name of the CovenantRetryPolicy deciding retries of failed reads and idempotent statements"),
+    RETRY_MAX_ATTEMPTS("retry_max_attempts", 3, "max attempts of a query or idempotent statement including the first one, 1 to disable retries"),
+    RETRY_INITIAL_BACKOFF("retry_initial_backoff", 100, "max delay in milliseconds before the first retry, doubled on each further retry"),
+    RETRY_MAX_BACKOFF("retry_max_backoff", 5 * 1000, "max delay in milliseconds between two retries"),
+    HEDGE_READS("hedge_reads", false, "send a second query to another endpoint when the first one is slower than the hedge_percentile latency"),
+    HEDGE_PERCENTILE("hedge_percentile", 95, "percentile of recent query latency after which a query is hedged"),
+    HEDGE_BUDGET("hedge_budget", 10, "max extra requests sent by hedging in percent of queries"),
+    COALESCE_READS("coalesce_reads", false, "share one request among identical concurrent queries"),
+    RESULT_CACHE_SIZE("result_cache_size", 0L, "max estimated heap bytes of the query result cache shared by the driver, 0 disables it"),
+    RESULT_CACHE_TTL("result_cache_ttl", 0, "milliseconds query results are cached without a cache_ttl hint"),
+    RESULT_CACHE_DIR("result_cache_dir", "", "directory persisting cached query results across restarts, empty to keep them in memory only"),
+    STATEMENT_CACHE_SIZE("statement_cache_size", 256, "number of parsed prepared statements kept per connection, 0 to disable"),
+    LAZY_RESULTS("lazy_results", false, "keep buffered rows as raw response tokens and decode cells when read");
 
 
     private final String key;
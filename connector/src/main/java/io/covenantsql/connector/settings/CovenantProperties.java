@@ -16,6 +16,11 @@
 
 package io.covenantsql.connector.settings;
 
+import org.apache.http.HttpHost;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 
 public class CovenantProperties {
@@ -23,6 +28,7 @@ public class CovenantProperties {
     // connection settings
     private String host;
     private int port;
+    private List<HttpHost> hosts;
 
     private int connectionTimeout;
     private int operationTimeout;
@@ -31,6 +37,37 @@ public class CovenantProperties {
     private boolean ssl;
     private String sslMode;
     private String database;
+    private int maxTotalConnections;
+    private int maxConnectionsPerRoute;
+    private int idleConnectionTimeout;
+    private boolean streamResults;
+    private int batchMaxRows;
+    private int batchMaxBytes;
+    private int poolMinIdle;
+    private int poolMaxSize;
+    private int poolBorrowTimeout;
+    private int poolMaxLifetime;
+    private int healthCheckInterval;
+    private int poolLeakDetectionThreshold;
+    private int failoverQuarantine;
+    private int healthFreshness;
+    private String loadBalance;
+    private int failoverMaxQuarantine;
+    private int readYourWritesWindow;
+    private String readHosts;
+    private int retryMaxAttempts;
+    private String retryPolicy;
+    private int retryMaxBackoff;
+    private int retryInitialBackoff;
+    private int hedgePercentile;
+    private boolean hedgeReads;
+    private boolean coalesceReads;
+    private int hedgeBudget;
+    private int resultCacheTtl;
+    private long resultCacheSize;
+    private int statementCacheSize;
+    private String resultCacheDir;
+    private boolean lazyResults;
 
     public CovenantProperties() {
         this(new Properties());
@@ -44,11 +81,43 @@ public class CovenantProperties {
         this.ssl = getSetting(info, CovenantConnectionSettings.SSL);
         this.sslMode = getSetting(info, CovenantConnectionSettings.SSL_MODE);
         this.database = getSetting(info, CovenantConnectionSettings.DATABASE);
+        this.maxTotalConnections = getSetting(info, CovenantConnectionSettings.MAX_TOTAL_CONNECTIONS);
+        this.maxConnectionsPerRoute = getSetting(info, CovenantConnectionSettings.MAX_CONNECTIONS_PER_ROUTE);
+        this.idleConnectionTimeout = getSetting(info, CovenantConnectionSettings.IDLE_CONNECTION_TIMEOUT);
+        this.streamResults = getSetting(info, CovenantConnectionSettings.STREAM_RESULTS);
+        this.batchMaxRows = getSetting(info, CovenantConnectionSettings.BATCH_MAX_ROWS);
+        this.batchMaxBytes = getSetting(info, CovenantConnectionSettings.BATCH_MAX_BYTES);
+        this.poolMinIdle = getSetting(info, CovenantConnectionSettings.POOL_MIN_IDLE);
+        this.poolMaxSize = getSetting(info, CovenantConnectionSettings.POOL_MAX_SIZE);
+        this.poolBorrowTimeout = getSetting(info, CovenantConnectionSettings.POOL_BORROW_TIMEOUT);
+        this.poolMaxLifetime = getSetting(info, CovenantConnectionSettings.POOL_MAX_LIFETIME);
+        this.healthCheckInterval = getSetting(info, CovenantConnectionSettings.HEALTH_CHECK_INTERVAL);
+        this.poolLeakDetectionThreshold = getSetting(info, CovenantConnectionSettings.POOL_LEAK_DETECTION_THRESHOLD);
+        this.failoverQuarantine = getSetting(info, CovenantConnectionSettings.FAILOVER_QUARANTINE);
+        this.healthFreshness = getSetting(info, CovenantConnectionSettings.HEALTH_FRESHNESS);
+        this.loadBalance = getSetting(info, CovenantConnectionSettings.LOAD_BALANCE);
+        this.failoverMaxQuarantine = getSetting(info, CovenantConnectionSettings.FAILOVER_MAX_QUARANTINE);
+        this.readYourWritesWindow = getSetting(info, CovenantConnectionSettings.READ_YOUR_WRITES_WINDOW);
+        this.readHosts = getSetting(info, CovenantConnectionSettings.READ_HOSTS);
+        this.retryMaxAttempts = getSetting(info, CovenantConnectionSettings.RETRY_MAX_ATTEMPTS);
+        this.retryPolicy = getSetting(info, CovenantConnectionSettings.RETRY_POLICY);
+        this.retryMaxBackoff = getSetting(info, CovenantConnectionSettings.RETRY_MAX_BACKOFF);
+        this.retryInitialBackoff = getSetting(info, CovenantConnectionSettings.RETRY_INITIAL_BACKOFF);
+        this.hedgePercentile = getSetting(info, CovenantConnectionSettings.HEDGE_PERCENTILE);
+        this.hedgeReads = getSetting(info, CovenantConnectionSettings.HEDGE_READS);
+        this.coalesceReads = getSetting(info, CovenantConnectionSettings.COALESCE_READS);
+        this.hedgeBudget = getSetting(info, CovenantConnectionSettings.HEDGE_BUDGET);
+        this.resultCacheTtl = getSetting(info, CovenantConnectionSettings.RESULT_CACHE_TTL);
+        this.resultCacheSize = getSetting(info, CovenantConnectionSettings.RESULT_CACHE_SIZE);
+        this.statementCacheSize = getSetting(info, CovenantConnectionSettings.STATEMENT_CACHE_SIZE);
+        this.resultCacheDir = getSetting(info, CovenantConnectionSettings.RESULT_CACHE_DIR);
+        this.lazyResults = getSetting(info, CovenantConnectionSettings.LAZY_RESULTS);
     }
 
     public CovenantProperties(CovenantProperties properties) {
         setHost(properties.host);
         setPort(properties.port);
+        setHosts(properties.hosts);
         setConnectionTimeout(properties.connectionTimeout);
         setOperationTimeout(properties.operationTimeout);
         setKeyPath(properties.keyPath);
@@ -56,6 +125,37 @@ public class CovenantProperties {
         setSsl(properties.ssl);
         setSslMode(properties.sslMode);
         setDatabase(properties.database);
+        setMaxTotalConnections(properties.maxTotalConnections);
+        setMaxConnectionsPerRoute(properties.maxConnectionsPerRoute);
+        setIdleConnectionTimeout(properties.idleConnectionTimeout);
+        setStreamResults(properties.streamResults);
+        setBatchMaxRows(properties.batchMaxRows);
+        setBatchMaxBytes(properties.batchMaxBytes);
+        setPoolMinIdle(properties.poolMinIdle);
+        setPoolMaxSize(properties.poolMaxSize);
+        setPoolBorrowTimeout(properties.poolBorrowTimeout);
+        setPoolMaxLifetime(properties.poolMaxLifetime);
+        setHealthCheckInterval(properties.healthCheckInterval);
+        setPoolLeakDetectionThreshold(properties.poolLeakDetectionThreshold);
+        setFailoverQuarantine(properties.failoverQuarantine);
+        setHealthFreshness(properties.healthFreshness);
+        setFailoverMaxQuarantine(properties.failoverMaxQuarantine);
+        setReadHosts(properties.readHosts);
+        setLoadBalance(properties.loadBalance);
+        setRetryPolicy(properties.retryPolicy);
+        setReadYourWritesWindow(properties.readYourWritesWindow);
+        setRetryInitialBackoff(properties.retryInitialBackoff);
+        setRetryMaxAttempts(properties.retryMaxAttempts);
+        setHedgeReads(properties.hedgeReads);
+        setRetryMaxBackoff(properties.retryMaxBackoff);
+        setHedgeBudget(properties.hedgeBudget);
+        setHedgePercentile(properties.hedgePercentile);
+        setResultCacheSize(properties.resultCacheSize);
+        setCoalesceReads(properties.coalesceReads);
+        setResultCacheDir(properties.resultCacheDir);
+        setResultCacheTtl(properties.resultCacheTtl);
+        setLazyResults(properties.lazyResults);
+        setStatementCacheSize(properties.statementCacheSize);
     }
 
     public Properties asProperties() {
@@ -67,6 +167,37 @@ public class CovenantProperties {
         ret.put(CovenantConnectionSettings.SSL.getKey(), String.valueOf(ssl));
         ret.put(CovenantConnectionSettings.SSL_MODE.getKey(), String.valueOf(sslMode));
         ret.put(CovenantConnectionSettings.DATABASE.getKey(), String.valueOf(database));
+        ret.put(CovenantConnectionSettings.MAX_TOTAL_CONNECTIONS.getKey(), String.valueOf(maxTotalConnections));
+        ret.put(CovenantConnectionSettings.MAX_CONNECTIONS_PER_ROUTE.getKey(), String.valueOf(maxConnectionsPerRoute));
+        ret.put(CovenantConnectionSettings.IDLE_CONNECTION_TIMEOUT.getKey(), String.valueOf(idleConnectionTimeout));
+        ret.put(CovenantConnectionSettings.STREAM_RESULTS.getKey(), String.valueOf(streamResults));
+        ret.put(CovenantConnectionSettings.BATCH_MAX_ROWS.getKey(), String.valueOf(batchMaxRows));
+        ret.put(CovenantConnectionSettings.BATCH_MAX_BYTES.getKey(), String.valueOf(batchMaxBytes));
+        ret.put(CovenantConnectionSettings.POOL_MIN_IDLE.getKey(), String.valueOf(poolMinIdle));
+        ret.put(CovenantConnectionSettings.POOL_MAX_SIZE.getKey(), String.valueOf(poolMaxSize));
+        ret.put(CovenantConnectionSettings.POOL_BORROW_TIMEOUT.getKey(), String.valueOf(poolBorrowTimeout));
+        ret.put(CovenantConnectionSettings.POOL_MAX_LIFETIME.getKey(), String.valueOf(poolMaxLifetime));
+        ret.put(CovenantConnectionSettings.HEALTH_CHECK_INTERVAL.getKey(), String.valueOf(healthCheckInterval));
+        ret.put(CovenantConnectionSettings.POOL_LEAK_DETECTION_THRESHOLD.getKey(), String.valueOf(poolLeakDetectionThreshold));
+        ret.put(CovenantConnectionSettings.FAILOVER_QUARANTINE.getKey(), String.valueOf(failoverQuarantine));
+        ret.put(CovenantConnectionSettings.HEALTH_FRESHNESS.getKey(), String.valueOf(healthFreshness));
+        ret.put(CovenantConnectionSettings.LOAD_BALANCE.getKey(), String.valueOf(loadBalance));
+        ret.put(CovenantConnectionSettings.FAILOVER_MAX_QUARANTINE.getKey(), String.valueOf(failoverMaxQuarantine));
+        ret.put(CovenantConnectionSettings.READ_YOUR_WRITES_WINDOW.getKey(), String.valueOf(readYourWritesWindow));
+        ret.put(CovenantConnectionSettings.READ_HOSTS.getKey(), String.valueOf(readHosts));
+        ret.put(CovenantConnectionSettings.RETRY_MAX_ATTEMPTS.getKey(), String.valueOf(retryMaxAttempts));
+        ret.put(CovenantConnectionSettings.RETRY_POLICY.getKey(), String.valueOf(retryPolicy));
+        ret.put(CovenantConnectionSettings.RETRY_MAX_BACKOFF.getKey(), String.valueOf(retryMaxBackoff));
+        ret.put(CovenantConnectionSettings.RETRY_INITIAL_BACKOFF.getKey(), String.valueOf(retryInitialBackoff));
+        ret.put(CovenantConnectionSettings.HEDGE_PERCENTILE.getKey(), String.valueOf(hedgePercentile));
+        ret.put(CovenantConnectionSettings.HEDGE_READS.getKey(), String.valueOf(hedgeReads));
+        ret.put(CovenantConnectionSettings.COALESCE_READS.getKey(), String.valueOf(coalesceReads));
+        ret.put(CovenantConnectionSettings.HEDGE_BUDGET.getKey(), String.valueOf(hedgeBudget));
+        ret.put(CovenantConnectionSettings.RESULT_CACHE_TTL.getKey(), String.valueOf(resultCacheTtl));
+        ret.put(CovenantConnectionSettings.RESULT_CACHE_SIZE.getKey(), String.valueOf(resultCacheSize));
+        ret.put(CovenantConnectionSettings.STATEMENT_CACHE_SIZE.getKey(), String.valueOf(statementCacheSize));
+        ret.put(CovenantConnectionSettings.RESULT_CACHE_DIR.getKey(), String.valueOf(resultCacheDir));
+        ret.put(CovenantConnectionSettings.LAZY_RESULTS.getKey(), String.valueOf(lazyResults));
 
         return ret.getProperties();
     }
@@ -159,6 +290,20 @@ public class CovenantProperties {
         return port;
     }
 
+    /**
+     * @return adapter endpoints in the order of the URL, the host and port alone if no list was set
+     */
+    public List<HttpHost> getHosts() {
+        if (hosts == null || hosts.isEmpty()) {
+            return Collections.singletonList(new HttpHost(host, port));
+        }
+        return hosts;
+    }
+
+    public void setHosts(List<HttpHost> hosts) {
+        this.hosts = hosts == null ? null : Collections.unmodifiableList(new ArrayList<>(hosts));
+    }
+
     public void setPort(int port) {
         this.port = port;
     }
@@ -171,6 +316,254 @@ public class CovenantProperties {
         this.database = database;
     }
 
+    public int getMaxTotalConnections() {
+        return maxTotalConnections;
+    }
+
+    public void setMaxTotalConnections(int maxTotalConnections) {
+        this.maxTotalConnections = maxTotalConnections;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public int getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    public void setIdleConnectionTimeout(int idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    public boolean isStreamResults() {
+        return streamResults;
+    }
+
+    public void setStreamResults(boolean streamResults) {
+        this.streamResults = streamResults;
+    }
+
+    public int getBatchMaxRows() {
+        return batchMaxRows;
+    }
+
+    public void setBatchMaxRows(int batchMaxRows) {
+        this.batchMaxRows = batchMaxRows;
+    }
+
+    public int getBatchMaxBytes() {
+        return batchMaxBytes;
+    }
+
+    public void setBatchMaxBytes(int batchMaxBytes) {
+        this.batchMaxBytes = batchMaxBytes;
+    }
+
+    public int getPoolMaxSize() {
+        return poolMaxSize;
+    }
+
+    public void setPoolMaxSize(int poolMaxSize) {
+        this.poolMaxSize = poolMaxSize;
+    }
+
+    public int getPoolMinIdle() {
+        return poolMinIdle;
+    }
+
+    public void setPoolMinIdle(int poolMinIdle) {
+        this.poolMinIdle = poolMinIdle;
+    }
+
+    public int getPoolMaxLifetime() {
+        return poolMaxLifetime;
+    }
+
+    public void setPoolMaxLifetime(int poolMaxLifetime) {
+        this.poolMaxLifetime = poolMaxLifetime;
+    }
+
+    public int getPoolBorrowTimeout() {
+        return poolBorrowTimeout;
+    }
+
+    public void setPoolBorrowTimeout(int poolBorrowTimeout) {
+        this.poolBorrowTimeout = poolBorrowTimeout;
+    }
+
+    public int getPoolLeakDetectionThreshold() {
+        return poolLeakDetectionThreshold;
+    }
+
+    public void setPoolLeakDetectionThreshold(int poolLeakDetectionThreshold) {
+        this.poolLeakDetectionThreshold = poolLeakDetectionThreshold;
+    }
+
+    public int getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    public void setHealthCheckInterval(int healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    public int getHealthFreshness() {
+        return healthFreshness;
+    }
+
+    public void setHealthFreshness(int healthFreshness) {
+        this.healthFreshness = healthFreshness;
+    }
+
+    public int getFailoverQuarantine() {
+        return failoverQuarantine;
+    }
+
+    public void setFailoverQuarantine(int failoverQuarantine) {
+        this.failoverQuarantine = failoverQuarantine;
+    }
+
+    public int getFailoverMaxQuarantine() {
+        return failoverMaxQuarantine;
+    }
+
+    public void setFailoverMaxQuarantine(int failoverMaxQuarantine) {
+        this.failoverMaxQuarantine = failoverMaxQuarantine;
+    }
+
+    public String getLoadBalance() {
+        return loadBalance;
+    }
+
+    public void setLoadBalance(String loadBalance) {
+        this.loadBalance = loadBalance;
+    }
+
+    public String getReadHosts() {
+        return readHosts;
+    }
+
+    public void setReadHosts(String readHosts) {
+        this.readHosts = readHosts;
+    }
+
+    public int getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public void setReadYourWritesWindow(int readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    public String getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public void setRetryPolicy(String retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public int getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+
+    public void setRetryMaxAttempts(int retryMaxAttempts) {
+        this.retryMaxAttempts = retryMaxAttempts;
+    }
+
+    public int getRetryInitialBackoff() {
+        return retryInitialBackoff;
+    }
+
+    public void setRetryInitialBackoff(int retryInitialBackoff) {
+        this.retryInitialBackoff = retryInitialBackoff;
+    }
+
+    public int getRetryMaxBackoff() {
+        return retryMaxBackoff;
+    }
+
+    public void setRetryMaxBackoff(int retryMaxBackoff) {
+        this.retryMaxBackoff = retryMaxBackoff;
+    }
+
+    public boolean isHedgeReads() {
+        return hedgeReads;
+    }
+
+    public void setHedgeReads(boolean hedgeReads) {
+        this.hedgeReads = hedgeReads;
+    }
+
+    public int getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public void setHedgePercentile(int hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public int getHedgeBudget() {
+        return hedgeBudget;
+    }
+
+    public void setHedgeBudget(int hedgeBudget) {
+        this.hedgeBudget = hedgeBudget;
+    }
+
+    public boolean isCoalesceReads() {
+        return coalesceReads;
+    }
+
+    public void setCoalesceReads(boolean coalesceReads) {
+        this.coalesceReads = coalesceReads;
+    }
+
+    public long getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    public void setResultCacheSize(long resultCacheSize) {
+        this.resultCacheSize = resultCacheSize;
+    }
+
+    public int getResultCacheTtl() {
+        return resultCacheTtl;
+    }
+
+    public void setResultCacheTtl(int resultCacheTtl) {
+        this.resultCacheTtl = resultCacheTtl;
+    }
+
+    public String getResultCacheDir() {
+        return resultCacheDir;
+    }
+
+    public void setResultCacheDir(String resultCacheDir) {
+        this.resultCacheDir = resultCacheDir;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public boolean isLazyResults() {
+        return lazyResults;
+    }
+
+    public void setLazyResults(boolean lazyResults) {
+        this.lazyResults = lazyResults;
+    }
+
     private static class PropertiesBuilder {
         private final Properties properties;
 
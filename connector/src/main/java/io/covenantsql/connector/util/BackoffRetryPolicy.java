@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import io.covenantsql.connector.settings.CovenantProperties;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Default retry policy: up to {@code retry_max_attempts} attempts with exponential backoff and full jitter, the
+ * n-th retry waits a random time below {@code retry_initial_backoff * 2^(n-1)}, capped at
+ * {@code retry_max_backoff}, so that clients failed together do not come back together.
+ */
+public class BackoffRetryPolicy implements CovenantRetryPolicy {
+    // retries beyond this do not grow the backoff further, avoids shift overflow
+    private static final int MAX_BACKOFF_EXPONENT = 20;
+
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+
+    public BackoffRetryPolicy(CovenantProperties properties) {
+        this.maxAttempts = properties.getRetryMaxAttempts();
+        this.initialBackoff = properties.getRetryInitialBackoff();
+        this.maxBackoff = properties.getRetryMaxBackoff();
+    }
+
+    @Override
+    public long nextDelay(int attempts, SQLException failure) {
+        if (attempts >= maxAttempts) {
+            return -1;
+        }
+
+        long backoff = Math.min(initialBackoff << Math.min(attempts - 1, MAX_BACKOFF_EXPONENT), maxBackoff);
+        return backoff <= 0 ? 0 : ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+/**
+ * Rewrites a single row {@code INSERT ... VALUES (?, ...)} statement into a multi row statement.
+ * <p>
+ * Only statements with exactly one values tuple holding all placeholders qualify; anything else (INSERT ...
+ * SELECT, multi row values, numbered or named parameters) is left alone.
+ */
+public class BatchInsertRewriter {
+    private final String head;
+    private final String tuple;
+    private final String tail;
+    private final int parameterCount;
+
+    private BatchInsertRewriter(String head, String tuple, String tail, int parameterCount) {
+        this.head = head;
+        this.tuple = tuple;
+        this.tail = tail;
+        this.parameterCount = parameterCount;
+    }
+
+    /**
+     * @param sql statement
+     * @return rewriter, or null if the statement can not be rewritten
+     */
+    public static BatchInsertRewriter parse(String sql) {
+        int length = sql.length();
+        int pos = skipSpace(sql, 0);
+
+        if (!keywordAt(sql, pos, "INSERT") && !keywordAt(sql, pos, "REPLACE")) {
+            return null;
+        }
+
+        // locate VALUES outside of parentheses, quotes and comments
+        int depth = 0;
+        int values = -1;
+        int placeholders = 0;
+
+        for (int i = pos; i < length; ) {
+            char c = sql.charAt(i);
+            int skip = skipQuotedOrComment(sql, i);
+
+            if (skip != i) {
+                i = skip;
+            } else if (c == '(') {
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                i++;
+            } else if (c == '?' || c == ':' || c == '@' || c == '$') {
+                return null;
+            } else if (depth == 0 && isWordStart(sql, i) && keywordAt(sql, i, "VALUES")) {
+                values = i;
+                break;
+            } else {
+                i++;
+            }
+        }
+
+        if (values < 0) {
+            return null;
+        }
+
+        int open = skipSpace(sql, values + "VALUES".length());
+        if (open >= length || sql.charAt(open) != '(') {
+            return null;
+        }
+
+        int close = -1;
+        depth = 0;
+        for (int i = open; i < length; ) {
+            char c = sql.charAt(i);
+            int skip = skipQuotedOrComment(sql, i);
+
+            if (skip != i) {
+                i = skip;
+                continue;
+            }
+
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+                if (depth == 0) {
+                    close = i;
+                    break;
+                }
+            } else if (c == '?') {
+                if (i + 1 < length && Character.isDigit(sql.charAt(i + 1))) {
+                    return null;
+                }
+                placeholders++;
+            } else if (c == ':' || c == '@' || c == '$') {
+                return null;
+            }
+            i++;
+        }
+
+        if (close < 0) {
+            return null;
+        }
+
+        // the rest may hold a conflict clause but no more rows or parameters
+        int end = length;
+        while (end > close + 1 && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ';')) {
+            end--;
+        }
+
+        int next = skipSpace(sql, close + 1);
+        if (next < end && sql.charAt(next) == ',') {
+            return null;
+        }
+
+        for (int i = close + 1; i < end; ) {
+            int skip = skipQuotedOrComment(sql, i);
+            if (skip != i) {
+                i = skip;
+                continue;
+            }
+            char c = sql.charAt(i);
+            if (c == '?' || c == ':' || c == '@' || c == '$' || c == ';') {
+                return null;
+            }
+            i++;
+        }
+
+        return new BatchInsertRewriter(sql.substring(0, open), sql.substring(open, close + 1),
+            sql.substring(close + 1, end), placeholders);
+    }
+
+    /**
+     * @return number of parameters of one row
+     */
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * @param rows number of rows
+     * @return statement inserting rows values tuples
+     */
+    public String rewrite(int rows) {
+        StringBuilder builder = new StringBuilder(head.length() + tail.length() + (tuple.length() + 1) * rows);
+        builder.append(head).append(tuple);
+        for (int i = 1; i < rows; i++) {
+            builder.append(',').append(tuple);
+        }
+        return builder.append(tail).toString();
+    }
+
+    private static int skipSpace(String sql, int pos) {
+        int length = sql.length();
+        while (pos < length) {
+            int skip = skipComment(sql, pos);
+            if (skip != pos) {
+                pos = skip;
+            } else if (Character.isWhitespace(sql.charAt(pos))) {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        return pos;
+    }
+
+    private static int skipComment(String sql, int pos) {
+        if (sql.startsWith("--", pos)) {
+            int end = sql.indexOf('\n', pos);
+            return end < 0 ? sql.length() : end + 1;
+        }
+        if (sql.startsWith("/*", pos)) {
+            int end = sql.indexOf("*/", pos + 2);
+            return end < 0 ? sql.length() : end + 2;
+        }
+        return pos;
+    }
+
+    /**
+     * @return position after the quoted literal, identifier or comment at pos, pos if there is none
+     */
+    private static int skipQuotedOrComment(String sql, int pos) {
+        char c = sql.charAt(pos);
+        char quote;
+
+        switch (c) {
+            case '\'':
+            case '"':
+            case '`':
+                quote = c;
+                break;
+            case '[':
+                quote = ']';
+                break;
+            default:
+                return skipComment(sql, pos);
+        }
+
+        int i = pos + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                // doubled quote is an escaped quote
+                if (quote != ']' && i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+
+    private static boolean isWordStart(String sql, int pos) {
+        return pos == 0 || !Character.isLetterOrDigit(sql.charAt(pos - 1)) && sql.charAt(pos - 1) != '_';
+    }
+
+    private static boolean keywordAt(String sql, int pos, String keyword) {
+        int end = pos + keyword.length();
+        return sql.regionMatches(true, pos, keyword, 0, keyword.length())
+            && (end == sql.length() || !Character.isLetterOrDigit(sql.charAt(end)) && sql.charAt(end) != '_');
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Typed bind parameters of a prepared statement.
+ * <p>
+ * Primitives are kept unboxed in a slot tagged with their kind and conversions the adapter needs (decimals, bytes
+ * and temporals as strings) are deferred to {@link #write(JsonGenerator)}, which encodes straight into the request
+ * body. As a list the buffer yields the values the adapter receives, for cache keys and batch rewriting.
+ * <p>
+ * The buffer itself is not synchronized: each statement owns its buffer and async executions send a {@link #copy()},
+ * so it is never written while encoded. The formatters used for the deferred conversions are immutable and shared.
+ */
+public final class BindBuffer extends AbstractList<Object> implements RandomAccess {
+    private static final byte NULL = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte INT = 2;
+    private static final byte SHORT = 3;
+    private static final byte LONG = 4;
+    private static final byte FLOAT = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte STRING = 7;
+    private static final byte DECIMAL = 8;
+    private static final byte BIG_INTEGER = 9;
+    private static final byte BYTES = 10;
+    private static final byte DATE = 11;
+    private static final byte TIMESTAMP = 12;
+    private static final byte OBJECT = 13;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("uuuu-MM-dd");
+    // time and timestamp parameters are sent in UTC
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+        DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss'+00:00'").withZone(ZoneOffset.UTC);
+
+    private byte[] kinds;
+    private long[] values;
+    private Object[] refs;
+    private int size;
+
+    /**
+     * @param capacity expected number of parameters
+     */
+    public BindBuffer(int capacity) {
+        kinds = new byte[capacity];
+        values = new long[capacity];
+        refs = new Object[capacity];
+    }
+
+    private BindBuffer(BindBuffer other) {
+        kinds = Arrays.copyOf(other.kinds, other.size);
+        values = Arrays.copyOf(other.values, other.size);
+        refs = Arrays.copyOf(other.refs, other.size);
+        size = other.size;
+    }
+
+    /**
+     * @return independent copy of the current parameters
+     */
+    public BindBuffer copy() {
+        return new BindBuffer(this);
+    }
+
+    public void setNull(int index) {
+        slot(index, NULL, 0, null);
+    }
+
+    public void setBoolean(int index, boolean x) {
+        slot(index, BOOLEAN, x ? 1 : 0, null);
+    }
+
+    public void setInt(int index, int x) {
+        slot(index, INT, x, null);
+    }
+
+    public void setShort(int index, short x) {
+        slot(index, SHORT, x, null);
+    }
+
+    public void setLong(int index, long x) {
+        slot(index, LONG, x, null);
+    }
+
+    public void setFloat(int index, float x) {
+        slot(index, FLOAT, Float.floatToRawIntBits(x), null);
+    }
+
+    public void setDouble(int index, double x) {
+        slot(index, DOUBLE, Double.doubleToRawLongBits(x), null);
+    }
+
+    public void setString(int index, String x) {
+        slot(index, x == null ? NULL : STRING, 0, x);
+    }
+
+    /**
+     * @param index zero based parameter index
+     * @param x     decimal, sent as a plain string to keep its precision
+     */
+    public void setDecimal(int index, BigDecimal x) {
+        slot(index, x == null ? NULL : DECIMAL, 0, x);
+    }
+
+    /**
+     * @param index zero based parameter index
+     * @param x     integer, sent as a string to keep its precision
+     */
+    public void setBigInteger(int index, BigInteger x) {
+        slot(index, x == null ? NULL : BIG_INTEGER, 0, x);
+    }
+
+    /**
+     * @param index zero based parameter index
+     * @param x     bytes, copied and sent as an UTF-8 string
+     */
+    public void setBytes(int index, byte[] x) {
+        slot(index, x == null ? NULL : BYTES, 0, x == null ? null : x.clone());
+    }
+
+    /**
+     * @param index  zero based parameter index
+     * @param millis epoch milliseconds, sent as the {@code yyyy-MM-dd} date in the default time zone
+     */
+    public void setDate(int index, long millis) {
+        slot(index, DATE, millis, null);
+    }
+
+    /**
+     * @param index  zero based parameter index
+     * @param millis epoch milliseconds, sent as {@code yyyy-MM-dd HH:mm:ss+00:00} in UTC
+     */
+    public void setTimestamp(int index, long millis) {
+        slot(index, TIMESTAMP, millis, null);
+    }
+
+    /**
+     * Bind a value by its class, values of other classes are written by the object mapper.
+     */
+    @Override
+    public Object set(int index, Object x) {
+        Object previous = index < size ? get(index) : null;
+        if (x == null) {
+            setNull(index);
+        } else if (x instanceof Boolean) {
+            setBoolean(index, (Boolean) x);
+        } else if (x instanceof Integer) {
+            setInt(index, (Integer) x);
+        } else if (x instanceof Long) {
+            setLong(index, (Long) x);
+        } else if (x instanceof Short) {
+            setShort(index, (Short) x);
+        } else if (x instanceof Double) {
+            setDouble(index, (Double) x);
+        } else if (x instanceof Float) {
+            setFloat(index, (Float) x);
+        } else if (x instanceof String) {
+            setString(index, (String) x);
+        } else {
+            slot(index, OBJECT, 0, x);
+        }
+        return previous;
+    }
+
+    @Override
+    public Object get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+
+        long value = values[index];
+        switch (kinds[index]) {
+            case BOOLEAN:
+                return value != 0;
+            case INT:
+                return (int) value;
+            case SHORT:
+                return (short) value;
+            case LONG:
+                return value;
+            case FLOAT:
+                return Float.intBitsToFloat((int) value);
+            case DOUBLE:
+                return Double.longBitsToDouble(value);
+            case STRING:
+            case OBJECT:
+                return refs[index];
+            case DECIMAL:
+            case BIG_INTEGER:
+            case BYTES:
+            case DATE:
+            case TIMESTAMP:
+                return text(index);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove all parameters.
+     */
+    @Override
+    public void clear() {
+        clearValues();
+        size = 0;
+    }
+
+    /**
+     * Unset all parameters, they are sent as nulls until bound again.
+     */
+    public void clearValues() {
+        Arrays.fill(kinds, 0, size, NULL);
+        Arrays.fill(refs, 0, size, null);
+    }
+
+    /**
+     * Write the parameters as a JSON array.
+     *
+     * @param generator generator of the request body
+     * @throws IOException if a value could not be written
+     */
+    public void write(JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        for (int i = 0; i < size; i++) {
+            long value = values[i];
+            switch (kinds[i]) {
+                case BOOLEAN:
+                    generator.writeBoolean(value != 0);
+                    break;
+                case INT:
+                case SHORT:
+                    generator.writeNumber((int) value);
+                    break;
+                case LONG:
+                    generator.writeNumber(value);
+                    break;
+                case FLOAT:
+                    generator.writeNumber(Float.intBitsToFloat((int) value));
+                    break;
+                case DOUBLE:
+                    generator.writeNumber(Double.longBitsToDouble(value));
+                    break;
+                case STRING:
+                    generator.writeString((String) refs[i]);
+                    break;
+                case DECIMAL:
+                case BIG_INTEGER:
+                case BYTES:
+                case DATE:
+                case TIMESTAMP:
+                    generator.writeString(text(i));
+                    break;
+                case OBJECT:
+                    generator.writeObject(refs[i]);
+                    break;
+                default:
+                    generator.writeNull();
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private String text(int index) {
+        switch (kinds[index]) {
+            case DECIMAL:
+                return ((BigDecimal) refs[index]).toPlainString();
+            case BIG_INTEGER:
+                return refs[index].toString();
+            case BYTES:
+                return new String((byte[]) refs[index], StandardCharsets.UTF_8);
+            case DATE:
+                return DATE_FORMAT.format(Instant.ofEpochMilli(values[index]).atZone(ZoneId.systemDefault()));
+            default:
+                return TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(values[index]));
+        }
+    }
+
+    private void slot(int index, byte kind, long value, Object ref) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("index " + index);
+        }
+        if (index >= kinds.length) {
+            int capacity = Math.max(index + 1, kinds.length * 2);
+            kinds = Arrays.copyOf(kinds, capacity);
+            values = Arrays.copyOf(values, capacity);
+            refs = Arrays.copyOf(refs, capacity);
+        }
+
+        kinds[index] = kind;
+        values[index] = value;
+        refs[index] = ref;
+        size = Math.max(size, index + 1);
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import io.covenantsql.connector.response.beans.CovenantResponseBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Directory of cached query results surviving restarts of the JVM.
+ * <p>
+ * Every entry is a file named by the SHA-256 fingerprint of its key, holding the key, the expiry time, the tags
+ * and the result in the {@link CovenantResponseBean.DataBean} schema. Files are memory mapped for reading and
+ * replaced atomically on write, so several JVMs may share a directory. Expired entries are deleted when the
+ * directory is opened or when they are read; invalidating a tag deletes the entries of this directory
+ * carrying it.
+ */
+public final class CovenantDiskCache {
+    private static final Logger LOG = LoggerFactory.getLogger(CovenantDiskCache.class);
+    private static final String SUFFIX = ".json";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Set<Path>> tagged = new HashMap<>();
+
+    /**
+     * Open the directory, creating it if needed, and index its live entries.
+     *
+     * @param directory cache directory
+     * @throws IOException if the directory can not be created or listed
+     */
+    public CovenantDiskCache(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                Entry entry = read(file);
+                if (entry != null) {
+                    index(file, entry.getTags());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param key entry key
+     * @return live entry of key, null if there is none
+     */
+    public Entry get(String key) {
+        Path file = file(key);
+        Entry entry = read(file);
+        return entry != null && key.equals(entry.getKey()) ? entry : null;
+    }
+
+    /**
+     * Store an entry, replacing any previous entry of key.
+     *
+     * @param key       entry key
+     * @param data      result
+     * @param expiresAt {@link System#currentTimeMillis()} the entry expires at
+     * @param tags      tags invalidating the entry
+     */
+    public void put(String key, CovenantResponseBean.DataBean data, long expiresAt, Collection<String> tags) {
+        Entry entry = new Entry();
+        entry.setKey(key);
+        entry.setExpiresAt(expiresAt);
+        entry.setTags(new ArrayList<>(tags));
+        entry.setData(data);
+
+        Path file = file(key);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, "entry", ".tmp");
+            Files.write(temp, objectMapper.writeValueAsBytes(entry));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index(file, tags);
+        } catch (IOException e) {
+            LOG.warn("write covenantsql result cache entry {} failed", file, e);
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    /**
+     * Delete the entries carrying tag.
+     *
+     * @param tag tag
+     */
+    public void invalidate(String tag) {
+        Set<Path> files;
+        synchronized (tagged) {
+            files = tagged.remove(tag);
+        }
+        if (files != null) {
+            for (Path file : files) {
+                delete(file);
+            }
+        }
+    }
+
+    private Entry read(Path file) {
+        Entry entry;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            entry = objectMapper.readValue(new ByteBufferBackedInputStream(buffer), Entry.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOG.debug("drop unreadable covenantsql result cache entry {}", file, e);
+            delete(file);
+            return null;
+        }
+
+        if (entry.getExpiresAt() <= System.currentTimeMillis()) {
+            delete(file);
+            return null;
+        }
+        return entry;
+    }
+
+    private void index(Path file, Collection<String> tags) {
+        if (tags == null) {
+            return;
+        }
+        synchronized (tagged) {
+            for (String tag : tags) {
+                tagged.computeIfAbsent(tag, t -> new HashSet<>()).add(file);
+            }
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.debug("delete covenantsql result cache entry {} failed", file, e);
+        }
+    }
+
+    private Path file(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            char[] name = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                name[i * 2] = HEX[(digest[i] >> 4) & 15];
+                name[i * 2 + 1] = HEX[digest[i] & 15];
+            }
+            return directory.resolve(new String(name) + SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            // every java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Persisted cache entry.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static final class Entry {
+        @JsonProperty
+        String key;
+        @JsonProperty(value = "expires_at")
+        long expiresAt;
+        @JsonProperty
+        List<String> tags;
+        @JsonProperty
+        CovenantResponseBean.DataBean data;
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public void setExpiresAt(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public CovenantResponseBean.DataBean getData() {
+            return data;
+        }
+
+        public void setData(CovenantResponseBean.DataBean data) {
+            this.data = data;
+        }
+    }
+}
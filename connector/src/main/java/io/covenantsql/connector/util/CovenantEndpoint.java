@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import io.covenantsql.connector.settings.CovenantProperties;
+import org.apache.http.HttpHost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One adapter of a (multi-host) connection URL with its load and failure state.
+ * <p>
+ * Load is the number of requests in flight and a peak sensitive moving average of their latency: a slower
+ * response raises the average at once while faster ones lower it with a decay of {@link #DECAY_NANOS}, so that
+ * traffic moves away from a stalling adapter quickly and comes back gradually.
+ * <p>
+ * A connect failure quarantines the endpoint for {@code failover_quarantine}, doubled on every consecutive
+ * failure up to {@code failover_max_quarantine}. The endpoint is back once the quarantine has passed or as soon
+ * as a background health probe succeeds after the failure, whichever comes first.
+ */
+public final class CovenantEndpoint {
+    private static final Logger LOG = LoggerFactory.getLogger(CovenantEndpoint.class);
+    // consecutive failures beyond this do not grow the quarantine further, avoids shift overflow
+    private static final int MAX_BACKOFF_EXPONENT = 20;
+    private static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final HttpHost host;
+    private final CovenantProperties properties;
+    private final CovenantHealthMonitor monitor;
+    private int failures;
+    private volatile long failedAt;
+    private volatile long quarantinedUntil;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+    private volatile double latency;
+    private long observedAt;
+
+    CovenantEndpoint(CloseableHttpClient client, CovenantProperties properties, HttpHost host) {
+        this.host = host;
+        this.properties = properties;
+        this.monitor = new CovenantHealthMonitor(client, properties, host);
+    }
+
+    public String getHost() {
+        return host.getHostName();
+    }
+
+    public int getPort() {
+        return host.getPort();
+    }
+
+    public CovenantHealthMonitor getHealthMonitor() {
+        return monitor;
+    }
+
+    /**
+     * @return whether requests should be sent to this endpoint
+     */
+    public boolean isAvailable() {
+        if (System.currentTimeMillis() >= quarantinedUntil) {
+            return true;
+        }
+        // recovered in the background before the quarantine passed
+        return monitor.getCheckedAt() > failedAt && monitor.wasAlive();
+    }
+
+    /**
+     * @return end of the current quarantine in epoch milliseconds, 0 if the endpoint never failed
+     */
+    public long getQuarantinedUntil() {
+        return quarantinedUntil;
+    }
+
+    /**
+     * @return requests currently in flight
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return moving average of the response latency in milliseconds, 0 before the first response
+     */
+    public double getLatency() {
+        return latency / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return requests sent to this endpoint
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * @return connect failures of this endpoint
+     */
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * @return requests retried after they failed on this endpoint
+     */
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    /**
+     * Record that a request failed on this endpoint is retried.
+     */
+    public void markRetry() {
+        retryCount.increment();
+    }
+
+    /**
+     * @return expected cost of one more request, latency weighted by the requests already waiting
+     */
+    double getCost() {
+        return latency * (inFlight.get() + 1);
+    }
+
+    /**
+     * Record the start of a request.
+     *
+     * @return start time to pass to {@link #end(long)}
+     */
+    public long begin() {
+        inFlight.incrementAndGet();
+        requestCount.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Record the end of a request, once for each {@link #begin()}.
+     *
+     * @param started value returned by {@link #begin()}
+     */
+    public void end(long started) {
+        long now = System.nanoTime();
+        inFlight.decrementAndGet();
+        observe(now - started, now);
+    }
+
+    private synchronized void observe(long rtt, long now) {
+        if (observedAt == 0 || rtt > latency) {
+            latency = rtt;
+        } else {
+            double weight = Math.exp(-(now - observedAt) / (double) DECAY_NANOS);
+            latency = latency * weight + rtt * (1 - weight);
+        }
+        observedAt = now;
+    }
+
+    /**
+     * Record a connect failure and quarantine the endpoint.
+     */
+    public synchronized void markFailure() {
+        failureCount.increment();
+        long now = System.currentTimeMillis();
+        long backoff = Math.min((long) properties.getFailoverQuarantine() << Math.min(failures, MAX_BACKOFF_EXPONENT),
+            properties.getFailoverMaxQuarantine());
+        // +-20% so that endpoints failed together do not come back together
+        backoff += (long) (backoff * (ThreadLocalRandom.current().nextDouble() - 0.5) * 0.4);
+
+        if (failures == 0) {
+            LOG.warn("covenantsql adapter {}:{} is unreachable, quarantined for {} ms", getHost(), getPort(), backoff);
+        }
+        failures++;
+        failedAt = now;
+        quarantinedUntil = now + backoff;
+    }
+
+    /**
+     * Record a successful request, resetting the backoff.
+     */
+    public void markSuccess() {
+        if (quarantinedUntil == 0) {
+            return;
+        }
+
+        synchronized (this) {
+            if (failures > 0) {
+                LOG.info("covenantsql adapter {}:{} is reachable again", getHost(), getPort());
+            }
+            failures = 0;
+            quarantinedUntil = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return host.toHostString();
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import io.covenantsql.connector.settings.CovenantProperties;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The adapter endpoints of a connection URL, shared by all connections to the same list of adapters.
+ * <p>
+ * Each request chooses its endpoint: with {@code load_balance=latency} the cheaper of two random available
+ * endpoints (power of two choices over {@link CovenantEndpoint#getCost()}), with {@code load_balance=ordered}
+ * the first available one in URL order. Requests fail over to the remaining endpoints on connect failures,
+ * which never reach the adapter and are therefore safe to retry for writes as well.
+ * <p>
+ * The group also keeps the latency of recent queries and the budget of hedged queries: every query adds
+ * {@code hedge_budget} percent of a token, every hedge takes a whole one.
+ */
+public final class CovenantEndpointGroup {
+    public static final String BALANCE_LATENCY = "latency";
+    public static final String BALANCE_ORDERED = "ordered";
+
+    // recent query latencies to take hedging percentiles from
+    private static final int LATENCY_SAMPLES = 256;
+    // too few samples for a meaningful percentile
+    private static final int MIN_LATENCY_SAMPLES = 16;
+    private static final long HEDGE_TOKEN = 1000;
+    // hedges allowed in a burst
+    private static final long MAX_HEDGE_TOKENS = 10 * HEDGE_TOKEN;
+
+    private final List<CovenantEndpoint> endpoints;
+    private final boolean balanced;
+    private final long hedgeDeposit;
+    private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_SAMPLES);
+    private final AtomicLong latencyCount = new AtomicLong();
+    private final AtomicLong hedgeTokens = new AtomicLong();
+
+    public CovenantEndpointGroup(CloseableHttpClient client, CovenantProperties properties) {
+        if (BALANCE_LATENCY.equalsIgnoreCase(properties.getLoadBalance())) {
+            balanced = true;
+        } else if (BALANCE_ORDERED.equalsIgnoreCase(properties.getLoadBalance())) {
+            balanced = false;
+        } else {
+            throw new IllegalArgumentException("unknown load_balance: " + properties.getLoadBalance());
+        }
+
+        List<CovenantEndpoint> endpoints = new ArrayList<>();
+        for (HttpHost host : properties.getHosts()) {
+            endpoints.add(new CovenantEndpoint(client, properties, host));
+        }
+        this.endpoints = Collections.unmodifiableList(endpoints);
+        this.hedgeDeposit = HEDGE_TOKEN * properties.getHedgeBudget() / 100;
+    }
+
+    public List<CovenantEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * @return endpoints in the order a request should try them, the chosen one followed by the other available
+     * ones in URL order and the quarantined ones by the end of their quarantine
+     */
+    public List<CovenantEndpoint> candidates() {
+        if (endpoints.size() == 1) {
+            return endpoints;
+        }
+
+        List<CovenantEndpoint> available = new ArrayList<>(endpoints.size());
+        List<CovenantEndpoint> quarantined = null;
+        for (CovenantEndpoint endpoint : endpoints) {
+            if (endpoint.isAvailable()) {
+                available.add(endpoint);
+            } else {
+                if (quarantined == null) {
+                    quarantined = new ArrayList<>();
+                }
+                quarantined.add(endpoint);
+            }
+        }
+
+        int size = available.size();
+        if (balanced && size > 1) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            int chosen = available.get(first).getCost() <= available.get(second).getCost() ? first : second;
+            available.add(0, available.remove(chosen));
+        }
+
+        if (quarantined != null) {
+            // better to try a quarantined endpoint than to fail without trying
+            quarantined.sort(new Comparator<CovenantEndpoint>() {
+                @Override
+                public int compare(CovenantEndpoint a, CovenantEndpoint b) {
+                    return Long.compare(a.getQuarantinedUntil(), b.getQuarantinedUntil());
+                }
+            });
+            available.addAll(quarantined);
+        }
+        return available;
+    }
+
+    /**
+     * Record the latency of a successful query and earn hedge budget.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void recordQuery(long nanos) {
+        latencies.set((int) (latencyCount.getAndIncrement() % LATENCY_SAMPLES), nanos);
+
+        long tokens = hedgeTokens.get();
+        while (tokens < MAX_HEDGE_TOKENS
+            && !hedgeTokens.compareAndSet(tokens, Math.min(tokens + hedgeDeposit, MAX_HEDGE_TOKENS))) {
+            tokens = hedgeTokens.get();
+        }
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100
+     * @return latency percentile of recent queries in nanoseconds, -1 if too few queries were recorded
+     */
+    public long getQueryLatency(int percentile) {
+        int count = (int) Math.min(latencyCount.get(), LATENCY_SAMPLES);
+        if (count < MIN_LATENCY_SAMPLES) {
+            return -1;
+        }
+
+        long[] samples = new long[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = latencies.get(i);
+        }
+        Arrays.sort(samples);
+        int index = (int) Math.ceil(count * Math.max(0, Math.min(100, percentile)) / 100.0) - 1;
+        return samples[Math.max(0, index)];
+    }
+
+    /**
+     * @return whether the hedge budget allows another hedged request, taking its token if so
+     */
+    public boolean tryHedge() {
+        long tokens = hedgeTokens.get();
+        while (tokens >= HEDGE_TOKEN) {
+            if (hedgeTokens.compareAndSet(tokens, tokens - HEDGE_TOKEN)) {
+                return true;
+            }
+            tokens = hedgeTokens.get();
+        }
+        return false;
+    }
+
+    /**
+     * @param timeout max wait in milliseconds for each inline probe, 0 to use the connection timeout
+     * @return whether any of the endpoints is alive
+     */
+    public boolean isAlive(int timeout) {
+        for (CovenantEndpoint endpoint : candidates()) {
+            if (endpoint.getHealthMonitor().isAlive(timeout)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Start background health probes, which also bring quarantined endpoints back.
+     */
+    public void start() {
+        for (CovenantEndpoint endpoint : endpoints) {
+            endpoint.getHealthMonitor().start();
+        }
+    }
+
+    public void stop() {
+        for (CovenantEndpoint endpoint : endpoints) {
+            endpoint.getHealthMonitor().stop();
+        }
+    }
+
+    /**
+     * @return whether the request failed before it reached the adapter
+     */
+    public static boolean isConnectFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+                || cause instanceof NoRouteToHostException || cause instanceof UnknownHostException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
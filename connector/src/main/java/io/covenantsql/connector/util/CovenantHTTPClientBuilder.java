@@ -29,6 +29,14 @@ import org.apache.http.conn.ssl.TrustAllStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.ssl.SSLContexts;
 import org.bouncycastle.openssl.PEMKeyPair;
@@ -43,10 +51,11 @@ import java.security.*;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
+import java.util.concurrent.TimeUnit;
 
 public class CovenantHTTPClientBuilder {
     private static final Logger LOG = LoggerFactory.getLogger(CovenantHTTPClientBuilder.class);
-    private static CovenantProperties properties;
+    private final CovenantProperties properties;
 
     public CovenantHTTPClientBuilder(CovenantProperties properties) {
         this.properties = properties;
@@ -58,9 +67,39 @@ public class CovenantHTTPClientBuilder {
             .setDefaultConnectionConfig(getConnectionConfig())
             .setDefaultRequestConfig(getRequestConfig())
             .disableContentCompression()
+            .evictExpiredConnections()
+            .evictIdleConnections(properties.getIdleConnectionTimeout(), TimeUnit.MILLISECONDS)
             .build();
     }
 
+    /**
+     * Build a non-blocking client with the same ssl and pool settings, the client is started.
+     *
+     * @return started async client
+     * @throws Exception if ssl material could not be loaded or the io reactor could not be created
+     */
+    public CloseableHttpAsyncClient buildAsyncClient() throws Exception {
+        RegistryBuilder<SchemeIOSessionStrategy> registry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+            .register("http", NoopIOSessionStrategy.INSTANCE);
+
+        if (properties.isSsl()) {
+            registry.register("https", new SSLIOSessionStrategy(getSSLContext(), new NoopHostnameVerifier()));
+        }
+
+        PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+            new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT), registry.build());
+        connectionManager.setMaxTotal(properties.getMaxTotalConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerRoute());
+
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultConnectionConfig(getConnectionConfig())
+            .setDefaultRequestConfig(getRequestConfig())
+            .build();
+        client.start();
+        return client;
+    }
+
     private PoolingHttpClientConnectionManager getConnectionManager()
         throws CertificateException, NoSuchAlgorithmException, KeyStoreException, KeyManagementException, IOException, UnrecoverableKeyException {
         RegistryBuilder<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
@@ -71,6 +110,8 @@ public class CovenantHTTPClientBuilder {
         }
 
         PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry.build());
+        connectionManager.setMaxTotal(properties.getMaxTotalConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerRoute());
         return connectionManager;
     }
 
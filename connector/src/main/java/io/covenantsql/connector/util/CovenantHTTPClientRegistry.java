@@ -0,0 +1,271 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import io.covenantsql.connector.CovenantURLParser;
+import io.covenantsql.connector.settings.CovenantProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Driver level registry of pooled http clients.
+ * <p>
+ * Connections to the same adapters share one client and therefore one warm socket pool, regardless of the database
+ * they use, as well as the failure state of the adapter endpoints. Adapters are the same if the hosts and ports,
+ * the ssl settings ({@code ssl}, {@code ssl_mode}, {@code key_path}, {@code cert_path}) and the settings of the
+ * endpoint group ({@code load_balance}, {@code hedge_budget}, {@code failover_quarantine},
+ * {@code failover_max_quarantine}, {@code health_check_interval}, {@code health_freshness}) are equal.
+ * Clients are reference counted; a client whose last lease is released lingers for the idle connection timeout so
+ * that pool churn does not throw away warm sockets.
+ * <p>
+ * These settings are taken from the properties of the first connection to an adapter and ignored for later ones:
+ * {@code max_total_connections}, {@code max_connections_per_route}, {@code idle_connection_timeout} (also the
+ * linger time), the {@code connection_timeout} of health probes and the database health probes are sent to.
+ */
+public final class CovenantHTTPClientRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(CovenantHTTPClientRegistry.class);
+    private static final CovenantHTTPClientRegistry INSTANCE = new CovenantHTTPClientRegistry();
+
+    private final Map<ClientKey, SharedClient> clients = new HashMap<>();
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "covenantsql-http-client-reaper");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private CovenantHTTPClientRegistry() {
+    }
+
+    public static CovenantHTTPClientRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Acquire a lease on the shared client for the adapter described by properties.
+     *
+     * @param properties connection properties
+     * @return lease, must be closed once the caller no longer uses the client
+     * @throws Exception if a new client could not be built
+     */
+    public synchronized ClientLease acquire(CovenantProperties properties) throws Exception {
+        ClientKey key = new ClientKey(properties);
+        SharedClient shared = clients.get(key);
+
+        if (shared == null) {
+            LOG.debug("new shared http client for {}", properties.getHosts());
+            shared = new SharedClient(key, new CovenantProperties(properties),
+                new CovenantHTTPClientBuilder(properties).buildClient());
+            shared.endpoints.start();
+            clients.put(key, shared);
+        }
+
+        if (shared.pendingClose != null) {
+            shared.pendingClose.cancel(false);
+            shared.pendingClose = null;
+        }
+
+        shared.references++;
+        return new ClientLease(shared);
+    }
+
+    /**
+     * Acquire a lease on the shared client for the {@code read_hosts} of properties.
+     *
+     * @param properties connection properties
+     * @return lease, must be closed once the caller no longer uses the client, null if there are no read hosts
+     * @throws Exception if read_hosts is malformed or a new client could not be built
+     */
+    public ClientLease acquireReadHosts(CovenantProperties properties) throws Exception {
+        if (StringUtils.isBlank(properties.getReadHosts())) {
+            return null;
+        }
+
+        CovenantProperties readProperties = new CovenantProperties(properties);
+        List<HttpHost> readHosts = CovenantURLParser.parseHosts(properties.getReadHosts());
+        readProperties.setHost(readHosts.get(0).getHostName());
+        readProperties.setPort(readHosts.get(0).getPort());
+        readProperties.setHosts(readHosts);
+        return acquire(readProperties);
+    }
+
+    /**
+     * @return number of distinct adapters currently holding a client
+     */
+    public synchronized int size() {
+        return clients.size();
+    }
+
+    private synchronized void release(final SharedClient shared) {
+        shared.references--;
+
+        if (shared.references > 0) {
+            return;
+        }
+
+        shared.pendingClose = reaper.schedule(new Runnable() {
+            @Override
+            public void run() {
+                reap(shared);
+            }
+        }, shared.properties.getIdleConnectionTimeout(), TimeUnit.MILLISECONDS);
+    }
+
+    private void reap(SharedClient shared) {
+        CloseableHttpAsyncClient asyncClient;
+
+        synchronized (this) {
+            if (shared.references > 0 || clients.get(shared.key) != shared) {
+                return;
+            }
+            clients.remove(shared.key);
+            asyncClient = shared.asyncClient;
+        }
+
+        shared.endpoints.stop();
+
+        try {
+            shared.client.close();
+            if (asyncClient != null) {
+                asyncClient.close();
+            }
+        } catch (IOException e) {
+            LOG.warn("close shared http client failed", e);
+        }
+    }
+
+    private synchronized CloseableHttpAsyncClient getAsyncClient(SharedClient shared) throws Exception {
+        if (clients.get(shared.key) != shared) {
+            // reaped, a client built now would never be closed
+            throw new IllegalStateException("shared http client already closed");
+        }
+        if (shared.asyncClient == null) {
+            shared.asyncClient = new CovenantHTTPClientBuilder(shared.properties).buildAsyncClient();
+        }
+        return shared.asyncClient;
+    }
+
+    /**
+     * A single reference to a shared client, released exactly once on close.
+     */
+    public static final class ClientLease implements Closeable {
+        private final SharedClient shared;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private ClientLease(SharedClient shared) {
+            this.shared = shared;
+        }
+
+        public CloseableHttpClient getClient() {
+            return shared.client;
+        }
+
+        /**
+         * @return adapter endpoints and their health, shared by all leases
+         */
+        public CovenantEndpointGroup getEndpoints() {
+            return shared.endpoints;
+        }
+
+        /**
+         * The non-blocking client of the adapter, created on first use.
+         *
+         * @return started async client
+         * @throws IllegalStateException if the lease was released
+         * @throws Exception             if the client could not be built
+         */
+        public CloseableHttpAsyncClient getAsyncClient() throws Exception {
+            if (released.get()) {
+                throw new IllegalStateException("client lease already released");
+            }
+            return INSTANCE.getAsyncClient(shared);
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                INSTANCE.release(shared);
+            }
+        }
+    }
+
+    private static final class SharedClient {
+        private final ClientKey key;
+        private final CovenantProperties properties;
+        private final CloseableHttpClient client;
+        private final CovenantEndpointGroup endpoints;
+        private CloseableHttpAsyncClient asyncClient;
+        private int references;
+        private ScheduledFuture<?> pendingClose;
+
+        private SharedClient(ClientKey key, CovenantProperties properties, CloseableHttpClient client) {
+            this.key = key;
+            this.properties = properties;
+            this.client = client;
+            this.endpoints = new CovenantEndpointGroup(client, properties);
+        }
+    }
+
+    private static final class ClientKey {
+        private final Object[] parts;
+
+        private ClientKey(CovenantProperties properties) {
+            this.parts = new Object[]{
+                properties.getHosts(),
+                properties.isSsl(),
+                properties.getSslMode(),
+                properties.getKeyPath(),
+                properties.getCertPath(),
+                properties.getLoadBalance(),
+                properties.getHedgeBudget(),
+                properties.getFailoverQuarantine(),
+                properties.getFailoverMaxQuarantine(),
+                properties.getHealthCheckInterval(),
+                properties.getHealthFreshness(),
+            };
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ClientKey && Arrays.equals(parts, ((ClientKey) o).parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(parts);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.covenantsql.connector.response.beans.CovenantRequestBean;
+import io.covenantsql.connector.response.beans.CovenantResponseBean;
+import io.covenantsql.connector.settings.CovenantProperties;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cached liveness of an adapter.
+ * <p>
+ * The adapter is probed with {@code SELECT 1} in the background every {@code health_check_interval} on the
+ * shared pooled client, and {@link #isAlive(int)} answers from the last result while it is younger than
+ * {@code health_freshness}. Stale state is probed inline; concurrent callers share a single probe.
+ */
+public final class CovenantHealthMonitor {
+    private static final Logger LOG = LoggerFactory.getLogger(CovenantHealthMonitor.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String API_QUERY = "/v1/query";
+    private static final ScheduledExecutorService prober = Executors.newScheduledThreadPool(2, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "covenantsql-health-monitor");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final CloseableHttpClient client;
+    private final CovenantProperties properties;
+    private final HttpHost host;
+    private final AtomicReference<CompletableFuture<Boolean>> inflight = new AtomicReference<>();
+    private volatile boolean alive;
+    private volatile long checkedAt;
+    private ScheduledFuture<?> schedule;
+
+    public CovenantHealthMonitor(CloseableHttpClient client, CovenantProperties properties) {
+        this(client, properties, new HttpHost(properties.getHost(), properties.getPort()));
+    }
+
+    /**
+     * @param host adapter endpoint to probe, one of the hosts of a multi-host URL
+     */
+    public CovenantHealthMonitor(CloseableHttpClient client, CovenantProperties properties, HttpHost host) {
+        this.client = client;
+        this.properties = properties;
+        this.host = host;
+    }
+
+    /**
+     * Start background probes, a no-op if {@code health_check_interval} is not positive.
+     */
+    public synchronized void start() {
+        int interval = properties.getHealthCheckInterval();
+        if (schedule != null || interval <= 0) {
+            return;
+        }
+
+        schedule = prober.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                probe(properties.getConnectionTimeout());
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (schedule != null) {
+            schedule.cancel(false);
+            schedule = null;
+        }
+    }
+
+    /**
+     * @param timeout max wait in milliseconds for an inline probe, 0 to use the connection timeout
+     * @return whether the adapter answered the latest probe
+     */
+    public boolean isAlive(int timeout) {
+        if (System.currentTimeMillis() - checkedAt < properties.getHealthFreshness()) {
+            return alive;
+        }
+
+        if (timeout <= 0) {
+            timeout = properties.getConnectionTimeout();
+        }
+
+        try {
+            return probe(timeout).get(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return result of the last probe without probing, false if never probed
+     */
+    public boolean wasAlive() {
+        return alive;
+    }
+
+    /**
+     * @return time of the last probe in epoch milliseconds, 0 if never probed
+     */
+    public long getCheckedAt() {
+        return checkedAt;
+    }
+
+    private CompletableFuture<Boolean> probe(int timeout) {
+        CompletableFuture<Boolean> probe = new CompletableFuture<>();
+        CompletableFuture<Boolean> current = inflight.get();
+
+        if (current != null || !inflight.compareAndSet(null, probe)) {
+            current = inflight.get();
+            // the other probe may have completed in between, its result is fresh anyway
+            return current != null ? current : CompletableFuture.completedFuture(alive);
+        }
+
+        boolean result = false;
+        try {
+            result = execute(timeout);
+        } catch (Exception e) {
+            LOG.debug("probe covenantsql adapter {}:{} failed", host.getHostName(), host.getPort(), e);
+        } finally {
+            setAlive(result);
+            inflight.set(null);
+            probe.complete(result);
+        }
+        return probe;
+    }
+
+    private void setAlive(boolean alive) {
+        if (this.alive && !alive) {
+            LOG.warn("covenantsql adapter {}:{} is not responding", host.getHostName(), host.getPort());
+        }
+        this.alive = alive;
+        this.checkedAt = System.currentTimeMillis();
+    }
+
+    private boolean execute(int timeout) throws Exception {
+        CovenantRequestBean bean = new CovenantRequestBean();
+        bean.setDatabase(properties.getDatabase());
+        bean.setQuery("SELECT 1");
+
+        HttpPost request = new HttpPost(new URIBuilder()
+            .setHost(host.getHostName())
+            .setPort(host.getPort())
+            .setScheme(properties.isSsl() ? "https" : "http")
+            .setPath(API_QUERY)
+            .build());
+        request.setConfig(RequestConfig.custom()
+            .setConnectTimeout(timeout)
+            .setConnectionRequestTimeout(timeout)
+            .setSocketTimeout(timeout)
+            .build());
+        request.setEntity(new StringEntity(objectMapper.writeValueAsString(bean), ContentType.APPLICATION_JSON));
+
+        return client.execute(request, new ResponseHandler<Boolean>() {
+            @Override
+            public Boolean handleResponse(HttpResponse response) throws IOException {
+                return objectMapper.readValue(response.getEntity().getContent(), CovenantResponseBean.class)
+                    .isSuccess();
+            }
+        });
+    }
+}
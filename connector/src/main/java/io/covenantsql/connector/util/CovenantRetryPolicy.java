@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import io.covenantsql.connector.settings.CovenantProperties;
+
+import java.sql.SQLException;
+
+/**
+ * Decides whether and when a failed request is sent again.
+ * <p>
+ * Only queries and statements marked idempotent that failed with a {@link java.sql.SQLTransientException} are
+ * offered to the policy, and never beyond the query or operation timeout of the statement. Implementations
+ * are configured with {@code retry_policy} and shared by all statements of a connection, so they must be
+ * thread safe.
+ */
+public interface CovenantRetryPolicy {
+    /**
+     * @param attempts attempts made so far, 1 after the first failure
+     * @param failure  failure of the last attempt
+     * @return delay in milliseconds before the next attempt, negative to give up
+     */
+    long nextDelay(int attempts, SQLException failure);
+
+    /**
+     * @param properties connection properties
+     * @return new instance of the {@code retry_policy} class, given the properties if it has such a constructor
+     * @throws IllegalArgumentException if the class can not be instantiated
+     */
+    static CovenantRetryPolicy create(CovenantProperties properties) {
+        try {
+            Class<? extends CovenantRetryPolicy> clazz =
+                Class.forName(properties.getRetryPolicy()).asSubclass(CovenantRetryPolicy.class);
+            try {
+                return clazz.getConstructor(CovenantProperties.class).newInstance(properties);
+            } catch (NoSuchMethodException e) {
+                return clazz.getConstructor().newInstance();
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("cannot create retry_policy " + properties.getRetryPolicy(), e);
+        }
+    }
+}
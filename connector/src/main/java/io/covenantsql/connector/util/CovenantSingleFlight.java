@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with equal keys into a single in-flight call.
+ * <p>
+ * The first caller for a key starts the call, callers arriving while it is in flight share its outcome. Every
+ * caller gets its own future, cancelling it does not affect the shared call or the other callers. A call is
+ * forgotten as soon as it completes, its result is never served to later callers.
+ *
+ * @param <K> key type, must implement equals and hashCode
+ * @param <V> result type, shared by all callers and therefore expected to be immutable
+ */
+public final class CovenantSingleFlight<K, V> {
+    private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Join the in-flight call for key, or start one.
+     *
+     * @param key       call key
+     * @param notBefore {@link System#nanoTime()} a call must have been started after to be joined, so that
+     *                  callers can skip calls started before their own writes
+     * @param call      starts the call, invoked at most once per flight
+     * @return outcome of the call, private to this caller
+     */
+    public CompletableFuture<V> execute(K key, long notBefore, Supplier<CompletableFuture<V>> call) {
+        for (; ; ) {
+            Flight<V> flight = flights.get(key);
+            if (flight != null && flight.started - notBefore > 0) {
+                return flight.join();
+            }
+
+            Flight<V> started = new Flight<>();
+            boolean leader = flight == null ? flights.putIfAbsent(key, started) == null
+                : flights.replace(key, flight, started);
+            if (!leader) {
+                continue;
+            }
+
+            CompletableFuture<V> result;
+            try {
+                result = call.get();
+            } catch (RuntimeException e) {
+                result = new CompletableFuture<>();
+                result.completeExceptionally(e);
+            }
+            result.whenComplete((value, e) -> {
+                flights.remove(key, started);
+                if (e == null) {
+                    started.future.complete(value);
+                } else {
+                    started.future.completeExceptionally(e);
+                }
+            });
+            return started.join();
+        }
+    }
+
+    /**
+     * @return number of calls currently in flight
+     */
+    public int size() {
+        return flights.size();
+    }
+
+    private static final class Flight<V> {
+        private final long started = System.nanoTime();
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        private CompletableFuture<V> join() {
+            return future.thenApply(Function.identity());
+        }
+    }
+}
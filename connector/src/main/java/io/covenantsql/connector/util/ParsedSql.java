@@ -0,0 +1,266 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Classification and request template of one SQL string.
+ * <p>
+ * Prepared statements share instances through the statement cache of their connection, so the SQL is scanned
+ * and the JSON encoded {@code database} and {@code query} fields are built once; an execution then only encodes
+ * its arguments. Everything but the classification is computed on first use, instances are thread safe.
+ */
+public final class ParsedSql {
+    private final String sql;
+    private final boolean select;
+    private volatile String tableName;
+    private volatile int parameterCount = -2;
+    // written before parameterCount
+    private volatile boolean numbered;
+    private volatile long cacheTtl = -2;
+    private volatile String normalized;
+    private volatile Set<String> readTables;
+    private volatile Set<String> writtenTables;
+    private volatile boolean writtenTablesKnown;
+    private volatile Template template;
+
+    public ParsedSql(String sql) {
+        this.sql = sql;
+        this.select = isSelect(sql);
+    }
+
+    /**
+     * @param sql statement
+     * @return whether the statement is sent as a query
+     */
+    public static boolean isSelect(String sql) {
+        return SqlScanner.isQuery(sql);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public boolean isSelect() {
+        return select;
+    }
+
+    /**
+     * @return first table a query reads, reported by result set metadata, empty if there is none
+     */
+    public String getTableName() {
+        String name = tableName;
+        if (name == null) {
+            name = "";
+            if (select) {
+                SqlLexer lexer = new SqlLexer(sql);
+                while (lexer.next() != SqlLexer.END) {
+                    if (lexer.is("FROM")) {
+                        lexer.next();
+                        if (lexer.isName()) {
+                            String text = lexer.text();
+                            boolean quoted = lexer.getType() == SqlLexer.QUOTED;
+                            name = quoted ? text.substring(1, Math.max(1, text.length() - 1)) : text;
+                        }
+                        break;
+                    }
+                }
+            }
+            tableName = name;
+        }
+        return name;
+    }
+
+    /**
+     * @return number of {@code ?} placeholders, the highest index if they are numbered, -1 for named parameters
+     */
+    public int getParameterCount() {
+        int count = parameterCount;
+        if (count == -2) {
+            count = countParameters(sql);
+            parameterCount = count;
+        }
+        return count;
+    }
+
+    /**
+     * @return whether the statement only has plain {@code ?} placeholders, whose arguments stay in place when the
+     * statement is joined with others
+     */
+    public boolean hasPlainParameters() {
+        return getParameterCount() >= 0 && !numbered;
+    }
+
+    /**
+     * @return time to live of a {@code cache_ttl} hint, -1 if there is none, see {@link SqlScanner#getCacheTtl(String)}
+     */
+    public long getCacheTtl() {
+        long ttl = cacheTtl;
+        if (ttl == -2) {
+            ttl = SqlScanner.getCacheTtl(sql);
+            cacheTtl = ttl;
+        }
+        return ttl;
+    }
+
+    /**
+     * @return statement without comments and extra whitespace, see {@link SqlScanner#normalize(String)}
+     */
+    public String getNormalized() {
+        String value = normalized;
+        if (value == null) {
+            value = SqlScanner.normalize(sql);
+            normalized = value;
+        }
+        return value;
+    }
+
+    /**
+     * @return tables the statement reads, see {@link SqlScanner#getReadTables(String)}
+     */
+    public Set<String> getReadTables() {
+        Set<String> tables = readTables;
+        if (tables == null) {
+            tables = SqlScanner.getReadTables(sql);
+            readTables = tables;
+        }
+        return tables;
+    }
+
+    /**
+     * @return tables the statement writes, null if unknown, see {@link SqlScanner#getWrittenTables(String)}
+     */
+    public Set<String> getWrittenTables() {
+        if (!writtenTablesKnown) {
+            writtenTables = SqlScanner.getWrittenTables(sql);
+            writtenTablesKnown = true;
+        }
+        return writtenTables;
+    }
+
+    /**
+     * Encode a request body, the same JSON as a serialized {@code CovenantRequestBean}.
+     *
+     * @param objectMapper mapper encoding the arguments
+     * @param database     database
+     * @param args         arguments, may be null
+     * @return UTF-8 JSON request body
+     * @throws IOException if an argument can not be encoded
+     */
+    public byte[] encode(ObjectMapper objectMapper, String database, List<Object> args) throws IOException {
+        int size = args != null ? args.size() : 0;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(getTemplate(objectMapper, database).prefix.length
+            + 16 * (size + 1));
+        encode(objectMapper, database, args, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode a request body into out, see {@link #encode(ObjectMapper, String, List)}.
+     *
+     * @param objectMapper mapper encoding the arguments
+     * @param database     database
+     * @param args         arguments, may be null
+     * @param out          stream receiving the UTF-8 JSON request body, not closed
+     * @throws IOException if an argument can not be encoded or out failed
+     */
+    public void encode(ObjectMapper objectMapper, String database, List<Object> args, OutputStream out)
+        throws IOException {
+        out.write(getTemplate(objectMapper, database).prefix);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            if (args instanceof BindBuffer) {
+                ((BindBuffer) args).write(generator);
+            } else {
+                objectMapper.writeValue(generator, args);
+            }
+        }
+        out.write('}');
+    }
+
+    private Template getTemplate(ObjectMapper objectMapper, String database) throws IOException {
+        Template current = template;
+        if (current == null || !Objects.equals(current.database, database)) {
+            // {"database":...,"query":...,"args":
+            String prefix = "{\"database\":" + objectMapper.writeValueAsString(database)
+                + ",\"query\":" + objectMapper.writeValueAsString(sql) + ",\"args\":";
+            current = new Template(database, prefix.getBytes(StandardCharsets.UTF_8));
+            template = current;
+        }
+        return current;
+    }
+
+    private int countParameters(String sql) {
+        int count = 0;
+        int highest = 0;
+        int length = sql.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`' || c == '[') {
+                char quote = c == '[' ? ']' : c;
+                i++;
+                while (i < length && sql.charAt(i) != quote) {
+                    i++;
+                }
+            } else if (c == '-' && sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end;
+            } else if (c == '/' && sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '?') {
+                int start = i + 1;
+                int end = start;
+                while (end < length && Character.isDigit(sql.charAt(end))) {
+                    end++;
+                }
+                if (end > start) {
+                    highest = Math.max(highest, Integer.parseInt(sql.substring(start, Math.min(end, start + 9))));
+                    numbered = true;
+                    i = end - 1;
+                } else {
+                    count++;
+                }
+            } else if ((c == ':' || c == '@' || c == '$') && i + 1 < length
+                && Character.isLetter(sql.charAt(i + 1))) {
+                return -1;
+            }
+        }
+        return Math.max(count, highest);
+    }
+
+    private static final class Template {
+        private final String database;
+        private final byte[] prefix;
+
+        private Template(String database, byte[] prefix) {
+            this.database = database;
+            this.prefix = prefix;
+        }
+    }
+}
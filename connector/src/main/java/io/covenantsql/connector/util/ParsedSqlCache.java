@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of {@link ParsedSql} by SQL string, least recently used entries are evicted first.
+ */
+public final class ParsedSqlCache {
+    private final int capacity;
+    private final Map<String, ParsedSql> entries;
+
+    /**
+     * @param capacity maximum number of entries, 0 or less disables caching
+     */
+    public ParsedSqlCache(final int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, ParsedSql>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParsedSql> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param sql statement
+     * @return cached parse of sql, created on a miss
+     */
+    public ParsedSql get(String sql) {
+        if (capacity <= 0) {
+            return new ParsedSql(sql);
+        }
+
+        synchronized (entries) {
+            ParsedSql parsed = entries.get(sql);
+            if (parsed == null) {
+                parsed = new ParsedSql(sql);
+                entries.put(sql, parsed);
+            }
+            return parsed;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
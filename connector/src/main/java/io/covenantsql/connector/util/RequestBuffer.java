@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer request bodies are encoded into.
+ * <p>
+ * Blocking requests are sent on the calling thread before it encodes the next one, so each thread recycles one
+ * buffer through {@link #recycled()} and a request body costs no allocation once the buffer has grown to fit.
+ * Buffers grown beyond {@link #MAX_RETAINED} bytes by a large batch are dropped at the next use instead of being
+ * kept for the lifetime of the thread.
+ */
+public final class RequestBuffer extends OutputStream {
+    static final int MAX_RETAINED = 1 << 20;
+    private static final ThreadLocal<RequestBuffer> RECYCLED = new ThreadLocal<RequestBuffer>() {
+        @Override
+        protected RequestBuffer initialValue() {
+            return new RequestBuffer(4096);
+        }
+    };
+
+    private byte[] buffer;
+    private int size;
+
+    public RequestBuffer(int capacity) {
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * The buffer of the current thread, emptied. Its content is only valid until the next call on the same thread.
+     *
+     * @return empty buffer
+     */
+    public static RequestBuffer recycled() {
+        RequestBuffer recycled = RECYCLED.get();
+        if (recycled.buffer.length > MAX_RETAINED) {
+            recycled = new RequestBuffer(4096);
+            RECYCLED.set(recycled);
+        }
+        recycled.size = 0;
+        return recycled;
+    }
+
+    @Override
+    public void write(int b) {
+        ensure(size + 1);
+        buffer[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensure(size + len);
+        System.arraycopy(b, off, buffer, size, len);
+        size += len;
+    }
+
+    /**
+     * @return backing array, bytes from 0 to {@link #size()} are valid
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void ensure(int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
+}
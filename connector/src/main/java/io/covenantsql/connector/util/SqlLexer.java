@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import java.util.Locale;
+
+/**
+ * Cursor over the tokens of a SQL string.
+ * <p>
+ * Whitespace and comments are skipped, the current token is described by its type and bounds in the string so
+ * that scanning allocates nothing; text is only copied by {@link #name()} and {@link #text()}.
+ */
+public final class SqlLexer {
+    public static final int END = 0;
+    /**
+     * Keyword, identifier, number or parameter.
+     */
+    public static final int WORD = 1;
+    /**
+     * Identifier quoted with double quotes, backticks or brackets.
+     */
+    public static final int QUOTED = 2;
+    /**
+     * String literal.
+     */
+    public static final int STRING = 3;
+    /**
+     * Any other single character.
+     */
+    public static final int SYMBOL = 4;
+
+    private final String sql;
+    private int pos;
+    private int type;
+    private int start;
+    private int end;
+
+    public SqlLexer(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * Advance to the next token.
+     *
+     * @return type of the token, {@link #END} after the last one
+     */
+    public int next() {
+        int length = sql.length();
+
+        while (pos < length) {
+            char c = sql.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '-' && pos + 1 < length && sql.charAt(pos + 1) == '-') {
+                int newline = sql.indexOf('\n', pos);
+                pos = newline < 0 ? length : newline + 1;
+            } else if (c == '/' && pos + 1 < length && sql.charAt(pos + 1) == '*') {
+                int close = sql.indexOf("*/", pos + 2);
+                pos = close < 0 ? length : close + 2;
+            } else {
+                break;
+            }
+        }
+
+        start = pos;
+        if (pos >= length) {
+            end = pos;
+            return type = END;
+        }
+
+        char c = sql.charAt(pos);
+        if (c == '\'' || c == '"' || c == '`' || c == '[') {
+            char quote = c == '[' ? ']' : c;
+            pos++;
+            while (pos < length) {
+                if (sql.charAt(pos++) == quote) {
+                    // doubled quote is an escaped quote
+                    if (quote != ']' && pos < length && sql.charAt(pos) == quote) {
+                        pos++;
+                        continue;
+                    }
+                    break;
+                }
+            }
+            type = c == '\'' ? STRING : QUOTED;
+        } else if (isWordPart(c)) {
+            while (pos < length && isWordPart(sql.charAt(pos))) {
+                pos++;
+            }
+            type = WORD;
+        } else {
+            pos++;
+            type = SYMBOL;
+        }
+        end = pos;
+        return type;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * @return position to resume from with {@link #reset(int)}
+     */
+    public int mark() {
+        return start;
+    }
+
+    /**
+     * Move back to a position returned by {@link #mark()}, the token there is read by the next {@link #next()}.
+     *
+     * @param mark position
+     */
+    public void reset(int mark) {
+        pos = mark;
+    }
+
+    /**
+     * @param keyword upper case keyword
+     * @return whether the current token is keyword, ignoring case
+     */
+    public boolean is(String keyword) {
+        return type == WORD && end - start == keyword.length() && sql.regionMatches(true, start, keyword, 0,
+            keyword.length());
+    }
+
+    /**
+     * @param symbol character
+     * @return whether the current token is symbol
+     */
+    public boolean is(char symbol) {
+        return type == SYMBOL && sql.charAt(start) == symbol;
+    }
+
+    /**
+     * @return whether the current token may name a table
+     */
+    public boolean isName() {
+        return type == QUOTED || type == WORD && Character.isLetter(sql.charAt(start)) || type == WORD
+            && sql.charAt(start) == '_';
+    }
+
+    /**
+     * @return current identifier, unquoted and in lower case
+     */
+    public String name() {
+        if (type == QUOTED) {
+            return sql.substring(start + 1, Math.max(start + 1, end - 1)).toLowerCase(Locale.ROOT);
+        }
+        return sql.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return text of the current token
+     */
+    public String text() {
+        return sql.substring(start, end);
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '?' || c == ':' || c == '@';
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Single pass scans of SQL statements: classification, referenced tables and cache hints.
+ * <p>
+ * This is not a parser: it looks at the first keyword and at the words following {@code FROM}, {@code JOIN},
+ * {@code INTO}, {@code UPDATE} and {@code TABLE}. Statements it does not understand are sent as writes and
+ * report unknown tables, so that callers can fall back to invalidating everything.
+ */
+public final class SqlScanner {
+    private static final String HINT_CACHE_TTL = "cache_ttl=";
+    // words ending a table list, anything else after a table name is an alias
+    private static final String[] CLAUSES = {
+        "WHERE", "GROUP", "ORDER", "LIMIT", "HAVING", "WINDOW", "UNION", "EXCEPT", "INTERSECT", "JOIN", "INNER",
+        "LEFT", "RIGHT", "FULL", "CROSS", "NATURAL", "OUTER", "ON", "USING", "INDEXED", "NOT", "SET", "VALUES",
+        "SELECT", "DEFAULT", "RETURNING"};
+
+    private SqlScanner() {
+    }
+
+    /**
+     * Whether a statement only reads and is sent to the query endpoint: {@code SELECT}, {@code VALUES},
+     * {@code SHOW}, {@code DESC}, {@code EXPLAIN}, {@code PRAGMA} without assignment and {@code WITH} clauses
+     * followed by a select, also after leading comments or parentheses.
+     *
+     * @param sql statement
+     * @return true for queries
+     */
+    public static boolean isQuery(String sql) {
+        SqlLexer lexer = new SqlLexer(sql);
+        lexer.next();
+        while (lexer.is('(')) {
+            lexer.next();
+        }
+
+        if (lexer.is("SELECT") || lexer.is("VALUES") || lexer.is("SHOW") || lexer.is("DESC")
+            || lexer.is("DESCRIBE") || lexer.is("EXPLAIN")) {
+            return true;
+        } else if (lexer.is("PRAGMA")) {
+            while (lexer.next() != SqlLexer.END) {
+                if (lexer.is('=')) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (lexer.is("WITH")) {
+            // the statement follows the common table expressions, at parenthesis depth 0
+            int depth = 0;
+            while (lexer.next() != SqlLexer.END) {
+                if (lexer.is('(')) {
+                    depth++;
+                } else if (lexer.is(')')) {
+                    depth--;
+                } else if (depth == 0 && (lexer.is("SELECT") || lexer.is("VALUES"))) {
+                    return true;
+                } else if (depth == 0 && (lexer.is("INSERT") || lexer.is("UPDATE") || lexer.is("DELETE")
+                    || lexer.is("REPLACE"))) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param sql statement
+     * @return statement up to its last token, without trailing comments, whitespace and semicolons
+     */
+    public static String trimEnd(String sql) {
+        SqlLexer lexer = new SqlLexer(sql);
+        int end = 0;
+        while (lexer.next() != SqlLexer.END) {
+            if (!lexer.is(';')) {
+                end = lexer.getEnd();
+            }
+        }
+        return end == sql.length() ? sql : sql.substring(0, end);
+    }
+
+    /**
+     * @param sql statement
+     * @return statement with comments removed and whitespace collapsed, literals are kept as is
+     */
+    public static String normalize(String sql) {
+        SqlLexer lexer = new SqlLexer(sql);
+        StringBuilder builder = new StringBuilder(sql.length());
+        while (lexer.next() != SqlLexer.END) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(sql, lexer.getStart(), lexer.getEnd());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Find a {@code cache_ttl=N} entry in a {@code /*+ ... *}{@code /} hint comment.
+     *
+     * @param sql statement
+     * @return time to live in milliseconds, -1 if there is no hint
+     */
+    public static long getCacheTtl(String sql) {
+        for (int pos = sql.indexOf("/*+"); pos >= 0; pos = sql.indexOf("/*+", pos + 3)) {
+            int end = sql.indexOf("*/", pos + 3);
+            String hint = end < 0 ? sql.substring(pos + 3) : sql.substring(pos + 3, end);
+            int at = hint.toLowerCase(Locale.ROOT).indexOf(HINT_CACHE_TTL);
+            if (at < 0) {
+                continue;
+            }
+
+            int start = at + HINT_CACHE_TTL.length();
+            int stop = start;
+            while (stop < hint.length() && Character.isDigit(hint.charAt(stop))) {
+                stop++;
+            }
+            if (stop > start && stop - start < 19) {
+                return Long.parseLong(hint.substring(start, stop));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param sql query
+     * @return lower case names of the tables and views the query reads, possibly empty
+     */
+    public static Set<String> getReadTables(String sql) {
+        SqlLexer lexer = new SqlLexer(sql);
+        Set<String> tables = new HashSet<>();
+
+        int type = lexer.next();
+        while (type != SqlLexer.END) {
+            if (!lexer.is("FROM") && !lexer.is("JOIN")) {
+                type = lexer.next();
+                continue;
+            }
+
+            // comma separated list: FROM a x, b AS y, c
+            lexer.next();
+            while (lexer.isName()) {
+                table(lexer, tables);
+                if (lexer.is("AS")) {
+                    lexer.next();
+                }
+                if (lexer.isName() && !isClause(lexer)) {
+                    lexer.next();
+                }
+                if (!lexer.is(',')) {
+                    break;
+                }
+                lexer.next();
+            }
+            // the current token may start the next clause
+            type = lexer.getType();
+        }
+        return tables;
+    }
+
+    /**
+     * @param sql statement, several statements may be separated by semicolons
+     * @return lower case names of the tables the statement changes, null if they could not be determined
+     */
+    public static Set<String> getWrittenTables(String sql) {
+        SqlLexer lexer = new SqlLexer(sql);
+        Set<String> tables = new HashSet<>();
+
+        while (lexer.next() != SqlLexer.END) {
+            if (lexer.is(';')) {
+                continue;
+            }
+            if (!written(lexer, tables)) {
+                return null;
+            }
+            // rest of the statement
+            while (lexer.getType() != SqlLexer.END && !lexer.is(';')) {
+                lexer.next();
+            }
+        }
+        return tables;
+    }
+
+    private static boolean written(SqlLexer lexer, Set<String> tables) {
+        if (lexer.is("SELECT") || lexer.is("BEGIN") || lexer.is("COMMIT") || lexer.is("END")
+            || lexer.is("ROLLBACK") || lexer.is("SAVEPOINT") || lexer.is("RELEASE")) {
+            return true;
+        } else if (lexer.is("INSERT") || lexer.is("REPLACE")) {
+            return seek(lexer, "INTO") && name(lexer, tables);
+        } else if (lexer.is("DELETE")) {
+            return seek(lexer, "FROM") && name(lexer, tables);
+        } else if (lexer.is("UPDATE")) {
+            lexer.next();
+            if (lexer.is("OR")) {
+                // UPDATE OR REPLACE t
+                lexer.next();
+                lexer.next();
+            }
+            return lexer.isName() && table(lexer, tables);
+        } else if (lexer.is("CREATE") || lexer.is("DROP") || lexer.is("ALTER")) {
+            int mark = lexer.mark();
+            if (seek(lexer, "TABLE") || reset(lexer, mark) && seek(lexer, "VIEW")) {
+                return name(lexer, tables);
+            }
+            return reset(lexer, mark) && seek(lexer, "ON") && name(lexer, tables);
+        }
+        return false;
+    }
+
+    /**
+     * Advance to keyword within the current statement.
+     */
+    private static boolean seek(SqlLexer lexer, String keyword) {
+        while (lexer.next() != SqlLexer.END && !lexer.is(';')) {
+            if (lexer.is(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean reset(SqlLexer lexer, int mark) {
+        lexer.reset(mark);
+        lexer.next();
+        return true;
+    }
+
+    /**
+     * Add the table named after the current keyword, skipping {@code IF [NOT] EXISTS}.
+     */
+    private static boolean name(SqlLexer lexer, Set<String> tables) {
+        lexer.next();
+        if (lexer.is("IF")) {
+            lexer.next();
+            if (lexer.is("NOT")) {
+                lexer.next();
+            }
+            lexer.next();
+        }
+        return lexer.isName() && table(lexer, tables);
+    }
+
+    /**
+     * Add the possibly schema qualified table name at the current token and advance past it.
+     */
+    private static boolean table(SqlLexer lexer, Set<String> tables) {
+        String name = lexer.name();
+        lexer.next();
+        while (lexer.is('.')) {
+            lexer.next();
+            if (!lexer.isName()) {
+                break;
+            }
+            name = lexer.name();
+            lexer.next();
+        }
+        tables.add(name);
+        return true;
+    }
+
+    private static boolean isClause(SqlLexer lexer) {
+        for (String clause : CLAUSES) {
+            if (lexer.is(clause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
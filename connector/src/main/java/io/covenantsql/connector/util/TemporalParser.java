@@ -0,0 +1,285 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import java.sql.Timestamp;
+import java.text.ParsePosition;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * Parser of temporal column values.
+ * <p>
+ * ISO-8601, {@code yyyy-MM-dd HH:mm:ss}, {@code yyyy-MM-dd} and {@code HH:mm:ss} values are parsed by hand,
+ * other supported layouts by immutable formatters. The layout that matched last is tried first, so one parser
+ * should be used per column. Unparseable values yield null, no exception is created on a miss.
+ * <p>
+ * Values without a zone offset are interpreted in the default time zone. Instances are not thread safe.
+ */
+public class TemporalParser {
+    private static final int NO_OFFSET = Integer.MIN_VALUE;
+    private static final int[] NANO_SCALE = {
+        100000000, 10000000, 1000000, 100000, 10000, 1000, 100, 10, 1
+    };
+    private static final Layout[] layouts;
+
+    static {
+        String[] patterns = {
+            "MMMM/dd/uuuu HH:mm:ss",
+            "MMMM dd, uuuu HH:mm:ss",
+            "dd/MM/uuuu HH:mm:ss",
+            "dd-MM-uuuu HH:mm:ss",
+            "MMMM/dd/uuuu",
+            "MMMM dd, uuuu",
+            "dd/MM/uuuu",
+            "dd-MM-uuuu",
+        };
+
+        layouts = new Layout[patterns.length + 2];
+        layouts[0] = new IsoLayout();
+        layouts[1] = new TimeLayout();
+        for (int i = 0; i < patterns.length; i++) {
+            layouts[i + 2] = new PatternLayout(DateTimeFormatter.ofPattern(patterns[i]));
+        }
+    }
+
+    private final ZoneId zone;
+    private int preferred;
+
+    public TemporalParser() {
+        this(ZoneId.systemDefault());
+    }
+
+    public TemporalParser(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * @param text temporal value
+     * @return parsed value, null if the text matches none of the supported layouts
+     */
+    public Timestamp parse(CharSequence text) {
+        Timestamp result = layouts[preferred].parse(text, zone);
+        if (result != null) {
+            return result;
+        }
+
+        for (int i = 0; i < layouts.length; i++) {
+            if (i == preferred) {
+                continue;
+            }
+            result = layouts[i].parse(text, zone);
+            if (result != null) {
+                preferred = i;
+                return result;
+            }
+        }
+
+        return null;
+    }
+
+    private static Timestamp toTimestamp(int year, int month, int day, int hour, int minute, int second,
+                                         int nanos, int offsetSeconds, ZoneId zone) {
+        if (month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))
+            || hour > 23 || minute > 59 || second > 59) {
+            return null;
+        }
+
+        LocalDateTime dateTime = LocalDateTime.of(year, month, day, hour, minute, second);
+        long epochSecond = offsetSeconds == NO_OFFSET
+            ? dateTime.atZone(zone).toEpochSecond()
+            : dateTime.toEpochSecond(ZoneOffset.ofTotalSeconds(offsetSeconds));
+
+        Timestamp timestamp = new Timestamp(epochSecond * 1000);
+        timestamp.setNanos(nanos);
+        return timestamp;
+    }
+
+    /**
+     * @return value of count decimal digits at offset, -1 if any is not a digit
+     */
+    private static int digits(CharSequence text, int offset, int count) {
+        if (offset + count > text.length()) {
+            return -1;
+        }
+
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean charAt(CharSequence text, int offset, char expected) {
+        return offset < text.length() && text.charAt(offset) == expected;
+    }
+
+    private interface Layout {
+        Timestamp parse(CharSequence text, ZoneId zone);
+    }
+
+    /**
+     * {@code yyyy-MM-dd}, optionally followed by {@code [T ]HH:mm:ss[.fraction][Z|+HH:mm|+HHmm|+HH]}.
+     */
+    private static final class IsoLayout implements Layout {
+        @Override
+        public Timestamp parse(CharSequence text, ZoneId zone) {
+            int length = text.length();
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 2);
+            int day = digits(text, 8, 2);
+
+            if (year < 0 || month < 0 || day < 0 || !charAt(text, 4, '-') || !charAt(text, 7, '-')) {
+                return null;
+            }
+
+            if (length == 10) {
+                return toTimestamp(year, month, day, 0, 0, 0, 0, NO_OFFSET, zone);
+            }
+
+            if (!charAt(text, 10, ' ') && !charAt(text, 10, 'T')) {
+                return null;
+            }
+
+            int hour = digits(text, 11, 2);
+            int minute = digits(text, 14, 2);
+            int second = digits(text, 17, 2);
+
+            if (hour < 0 || minute < 0 || second < 0 || !charAt(text, 13, ':') || !charAt(text, 16, ':')) {
+                return null;
+            }
+
+            int pos = 19;
+            int nanos = 0;
+
+            if (charAt(text, pos, '.')) {
+                pos++;
+                int start = pos;
+                while (pos < length && pos - start < 9) {
+                    char c = text.charAt(pos);
+                    if (c < '0' || c > '9') {
+                        break;
+                    }
+                    nanos += (c - '0') * NANO_SCALE[pos - start];
+                    pos++;
+                }
+                if (pos == start) {
+                    return null;
+                }
+            }
+
+            int offsetSeconds = NO_OFFSET;
+
+            if (charAt(text, pos, 'Z')) {
+                offsetSeconds = 0;
+                pos++;
+            } else if (charAt(text, pos, '+') || charAt(text, pos, '-')) {
+                int sign = text.charAt(pos) == '-' ? -1 : 1;
+                int offsetHours = digits(text, pos + 1, 2);
+                if (offsetHours < 0 || offsetHours > 18) {
+                    return null;
+                }
+                pos += 3;
+
+                int offsetMinutes = 0;
+                if (charAt(text, pos, ':')) {
+                    pos++;
+                }
+                if (pos < length) {
+                    offsetMinutes = digits(text, pos, 2);
+                    if (offsetMinutes < 0 || offsetMinutes > 59) {
+                        return null;
+                    }
+                    pos += 2;
+                }
+                offsetSeconds = sign * (offsetHours * 3600 + offsetMinutes * 60);
+            }
+
+            if (pos != length) {
+                return null;
+            }
+
+            return toTimestamp(year, month, day, hour, minute, second, nanos, offsetSeconds, zone);
+        }
+    }
+
+    /**
+     * {@code HH:mm:ss} on 1970-01-01.
+     */
+    private static final class TimeLayout implements Layout {
+        @Override
+        public Timestamp parse(CharSequence text, ZoneId zone) {
+            if (text.length() != 8 || !charAt(text, 2, ':') || !charAt(text, 5, ':')) {
+                return null;
+            }
+
+            int hour = digits(text, 0, 2);
+            int minute = digits(text, 3, 2);
+            int second = digits(text, 6, 2);
+
+            if (hour < 0 || minute < 0 || second < 0) {
+                return null;
+            }
+
+            return toTimestamp(1970, 1, 1, hour, minute, second, 0, NO_OFFSET, zone);
+        }
+    }
+
+    /**
+     * Less common layouts, parsed without resolving so that a mismatch does not throw.
+     */
+    private static final class PatternLayout implements Layout {
+        private final DateTimeFormatter formatter;
+
+        private PatternLayout(DateTimeFormatter formatter) {
+            this.formatter = formatter;
+        }
+
+        @Override
+        public Timestamp parse(CharSequence text, ZoneId zone) {
+            ParsePosition position = new ParsePosition(0);
+            TemporalAccessor parsed = formatter.parseUnresolved(text, position);
+
+            if (parsed == null || position.getErrorIndex() >= 0 || position.getIndex() != text.length()) {
+                return null;
+            }
+
+            return toTimestamp(
+                (int) parsed.getLong(ChronoField.YEAR),
+                (int) parsed.getLong(ChronoField.MONTH_OF_YEAR),
+                (int) parsed.getLong(ChronoField.DAY_OF_MONTH),
+                field(parsed, ChronoField.HOUR_OF_DAY),
+                field(parsed, ChronoField.MINUTE_OF_HOUR),
+                field(parsed, ChronoField.SECOND_OF_MINUTE),
+                0, NO_OFFSET, zone);
+        }
+
+        private static int field(TemporalAccessor parsed, ChronoField field) {
+            return parsed.isSupported(field) ? (int) parsed.getLong(field) : 0;
+        }
+    }
+}
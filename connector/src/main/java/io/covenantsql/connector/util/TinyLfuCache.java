@@ -0,0 +1,311 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Size bounded cache with W-TinyLFU admission, per entry expiry and invalidation by tag.
+ * <p>
+ * New entries enter a small LRU window (1% of the weight). Entries leaving the window compete with the oldest
+ * entry of the probation segment of the main SLRU area, the one seen less often according to a count-min
+ * sketch of recent accesses is evicted, so a burst of one-off queries cannot flush frequently used results.
+ * Entries hit while on probation move to the protected segment (80% of the main area).
+ * <p>
+ * Every entry carries tags, invalidating a tag drops its entries and rejects values computed before the
+ * invalidation, see {@link #tick()}. All methods are thread safe.
+ *
+ * @param <K> key type, must implement equals and hashCode
+ * @param <V> value type, shared by all readers and therefore expected to be immutable
+ */
+public final class TinyLfuCache<K, V> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    // assumed average weight of an entry, sizes the frequency sketch
+    private static final long AVERAGE_WEIGHT = 4096;
+
+    private final long maxWeight;
+    private final long maxWindow;
+    private final long maxProtected;
+    private final FrequencySketch sketch;
+    private final Map<K, Node<K, V>> data = new HashMap<>();
+    private final Map<String, Set<Node<K, V>>> tagged = new HashMap<>();
+    private final Map<String, Long> invalidated = new HashMap<>();
+    private final Node<K, V>[] queues;
+    private final long[] weights = new long[3];
+    private long clock;
+
+    @SuppressWarnings("unchecked")
+    public TinyLfuCache(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.maxWeight = maxWeight;
+        this.maxWindow = Math.max(1, maxWeight / 100);
+        this.maxProtected = (maxWeight - maxWindow) * 8 / 10;
+        this.sketch = new FrequencySketch((int) Math.min(1 << 24, Math.max(64, maxWeight / AVERAGE_WEIGHT)));
+        this.queues = new Node[]{new Node<>(), new Node<>(), new Node<>()};
+    }
+
+    /**
+     * @param key key
+     * @return live value of key, null if absent or expired
+     */
+    public synchronized V get(K key) {
+        sketch.increment(key.hashCode());
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (node.expiresAt - System.nanoTime() <= 0) {
+            remove(node);
+            return null;
+        }
+
+        if (node.queue == PROBATION) {
+            unlink(node);
+            link(node, PROTECTED);
+            while (weights[PROTECTED] > maxProtected) {
+                Node<K, V> demoted = queues[PROTECTED].next;
+                unlink(demoted);
+                link(demoted, PROBATION);
+            }
+        } else {
+            unlink(node);
+            link(node, node.queue);
+        }
+        return node.value;
+    }
+
+    /**
+     * @return current invalidation clock, to be taken before computing a value passed to
+     * {@link #put(Object, Object, long, long, Collection, long)}
+     */
+    public synchronized long tick() {
+        return clock;
+    }
+
+    /**
+     * Insert or replace the value of key.
+     *
+     * @param key    key
+     * @param value  value
+     * @param weight weight of value, in the unit of the maximum weight
+     * @param ttl    time to live in nanoseconds
+     * @param tags   tags of the entry
+     * @param since  {@link #tick()} before the value was computed
+     * @return false if the value was not cached, because it is too heavy or a tag was invalidated since
+     */
+    public synchronized boolean put(K key, V value, long weight, long ttl, Collection<String> tags, long since) {
+        if (weight > maxWeight - maxWindow || ttl <= 0) {
+            return false;
+        }
+        for (String tag : tags) {
+            Long at = invalidated.get(tag);
+            if (at != null && at > since) {
+                return false;
+            }
+        }
+
+        Node<K, V> old = data.remove(key);
+        if (old != null) {
+            remove(old);
+        }
+
+        Node<K, V> node = new Node<>();
+        node.key = key;
+        node.value = value;
+        node.weight = weight;
+        node.expiresAt = System.nanoTime() + ttl;
+        node.tags = tags.toArray(new String[0]);
+        data.put(key, node);
+        for (String tag : node.tags) {
+            tagged.computeIfAbsent(tag, t -> new HashSet<>()).add(node);
+        }
+        link(node, WINDOW);
+        sketch.increment(key.hashCode());
+        evict();
+        return true;
+    }
+
+    /**
+     * Drop all entries carrying tag and reject values computed before this call.
+     *
+     * @param tag tag
+     */
+    public synchronized void invalidate(String tag) {
+        invalidated.put(tag, ++clock);
+        Set<Node<K, V>> nodes = tagged.remove(tag);
+        if (nodes != null) {
+            for (Node<K, V> node : nodes.toArray(newNodes(nodes.size()))) {
+                remove(node);
+            }
+        }
+    }
+
+    /**
+     * @return number of entries, including expired ones not evicted yet
+     */
+    public synchronized int size() {
+        return data.size();
+    }
+
+    /**
+     * @return total weight of the entries
+     */
+    public synchronized long weight() {
+        return weights[WINDOW] + weights[PROBATION] + weights[PROTECTED];
+    }
+
+    private void evict() {
+        // window overflow moves to probation, where it competes for admission
+        while (weights[WINDOW] > maxWindow) {
+            Node<K, V> candidate = queues[WINDOW].next;
+            unlink(candidate);
+            link(candidate, PROBATION);
+        }
+
+        long now = System.nanoTime();
+        while (weight() > maxWeight) {
+            Node<K, V> victim = first(PROBATION);
+            Node<K, V> candidate = queues[PROBATION].prev;
+            if (victim == null) {
+                victim = first(PROTECTED) != null ? first(PROTECTED) : first(WINDOW);
+            } else if (candidate != victim && (candidate.expiresAt - now <= 0
+                || (victim.expiresAt - now > 0 && sketch.frequency(candidate.key.hashCode())
+                <= sketch.frequency(victim.key.hashCode())))) {
+                victim = candidate;
+            }
+            remove(victim);
+        }
+    }
+
+    private Node<K, V> first(int queue) {
+        Node<K, V> node = queues[queue].next;
+        return node == queues[queue] ? null : node;
+    }
+
+    private void remove(Node<K, V> node) {
+        if (data.get(node.key) == node) {
+            data.remove(node.key);
+        }
+        for (String tag : node.tags) {
+            Set<Node<K, V>> nodes = tagged.get(tag);
+            if (nodes != null && nodes.remove(node) && nodes.isEmpty()) {
+                tagged.remove(tag);
+            }
+        }
+        unlink(node);
+    }
+
+    private void link(Node<K, V> node, int queue) {
+        Node<K, V> head = queues[queue];
+        node.queue = queue;
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+        weights[queue] += node.weight;
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.prev == null) {
+            return;
+        }
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        weights[node.queue] -= node.weight;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<K, V>[] newNodes(int size) {
+        return new Node[size];
+    }
+
+    private static final class Node<K, V> {
+        private K key;
+        private V value;
+        private long weight;
+        private long expiresAt;
+        private String[] tags;
+        private int queue;
+        private Node<K, V> prev = this;
+        private Node<K, V> next = this;
+    }
+
+    /**
+     * Count-min sketch of 4 bit counters, halved after a sample of ten times its width to forget old accesses.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int expectedEntries) {
+            int length = Integer.highestOneBit(expectedEntries - 1) << 1;
+            this.table = new long[length];
+            this.sampleSize = 10 * expectedEntries;
+        }
+
+        private int frequency(int hash) {
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = index(hash, i);
+                int shift = (index & 15) << 2;
+                frequency = Math.min(frequency, (int) ((table[index >>> 4 & (table.length - 1)] >>> shift) & 15));
+            }
+            return frequency;
+        }
+
+        private void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = index(hash, i);
+                int slot = index >>> 4 & (table.length - 1);
+                int shift = (index & 15) << 2;
+                if (((table[slot] >>> shift) & 15) < 15) {
+                    table[slot] += 1L << shift;
+                    added = true;
+                }
+            }
+
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                }
+                additions /= 2;
+            }
+        }
+
+        private static int index(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h;
+        }
+    }
+}
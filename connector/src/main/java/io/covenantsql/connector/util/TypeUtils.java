@@ -31,6 +31,11 @@ public class TypeUtils {
     private static final Logger LOG = LoggerFactory.getLogger(TypeUtils.class);
 
     public static int toSQLType(String type) {
+        if (type == null) {
+            // declared type not known (yet)
+            return Types.OTHER;
+        }
+
         type = type.toUpperCase();
 
         if (StringUtils.contains(type, "INT")) {
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector;
+
+import io.covenantsql.connector.settings.CovenantProperties;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import static org.testng.Assert.*;
+
+public class CovenantPooledDataSourceTests {
+    private MockAdapter adapter;
+    private CovenantProperties properties;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        adapter = new MockAdapter();
+        properties = new CovenantProperties();
+        properties.setPoolMinIdle(0);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        adapter.close();
+    }
+
+    @Test
+    public void physicalConnectionIsReused() throws Exception {
+        try (CovenantPooledDataSource dataSource = new CovenantPooledDataSource(adapter.getUrl("db"), properties)) {
+            Connection first = dataSource.getConnection();
+            CovenantConnectionImpl physical = first.unwrap(CovenantConnectionImpl.class);
+            assertEquals(first.createStatement().executeUpdate("DELETE FROM t"), 1);
+            first.close();
+
+            assertTrue(first.isClosed());
+            try {
+                first.createStatement();
+                fail("closed logical connection should not be usable");
+            } catch (SQLException expected) {
+            }
+
+            Connection second = dataSource.getConnection();
+            assertSame(second.unwrap(CovenantConnectionImpl.class), physical);
+            assertFalse(physical.isClosed());
+            assertEquals(dataSource.getTotalConnections(), 1);
+            assertEquals(dataSource.getActiveConnections(), 1);
+            second.close();
+            assertEquals(dataSource.getIdleConnections(), 1);
+        }
+    }
+
+    @Test
+    public void borrowTimesOutWhenExhausted() throws Exception {
+        properties.setPoolMaxSize(1);
+        properties.setPoolBorrowTimeout(50);
+
+        try (CovenantPooledDataSource dataSource = new CovenantPooledDataSource(adapter.getUrl("db"), properties)) {
+            Connection connection = dataSource.getConnection();
+            try {
+                dataSource.getConnection();
+                fail("pool should be exhausted");
+            } catch (SQLTransientConnectionException expected) {
+            }
+
+            connection.close();
+            dataSource.getConnection().close();
+        }
+    }
+
+    @Test
+    public void minIdleIsPrewarmed() throws Exception {
+        properties.setPoolMinIdle(2);
+
+        try (CovenantPooledDataSource dataSource = new CovenantPooledDataSource(adapter.getUrl("db"), properties)) {
+            for (int i = 0; i < 100 && dataSource.getIdleConnections() < 2; i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(dataSource.getIdleConnections(), 2);
+            assertEquals(dataSource.getTotalConnections(), 2);
+        }
+    }
+
+    @Test
+    public void expiredConnectionsAreRetired() throws Exception {
+        properties.setPoolMaxLifetime(1);
+
+        try (CovenantPooledDataSource dataSource = new CovenantPooledDataSource(adapter.getUrl("db"), properties)) {
+            Connection connection = dataSource.getConnection();
+            CovenantConnectionImpl physical = connection.unwrap(CovenantConnectionImpl.class);
+            Thread.sleep(5);
+            connection.close();
+
+            assertTrue(physical.isClosed());
+            assertEquals(dataSource.getTotalConnections(), 0);
+        }
+    }
+
+    @Test
+    public void catalogIsResetOnReturn() throws Exception {
+        properties.setPoolMaxSize(1);
+
+        try (CovenantPooledDataSource dataSource = new CovenantPooledDataSource(adapter.getUrl("db"), properties)) {
+            Connection first = dataSource.getConnection();
+            first.setCatalog("other");
+            first.createStatement().executeUpdate("DELETE FROM t");
+            first.setReadOnly(true);
+            first.close();
+
+            Connection second = dataSource.getConnection();
+            assertEquals(second.getCatalog(), "db");
+            assertFalse(second.isReadOnly());
+            assertEquals(second.getMetaData().getURL(), adapter.getUrl("db"));
+            second.createStatement().executeUpdate("DELETE FROM t");
+            second.close();
+
+            assertEquals(adapter.requests.get(0).getDatabase(), "other");
+            assertEquals(adapter.requests.get(1).getDatabase(), "db");
+        }
+    }
+
+    @Test
+    public void statementsDoNotOutliveTheirConnection() throws Exception {
+        properties.setPoolMaxSize(1);
+
+        try (CovenantPooledDataSource dataSource = new CovenantPooledDataSource(adapter.getUrl("db"), properties)) {
+            Connection first = dataSource.getConnection();
+            Statement statement = first.createStatement();
+            PreparedStatement prepared = first.prepareStatement("DELETE FROM t WHERE a = ?");
+            assertSame(statement.getConnection(), first);
+            assertSame(prepared.getConnection(), first);
+            assertTrue(prepared instanceof CovenantPreparedStatement);
+            first.close();
+
+            Connection second = dataSource.getConnection();
+            assertTrue(statement.isClosed());
+            try {
+                statement.executeUpdate("DELETE FROM t");
+                fail("statement of a returned connection should be closed");
+            } catch (SQLException expected) {
+            }
+            try {
+                statement.getConnection().close();
+                fail("statement of a returned connection should be closed");
+            } catch (SQLException expected) {
+            }
+
+            // closing through the statement returns the logical connection to the pool
+            second.createStatement().getConnection().close();
+            assertTrue(second.isClosed());
+            try (Connection third = dataSource.getConnection()) {
+                third.createStatement().executeUpdate("DELETE FROM t");
+            }
+            assertEquals(adapter.requests.size(), 1);
+        }
+    }
+}
@@ -0,0 +1,713 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector;
+
+import io.covenantsql.connector.settings.CovenantProperties;
+import io.covenantsql.connector.util.CovenantEndpoint;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.ServerSocket;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+public class CovenantStatementTests {
+    private MockAdapter adapter;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        adapter = new MockAdapter();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        adapter.close();
+    }
+
+    @Test
+    public void batchInsertIsRewritten() throws Exception {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setBatchMaxRows(2);
+        adapter.response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"affected_rows\":2}}";
+
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), properties)) {
+            PreparedStatement statement = connection.prepareStatement("INSERT INTO t (a, b) VALUES (?, ?)");
+            for (int i = 0; i < 3; i++) {
+                statement.setInt(1, i);
+                statement.setString(2, "v" + i);
+                statement.addBatch();
+            }
+
+            int[] counts = statement.executeBatch();
+
+            assertEquals(adapter.paths, Arrays.asList("/v1/exec", "/v1/exec"));
+            assertEquals(adapter.requests.get(0).getQuery(), "INSERT INTO t (a, b) VALUES (?, ?),(?, ?)");
+            assertEquals(adapter.requests.get(0).getArgs(), Arrays.<Object>asList(0, "v0", 1, "v1"));
+            assertEquals(adapter.requests.get(1).getQuery(), "INSERT INTO t (a, b) VALUES (?, ?)");
+            // second chunk holds one row but the adapter reported two
+            assertEquals(counts, new int[]{1, 1, Statement.SUCCESS_NO_INFO});
+        }
+    }
+
+    @Test
+    public void batchStatementsShareRequest() throws Exception {
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), new CovenantProperties())) {
+            Statement statement = connection.createStatement();
+            statement.addBatch("DELETE FROM t WHERE a = 1;");
+            statement.addBatch("UPDATE t SET b = 2 -- trailing comment");
+            statement.addBatch("UPDATE u SET b = 3");
+
+            int[] counts = statement.executeBatch();
+
+            assertEquals(adapter.requests.size(), 1);
+            assertEquals(adapter.requests.get(0).getQuery(),
+                "DELETE FROM t WHERE a = 1;\nUPDATE t SET b = 2;\nUPDATE u SET b = 3");
+            assertEquals(counts,
+                new int[]{Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO});
+        }
+    }
+
+    @Test
+    public void numberedBatchStatementsAreSentAlone() throws Exception {
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), new CovenantProperties())) {
+            PreparedStatement statement = connection.prepareStatement("UPDATE t SET a = ?2 WHERE b = ?1");
+            for (int i = 0; i < 2; i++) {
+                statement.setInt(1, i);
+                statement.setString(2, "v" + i);
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+
+            assertEquals(adapter.requests.size(), 2);
+            assertEquals(adapter.requests.get(0).getQuery(), "UPDATE t SET a = ?2 WHERE b = ?1");
+            assertEquals(adapter.requests.get(0).getArgs(), Arrays.<Object>asList(0, "v0"));
+            assertEquals(adapter.requests.get(1).getArgs(), Arrays.<Object>asList(1, "v1"));
+        }
+    }
+
+    @Test
+    public void executionsUnsetParameters() throws Exception {
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), new CovenantProperties())) {
+            CovenantPreparedStatement statement =
+                (CovenantPreparedStatement) connection.prepareStatement("UPDATE t SET a = ?, b = ?");
+            statement.setInt(1, 1);
+            statement.setString(2, "x");
+            statement.executeUpdate();
+            statement.executeUpdate();
+
+            statement.setInt(1, 2);
+            statement.setString(2, "y");
+            statement.executeUpdateAsync().get(5, TimeUnit.SECONDS);
+            statement.executeUpdateAsync().get(5, TimeUnit.SECONDS);
+
+            // unset parameters are sent as nulls, sync and async alike
+            assertEquals(adapter.requests.get(0).getArgs(), Arrays.<Object>asList(1, "x"));
+            assertEquals(adapter.requests.get(1).getArgs(), Arrays.asList(null, null));
+            assertEquals(adapter.requests.get(2).getArgs(), Arrays.<Object>asList(2, "y"));
+            assertEquals(adapter.requests.get(3).getArgs(), Arrays.asList(null, null));
+        }
+    }
+
+    @Test
+    public void asyncExecution() throws Exception {
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), new CovenantProperties())) {
+            CovenantPreparedStatement statement =
+                (CovenantPreparedStatement) connection.prepareStatement("UPDATE t SET a = ?");
+            statement.setInt(1, 5);
+            assertEquals(statement.executeUpdateAsync().get(5, TimeUnit.SECONDS), Integer.valueOf(1));
+            assertEquals(adapter.requests.get(0).getArgs(), Arrays.<Object>asList(5));
+
+            adapter.response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+                "\"types\":[\"INTEGER\"],\"rows\":[[5],[6]]}}";
+            ResultSet resultSet = statement.executeQueryAsync("SELECT a FROM t").get(5, TimeUnit.SECONDS);
+            assertEquals(adapter.paths.get(1), "/v1/query");
+            assertTrue(resultSet.next());
+            assertEquals(resultSet.getInt(1), 5);
+            assertTrue(resultSet.next());
+            assertFalse(resultSet.next());
+
+            // dependent stages run on driver threads, not on the io dispatcher of the client
+            adapter.delayMillis = 200;
+            String thread = statement.executeQueryAsync("SELECT a FROM t")
+                .thenApply(result -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+            assertTrue(thread.startsWith("covenantsql-response-"), thread);
+            adapter.delayMillis = 0;
+
+            adapter.response = "{\"status\":\"no such table\",\"success\":false,\"data\":null}";
+            CompletableFuture<ResultSet> failed = statement.executeQueryAsync("SELECT a FROM x");
+            try {
+                failed.get(5, TimeUnit.SECONDS);
+                fail("query should fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SQLNonTransientException);
+            }
+        }
+    }
+
+    @Test
+    public void operationTimeoutAbortsRequest() throws Exception {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setOperationTimeout(200);
+        adapter.delayMillis = 2000;
+
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), properties)) {
+            Statement statement = connection.createStatement();
+            long start = System.nanoTime();
+            try {
+                statement.executeUpdate("UPDATE t SET a = 1");
+                fail("update should time out");
+            } catch (SQLTimeoutException ignored) {
+            }
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+
+            long deadline = Long.parseLong(adapter.headers.get(0).getFirst(CovenantStatementImpl.DEADLINE_HEADER));
+            assertTrue(deadline > System.currentTimeMillis() - 2000);
+
+            // query timeout takes precedence over the operation timeout
+            statement.setQueryTimeout(1);
+            adapter.delayMillis = 500;
+            assertEquals(statement.executeUpdate("UPDATE t SET a = 2"), 1);
+        }
+    }
+
+    @Test
+    public void cancelAbortsRequest() throws Exception {
+        adapter.delayMillis = 2000;
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), new CovenantProperties())) {
+            final Statement statement = connection.createStatement();
+            executor.schedule(() -> {
+                statement.cancel();
+                return null;
+            }, 200, TimeUnit.MILLISECONDS);
+
+            try {
+                statement.executeUpdate("UPDATE t SET a = 1");
+                fail("update should be cancelled");
+            } catch (SQLException e) {
+                assertEquals(e.getSQLState(), "HY008");
+            }
+
+            executor.schedule(() -> {
+                connection.abort(executor);
+                return null;
+            }, 200, TimeUnit.MILLISECONDS);
+            CompletableFuture<Integer> pending = ((CovenantStatement) connection.createStatement())
+                .executeUpdateAsync("UPDATE t SET a = 2");
+            try {
+                pending.get(5, TimeUnit.SECONDS);
+                fail("update should be aborted");
+            } catch (ExecutionException e) {
+                assertEquals(((SQLException) e.getCause()).getSQLState(), "HY008");
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertTrue(connection.isClosed());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void connectFailureFailsOver() throws Exception {
+        int deadPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            deadPort = socket.getLocalPort();
+        }
+        String url = "jdbc:covenantsql://127.0.0.1:" + deadPort + ",127.0.0.1:" + adapter.getPort() + "/db";
+
+        CovenantProperties properties = new CovenantProperties();
+        properties.setLoadBalance("ordered");
+
+        try (CovenantConnection connection = new CovenantDriver().connect(url, properties)) {
+            Statement statement = connection.createStatement();
+            assertEquals(statement.executeUpdate("UPDATE t SET a = 1"), 1);
+            assertEquals(((CovenantStatement) statement).executeUpdateAsync("UPDATE t SET a = 2")
+                .get(5, TimeUnit.SECONDS), Integer.valueOf(1));
+            assertEquals(adapter.requests.size(), 2);
+
+            List<CovenantEndpoint> endpoints = connection.getEndpoints();
+            assertEquals(endpoints.get(0).getPort(), deadPort);
+            assertFalse(endpoints.get(0).isAvailable());
+            assertEquals(endpoints.get(0).getFailureCount(), 1);
+            assertEquals(endpoints.get(1).getRequestCount(), 2);
+            assertEquals(endpoints.get(1).getInFlight(), 0);
+            assertTrue(endpoints.get(1).getLatency() > 0);
+
+            connection.setCatalog("other");
+            assertEquals(connection.getMetaData().getURL(),
+                "jdbc:covenantsql://127.0.0.1:" + deadPort + ",127.0.0.1:" + adapter.getPort() + "/other");
+            connection.setSchema("schema");
+            assertEquals(connection.getCatalog(), "schema");
+            assertEquals(connection.getMetaData().getURL(),
+                "jdbc:covenantsql://127.0.0.1:" + deadPort + ",127.0.0.1:" + adapter.getPort() + "/schema");
+        }
+    }
+
+    @Test
+    public void readsGoToReadHosts() throws Exception {
+        String rows = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+            "\"types\":[\"INTEGER\"],\"rows\":[[1]]}}";
+        CovenantProperties properties = new CovenantProperties();
+        properties.setReadYourWritesWindow(60 * 1000);
+
+        try (MockAdapter reader = new MockAdapter()) {
+            reader.response = rows;
+            properties.setReadHosts("127.0.0.1:" + reader.getPort());
+
+            try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), properties)) {
+                Statement statement = connection.createStatement();
+                assertTrue(statement.executeQuery("SELECT a FROM t").next());
+                assertEquals(reader.requests.size(), 1);
+                assertEquals(adapter.requests.size(), 0);
+
+                // reads follow the write for the read your writes window
+                assertEquals(statement.executeUpdate("UPDATE t SET a = 1"), 1);
+                adapter.response = rows;
+                assertTrue(statement.executeQuery("SELECT a FROM t").next());
+                assertEquals(reader.requests.size(), 1);
+                assertEquals(adapter.requests.size(), 2);
+
+                connection.setReadOnly(true);
+                assertTrue(connection.isReadOnly());
+                assertTrue(statement.executeQuery("SELECT a FROM t").next());
+                assertEquals(reader.requests.size(), 2);
+                try {
+                    statement.executeUpdate("UPDATE t SET a = 2");
+                    fail("read only connection should reject writes");
+                } catch (SQLException e) {
+                    assertEquals(e.getSQLState(), "25006");
+                }
+                assertEquals(adapter.requests.size(), 2);
+                assertEquals(connection.getEndpoints().size(), 2);
+            }
+        }
+    }
+
+    @Test
+    public void transientFailuresAreRetried() throws Exception {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setRetryInitialBackoff(10);
+
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), properties)) {
+            CovenantStatement statement = connection.createStatement();
+
+            // writes are not retried unless marked idempotent
+            adapter.unavailable.set(1);
+            try {
+                statement.executeUpdate("UPDATE t SET a = 1");
+                fail("update should fail");
+            } catch (SQLTransientConnectionException ignored) {
+            }
+            assertEquals(adapter.requests.size(), 1);
+
+            statement.setIdempotent(true);
+            adapter.unavailable.set(2);
+            assertEquals(statement.executeUpdate("UPDATE t SET a = 1"), 1);
+            assertEquals(adapter.requests.size(), 4);
+            assertEquals(connection.getEndpoints().get(0).getRetryCount(), 2);
+
+            // attempts are bounded by retry_max_attempts
+            adapter.unavailable.set(3);
+            try {
+                statement.executeUpdateAsync("UPDATE t SET a = 2").get(5, TimeUnit.SECONDS);
+                fail("update should fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SQLTransientConnectionException);
+            }
+            assertEquals(adapter.requests.size(), 7);
+
+            adapter.unavailable.set(1);
+            adapter.response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+                "\"types\":[\"INTEGER\"],\"rows\":[[5]]}}";
+            statement.setIdempotent(false);
+            assertTrue(statement.executeQueryAsync("SELECT a FROM t").get(5, TimeUnit.SECONDS).next());
+            assertEquals(adapter.requests.size(), 9);
+            assertEquals(connection.getEndpoints().get(0).getRetryCount(), 5);
+
+            // errors reported by the adapter are final
+            adapter.response = "{\"status\":\"no such table\",\"success\":false,\"data\":null}";
+            try {
+                statement.executeQuery("SELECT a FROM x");
+                fail("query should fail");
+            } catch (SQLNonTransientException ignored) {
+            }
+            assertEquals(adapter.requests.size(), 10);
+        }
+    }
+
+    @Test
+    public void streamedResultIsClosedOnReexecute() throws Exception {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setStreamResults(true);
+        adapter.response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+            "\"types\":[\"INTEGER\"],\"rows\":[[5],[6]]}}";
+
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), properties)) {
+            CovenantStatement statement = connection.createStatement();
+            ResultSet first = statement.executeQuery("SELECT a FROM t");
+            assertTrue(first.next());
+
+            ResultSet second = statement.executeQuery("SELECT a FROM t");
+            assertTrue(first.isClosed());
+            assertTrue(second.next());
+            assertEquals(second.getInt(1), 5);
+            assertTrue(second.next());
+            assertFalse(second.next());
+            assertEquals(adapter.requests.size(), 2);
+        }
+    }
+
+    @Test(timeOut = 20000)
+    public void streamedResultIsClosedBeforeUpdates() throws Exception {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setStreamResults(true);
+        properties.setMaxConnectionsPerRoute(1);
+        properties.setHealthCheckInterval(0);
+        StringBuilder rows = new StringBuilder("[0]");
+        for (int i = 1; i < 100000; i++) {
+            rows.append(",[").append(i).append(']');
+        }
+        String query = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+            "\"types\":[\"INTEGER\"],\"rows\":[" + rows + "]}}";
+        String exec = adapter.response;
+
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), properties)) {
+            CovenantStatement statement = connection.createStatement();
+
+            // the only pooled connection is held by the stream until it is closed
+            adapter.response = query;
+            ResultSet first = statement.executeQuery("SELECT a FROM t");
+            assertTrue(first.next());
+            adapter.response = exec;
+            assertEquals(statement.executeUpdate("DELETE FROM t"), 1);
+            assertTrue(first.isClosed());
+
+            adapter.response = query;
+            ResultSet second = statement.executeQuery("SELECT a FROM t");
+            assertTrue(second.next());
+            adapter.response = exec;
+            statement.addBatch("DELETE FROM t");
+            statement.addBatch("DELETE FROM u");
+            statement.executeBatch();
+            assertTrue(second.isClosed());
+
+            adapter.response = query;
+            ResultSet third = statement.executeQuery("SELECT a FROM t");
+            assertTrue(third.next());
+            adapter.response = exec;
+            assertFalse(statement.execute("DELETE FROM t"));
+            assertTrue(third.isClosed());
+            assertEquals(adapter.requests.size(), 6);
+        }
+    }
+
+    @Test
+    public void slowQueriesAreHedged() throws Exception {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setHedgeReads(true);
+        properties.setHedgeBudget(100);
+        adapter.response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+            "\"types\":[\"INTEGER\"],\"rows\":[[5]]}}";
+
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), properties)) {
+            CovenantStatement statement = connection.createStatement();
+            assertTrue(statement.isHedged());
+
+            // no hedging until enough latency samples are known, later queries may be hedged if they are slow
+            for (int i = 0; i < 16; i++) {
+                assertTrue(statement.executeQuery("SELECT a FROM t").next());
+            }
+            assertEquals(adapter.requests.size(), 16);
+
+            adapter.stalled.set(1);
+            long started = System.nanoTime();
+            assertTrue(statement.executeQuery("SELECT a FROM t").next());
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 1500);
+            assertEquals(adapter.requests.size(), 18);
+
+            // writes are never hedged
+            adapter.stalled.set(1);
+            statement.executeUpdate("UPDATE t SET a = 1");
+            assertEquals(adapter.requests.size(), 19);
+
+            statement.setHedged(false);
+            adapter.stalled.set(1);
+            started = System.nanoTime();
+            assertTrue(statement.executeQuery("SELECT a FROM t").next());
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) >= 1500);
+            assertEquals(adapter.requests.size(), 20);
+        }
+    }
+
+    @Test
+    public void identicalQueriesAreCoalesced() throws Exception {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setCoalesceReads(true);
+        adapter.response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+            "\"types\":[\"INTEGER\"],\"rows\":[[5]]}}";
+        adapter.delayMillis = 500;
+
+        try (CovenantConnection first = new CovenantDriver().connect(adapter.getUrl("db"), properties);
+             CovenantConnection second = new CovenantDriver().connect(adapter.getUrl("db"), properties)) {
+            List<CompletableFuture<ResultSet>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                CovenantConnection connection = i % 2 == 0 ? first : second;
+                results.add(connection.createStatement().executeQueryAsync("SELECT a FROM t WHERE id = 1"));
+            }
+            CompletableFuture<ResultSet> other = first.createStatement().executeQueryAsync("SELECT a FROM t WHERE id = 2");
+
+            for (CompletableFuture<ResultSet> result : results) {
+                ResultSet resultSet = result.get(5, TimeUnit.SECONDS);
+                assertTrue(resultSet.next());
+                assertEquals(resultSet.getInt(1), 5);
+                assertFalse(resultSet.next());
+            }
+            assertTrue(other.get(5, TimeUnit.SECONDS).next());
+            assertEquals(adapter.requests.size(), 2);
+
+            // a caller cancelled while waiting does not affect the shared request
+            CovenantStatement cancelled = first.createStatement();
+            CompletableFuture<ResultSet> waiting = second.createStatement().executeQueryAsync("SELECT a FROM t");
+            CompletableFuture<ResultSet> dropped = cancelled.executeQueryAsync("SELECT a FROM t");
+            cancelled.cancel();
+            assertTrue(waiting.get(5, TimeUnit.SECONDS).next());
+            assertTrue(dropped.isCompletedExceptionally());
+            assertEquals(adapter.requests.size(), 3);
+
+            // queries to different databases are never shared, even from a statement created before setCatalog
+            CovenantStatement switched = second.createStatement();
+            second.setCatalog("other");
+            CompletableFuture<ResultSet> inDb = first.createStatement().executeQueryAsync("SELECT a FROM t");
+            CompletableFuture<ResultSet> inOther = switched.executeQueryAsync("SELECT a FROM t");
+            assertTrue(inDb.get(5, TimeUnit.SECONDS).next());
+            assertTrue(inOther.get(5, TimeUnit.SECONDS).next());
+            assertEquals(adapter.requests.size(), 5);
+            assertTrue(adapter.requests.get(3).getDatabase().equals("other")
+                || adapter.requests.get(4).getDatabase().equals("other"));
+        }
+    }
+
+    @Test
+    public void resultsAreCached() throws Exception {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setResultCacheSize(1024 * 1024);
+        adapter.response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+            "\"types\":[\"INTEGER\"],\"rows\":[[5]]}}";
+
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), properties)) {
+            CovenantStatement statement = connection.createStatement();
+            String hinted = "SELECT /*+ cache_ttl=60000 */ a FROM t WHERE id = 1";
+
+            for (int i = 0; i < 3; i++) {
+                ResultSet resultSet = statement.executeQuery(hinted);
+                assertTrue(resultSet.next());
+                assertEquals(resultSet.getInt(1), 5);
+            }
+            assertTrue(statement.executeQueryAsync(hinted).get(5, TimeUnit.SECONDS).next());
+            assertEquals(adapter.requests.size(), 1);
+
+            // queries without hint are not cached by default
+            statement.executeQuery("SELECT a FROM t WHERE id = 1");
+            statement.executeQuery("SELECT a FROM t WHERE id = 1");
+            assertEquals(adapter.requests.size(), 3);
+
+            // writes to other tables keep the entry, writes to the table drop it
+            statement.executeUpdate("UPDATE u SET a = 1");
+            statement.executeQuery(hinted);
+            assertEquals(adapter.requests.size(), 4);
+            statement.executeUpdateAsync("UPDATE t SET a = 1").get(5, TimeUnit.SECONDS);
+            statement.executeQuery(hinted);
+            assertEquals(adapter.requests.size(), 6);
+            statement.executeQuery(hinted);
+            assertEquals(adapter.requests.size(), 6);
+        }
+    }
+
+    @Test
+    public void cachedResultsFollowCatalog() throws Exception {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setResultCacheSize(1024 * 1024);
+        adapter.response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+            "\"types\":[\"INTEGER\"],\"rows\":[[5]]}}";
+
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), properties)) {
+            CovenantStatement statement = connection.createStatement();
+            String hinted = "SELECT /*+ cache_ttl=60000 */ a FROM t";
+
+            statement.executeQuery(hinted);
+            connection.setCatalog("other");
+            // the statement was created before the switch, its results belong to the new database now
+            statement.executeQuery(hinted);
+            statement.executeQuery(hinted);
+            assertEquals(adapter.requests.size(), 2);
+            assertEquals(adapter.requests.get(1).getDatabase(), "other");
+
+            statement.executeUpdate("UPDATE t SET a = 1");
+            statement.executeQuery(hinted);
+            assertEquals(adapter.requests.size(), 4);
+
+            // the write to the other database kept the entry of the first one
+            connection.setCatalog("db");
+            statement.executeQuery(hinted);
+            assertEquals(adapter.requests.size(), 4);
+        }
+    }
+
+    @Test
+    public void cachedResultsFollowClientIdentity() throws Exception {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setResultCacheSize(1024 * 1024);
+        // not used without ssl, but a different certificate all the same
+        CovenantProperties other = new CovenantProperties(properties);
+        other.setKeyPath("other.key");
+        other.setCertPath("other.pem");
+        adapter.response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+            "\"types\":[\"INTEGER\"],\"rows\":[[5]]}}";
+        String hinted = "SELECT /*+ cache_ttl=60000 */ a FROM t";
+
+        try (CovenantConnection first = new CovenantDriver().connect(adapter.getUrl("db"), properties);
+             CovenantConnection second = new CovenantDriver().connect(adapter.getUrl("db"), other)) {
+            first.createStatement().executeQuery(hinted);
+            first.createStatement().executeQuery(hinted);
+            assertEquals(adapter.requests.size(), 1);
+
+            second.createStatement().executeQuery(hinted);
+            second.createStatement().executeQuery(hinted);
+            assertEquals(adapter.requests.size(), 2);
+
+            // a write through one identity changes the data every identity reads
+            second.createStatement().executeUpdate("UPDATE t SET a = 1");
+            first.createStatement().executeQuery(hinted);
+            assertEquals(adapter.requests.size(), 4);
+        }
+    }
+
+    @Test
+    public void diskCachedResultsAreRevalidated() throws Exception {
+        Path written = Files.createTempDirectory("cql-cache");
+        CovenantProperties properties = new CovenantProperties();
+        properties.setResultCacheSize(1024 * 1024);
+        properties.setResultCacheDir(written.toString());
+        adapter.response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+            "\"types\":[\"INTEGER\"],\"rows\":[[5]]}}";
+        String hinted = "SELECT /*+ cache_ttl=60000 */ a FROM t";
+
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), properties)) {
+            assertTrue(connection.createStatement().executeQuery(hinted).next());
+            assertEquals(adapter.requests.size(), 1);
+        }
+
+        // a copy of the directory stands in for the cache left by a previous run
+        Path copied = Files.createTempDirectory("cql-cache");
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(written)) {
+            for (Path file : files) {
+                Files.copy(file, copied.resolve(file.getFileName()));
+            }
+        }
+        properties.setResultCacheDir(copied.toString());
+
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), properties)) {
+            CovenantStatement statement = connection.createStatement();
+            statement.executeUpdate("UPDATE t SET a = 6");
+            adapter.response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+                "\"types\":[\"INTEGER\"],\"rows\":[[6]]}}";
+
+            // served from the copied directory, then refreshed in the background
+            ResultSet resultSet = statement.executeQuery(hinted);
+            assertTrue(resultSet.next());
+            assertEquals(resultSet.getInt(1), 5);
+            for (int i = 0; i < 100 && adapter.requests.size() < 3; i++) {
+                Thread.sleep(50);
+            }
+            assertEquals(adapter.requests.size(), 3);
+            for (int i = 0; i < 100; i++) {
+                resultSet = statement.executeQuery(hinted);
+                assertTrue(resultSet.next());
+                if (resultSet.getInt(1) == 6) {
+                    break;
+                }
+                Thread.sleep(50);
+            }
+            assertEquals(resultSet.getInt(1), 6);
+            assertEquals(adapter.requests.size(), 3);
+        }
+    }
+
+    @Test
+    public void preparedStatementsAreParsedOnce() throws Exception {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setStatementCacheSize(1);
+        adapter.response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+            "\"types\":[\"INTEGER\"],\"rows\":[[5]]}}";
+
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), properties)) {
+            CovenantConnectionImpl impl = connection.unwrap(CovenantConnectionImpl.class);
+            String sql = "SELECT a FROM t WHERE id = ?";
+            assertSame(impl.parse(sql), impl.parse(sql));
+            impl.parse("SELECT 2");
+            assertNotSame(impl.parse(sql), impl.parse("SELECT 2"));
+
+            for (int i = 0; i < 2; i++) {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setInt(1, i);
+                ResultSet resultSet = statement.executeQuery();
+                assertTrue(resultSet.next());
+                assertEquals(resultSet.getInt(1), 5);
+            }
+            assertEquals(adapter.requests.size(), 2);
+            assertEquals(adapter.requests.get(1).getQuery(), sql);
+            assertEquals(adapter.requests.get(1).getDatabase(), "db");
+            assertEquals(adapter.requests.get(1).getArgs(), Arrays.asList(1));
+        }
+    }
+
+    @Test
+    public void readOnlyStatementsAreQueries() throws Exception {
+        adapter.response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"]," +
+            "\"types\":[\"INTEGER\"],\"rows\":[[5]]}}";
+
+        try (CovenantConnection connection = new CovenantDriver().connect(adapter.getUrl("db"), new CovenantProperties())) {
+            Statement statement = connection.createStatement();
+            assertTrue(statement.execute("/* report */ WITH x AS (SELECT a FROM t) SELECT a FROM x"));
+            assertTrue(statement.execute("EXPLAIN QUERY PLAN SELECT a FROM t"));
+            assertFalse(statement.execute("WITH x AS (SELECT a FROM t) DELETE FROM u WHERE a IN x"));
+            assertEquals(adapter.paths, Arrays.asList("/v1/query", "/v1/query", "/v1/exec"));
+        }
+    }
+}
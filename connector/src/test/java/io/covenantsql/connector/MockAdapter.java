@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.covenantsql.connector.response.beans.CovenantRequestBean;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal stand-in for a CovenantSQL adapter, records requests and answers with a fixed response.
+ */
+class MockAdapter implements AutoCloseable {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    final List<String> paths = new CopyOnWriteArrayList<>();
+    final List<CovenantRequestBean> requests = new CopyOnWriteArrayList<>();
+    final List<Headers> headers = new CopyOnWriteArrayList<>();
+    private final HttpServer server;
+    volatile String response = "{\"status\":\"ok\",\"success\":true,\"data\":{\"affected_rows\":1,\"last_insert_id\":1}}";
+    volatile long delayMillis;
+    // number of upcoming requests answered with 503
+    final AtomicInteger unavailable = new AtomicInteger();
+    // number of upcoming requests delayed by two seconds
+    final AtomicInteger stalled = new AtomicInteger();
+
+    MockAdapter() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                CovenantRequestBean request = objectMapper.readValue(exchange.getRequestBody(), CovenantRequestBean.class);
+                if (!"SELECT 1".equals(request.getQuery())) {
+                    // health probes are not recorded
+                    paths.add(exchange.getRequestURI().getPath());
+                    requests.add(request);
+                    headers.add(exchange.getRequestHeaders());
+                }
+
+                long delay = delayMillis;
+                if (!"SELECT 1".equals(request.getQuery()) && stalled.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    delay = 2000;
+                }
+                if (delay > 0) {
+                    try {
+                        Thread.sleep(delay);
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+
+                if (!"SELECT 1".equals(request.getQuery())
+                    && unavailable.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    exchange.sendResponseHeaders(503, -1);
+                    exchange.close();
+                    return;
+                }
+
+                byte[] body = response.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                } catch (IOException ignored) {
+                    // client gave up on the request
+                }
+            }
+        });
+        server.start();
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    String getUrl(String database) {
+        return "jdbc:covenantsql://127.0.0.1:" + getPort() + "/" + database;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
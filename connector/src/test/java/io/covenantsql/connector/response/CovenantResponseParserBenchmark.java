@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.covenantsql.connector.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.covenantsql.connector.response.beans.CovenantResponseBean;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares {@link CovenantResponseParser} with decoding through {@code objectMapper.readValue}. Not part of the
+ * test suite, run its main method on the test classpath, optionally with the number of rows as argument.
+ */
+public class CovenantResponseParserBenchmark {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        byte[] json = response(rows);
+        System.out.printf("%d rows, %d bytes%n", rows, json.length);
+
+        for (int round = 0; round < 5; round++) {
+            long mapper = time(json, false);
+            long parser = time(json, true);
+            System.out.printf("readValue %.2f ms, parser %.2f ms, %.1fx%n", mapper / 1e6, parser / 1e6,
+                (double) mapper / parser);
+        }
+    }
+
+    private static long time(byte[] json, boolean parser) throws Exception {
+        int iterations = 50;
+        long rows = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            CovenantResponseBean bean = parser ? CovenantResponseParser.parse(json, objectMapper)
+                : objectMapper.readValue(json, CovenantResponseBean.class);
+            rows += CovenantResultData.decode(bean.getData()).getRowCount();
+        }
+        if (rows == 0) {
+            throw new IllegalStateException();
+        }
+        return (System.nanoTime() - started) / iterations;
+    }
+
+    private static byte[] response(int rows) {
+        StringBuilder builder = new StringBuilder("{\"status\":\"ok\",\"success\":true,\"data\":{")
+            .append("\"columns\":[\"id\",\"score\",\"name\",\"created\"],")
+            .append("\"types\":[\"INTEGER\",\"REAL\",\"TEXT\",\"TIMESTAMP\"],\"rows\":[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append('[').append(i * 7919L).append(',').append(i / 8.0).append(",\"user ").append(i)
+                .append("\",\"2019-03-04 05:06:07\"]");
+        }
+        return builder.append("]}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.covenantsql.connector.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.covenantsql.connector.response.beans.CovenantResponseBean;
+import io.covenantsql.connector.response.column.Column;
+import io.covenantsql.connector.response.column.RawColumn;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+import static org.testng.Assert.*;
+
+public class CovenantResponseParserTests {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static CovenantResponseBean parse(String json) throws IOException {
+        return CovenantResponseParser.parse(json.getBytes(StandardCharsets.UTF_8), objectMapper);
+    }
+
+    /**
+     * Parse with the scanner and with the object mapper, the decoded results must be the same.
+     */
+    private static CovenantResultData assertSameAsMapper(String json) throws Exception {
+        CovenantResponseBean fast = parse(json);
+        CovenantResponseBean slow = objectMapper.readValue(json, CovenantResponseBean.class);
+        assertEquals(fast.getStatus(), slow.getStatus());
+        assertEquals(fast.isSuccess(), slow.isSuccess());
+        assertEquals(fast.getData().getAffectedRows(), slow.getData().getAffectedRows());
+        assertEquals(fast.getData().getLastInsertId(), slow.getData().getLastInsertId());
+
+        CovenantResultData expected = CovenantResultData.decode(slow.getData());
+        CovenantResultData actual = CovenantResultData.decode(fast.getData());
+        assertEquals(actual.getColumnNames(), expected.getColumnNames());
+        assertEquals(actual.getTypes(), expected.getTypes());
+        assertEquals(actual.getRowCount(), expected.getRowCount());
+        for (int i = 0; i < expected.getColumnNames().length; i++) {
+            assertEquals(actual.getColumn(i).getClass(), expected.getColumn(i).getClass());
+            for (int r = 0; r < expected.getRowCount(); r++) {
+                assertEquals(actual.getColumn(i).get(r), expected.getColumn(i).get(r));
+            }
+        }
+        // rows are still available to row oriented consumers
+        int rows = fast.getData().getRows() != null ? fast.getData().getRows().size() : 0;
+        assertEquals(rows, expected.getRowCount());
+        return actual;
+    }
+
+    @Test
+    public void decodeColumns() throws Exception {
+        String json = "{\"status\":\"ok\",\"success\":true,\"data\":{"
+            + "\"columns\":[\"i\",\"r\",\"t\",\"o\"],\"types\":[\"INTEGER\",\"REAL\",\"TEXT\",\"\"],\"rows\":["
+            + "[1, 0.1, \"a\\\"\\u00e9\\n\", null],"
+            + "[-9223372036854775808, -0.0, \"中😀\", 9223372036854775808],"
+            + "[9223372036854775807, 1e300, null, [1, {\"a\": 2.5}]],"
+            + "[null, 3, \"\", true],"
+            + "[0, 123456789.123456789, \"x\", 1.5E-5]]}}";
+        assertNotNull(parse(json).getData().getDecoded());
+
+        CovenantResultData data = assertSameAsMapper(json);
+        assertEquals(data.getRowCount(), 5);
+        assertEquals(data.getColumn(1).get(1), -0.0);
+    }
+
+    @Test
+    public void fieldsInAnyOrder() throws Exception {
+        assertSameAsMapper(" {\"data\" : {\"rows\":[[1,\"x\"],[2,\"y\"]],\"extra\":{\"a\":[1,2]},\"types\":[\"INT\","
+            + "\"TEXT\"],\"columns\":[\"a\",\"b\"],\"affected_rows\":2,\"last_insert_id\":7},\"success\":true,"
+            + "\"status\":\"ok\"}\n");
+        assertSameAsMapper("{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"],\"types\":[\"INT\"],"
+            + "\"rows\":null}}");
+        assertSameAsMapper("{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"],\"types\":[\"INT\"],"
+            + "\"rows\":[[7],[\"n/a\"]]}}");
+    }
+
+    @Test
+    public void otherResponsesFallBackToMapper() throws Exception {
+        CovenantResponseBean failed = parse("{\"status\":\"no such table\",\"success\":false,\"data\":null}");
+        assertFalse(failed.isSuccess());
+        assertEquals(failed.getStatus(), "no such table");
+        assertNull(failed.getData());
+
+        CovenantResponseBean mismatched = parse("{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"a\"],"
+            + "\"types\":[\"INT\"],\"rows\":[[1,2]]}}");
+        assertNull(mismatched.getData().getDecoded());
+        try {
+            CovenantResultData.decode(mismatched.getData());
+            fail("row width should be checked");
+        } catch (SQLException expected) {
+        }
+
+        for (String malformed : new String[]{"", "{\"status\":\"ok\"", "{\"status\":\"ok\",\"unknown\":1}"}) {
+            try {
+                parse(malformed);
+                fail("malformed response accepted: " + malformed);
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void lazyColumnsDecodeOnAccess() throws Exception {
+        String json = "{\"status\":\"ok\",\"success\":true,\"data\":{\"columns\":[\"i\",\"r\",\"t\",\"o\"],"
+            + "\"types\":[\"INTEGER\",\"REAL\",\"TEXT\",\"\"],\"rows\":["
+            + "[1, 0.1, \"a\\\"\\u00e9\", null],"
+            + "[-9223372036854775808, 3, \"中😀\", 9223372036854775808],"
+            + "[null, 123456789.123456789, null, [1, {\"a\": 2.5}]]]}}";
+        CovenantResultData eager = CovenantResultData.decode(parse(json).getData());
+        CovenantResultData lazy = CovenantResultData.decode(
+            CovenantResponseParser.parse(json.getBytes(StandardCharsets.UTF_8), objectMapper, true).getData());
+
+        long weight = lazy.getWeight();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(lazy.getColumn(i) instanceof RawColumn);
+            for (int r = 0; r < 3; r++) {
+                assertEquals(lazy.getColumn(i).get(r), eager.getColumn(i).get(r));
+                assertEquals(lazy.getColumn(i).isNull(r), eager.getColumn(i).isNull(r));
+            }
+        }
+        // integers of floating point columns keep the text the adapter sent
+        assertEquals(lazy.getColumn(1).getString(1), "3");
+        assertEquals(eager.getColumn(1).getString(1), "3");
+        assertEquals(lazy.getColumn(1).getString(0), "0.1");
+        // memoized
+        assertSame(lazy.getColumn(2).get(1), lazy.getColumn(2).get(1));
+        // reading cells does not grow the weight the result was cached with
+        assertEquals(lazy.getWeight(), weight);
+        for (int i = 0; i < 4; i++) {
+            long decoded = 0;
+            for (int r = 0; r < 3; r++) {
+                decoded += Column.weigh(lazy.getColumn(i).get(r));
+            }
+            assertTrue(lazy.getColumn(i).getWeight() > decoded);
+        }
+
+        CovenantResultSet resultSet = new CovenantResultSet(lazy, "db", "t", null);
+        assertTrue(resultSet.next());
+        assertEquals(resultSet.getBigDecimal(2), new BigDecimal("0.1"));
+        assertTrue(resultSet.next());
+        assertEquals(resultSet.getLong(1), Long.MIN_VALUE);
+        assertEquals(resultSet.getBigDecimal(4), new BigDecimal("9223372036854775808"));
+        assertTrue(resultSet.next());
+        assertEquals(resultSet.getBigDecimal(2), new BigDecimal("123456789.123456789"));
+        assertEquals(resultSet.getBigDecimal(1), BigDecimal.ZERO);
+        assertTrue(resultSet.wasNull());
+    }
+}
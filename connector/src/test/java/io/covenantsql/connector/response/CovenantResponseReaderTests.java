@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+import static org.testng.Assert.*;
+
+public class CovenantResponseReaderTests {
+    private static CovenantResponseReader reader(String json) throws Exception {
+        return new CovenantResponseReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    @Test
+    public void readRowsBeforeTrailingFields() throws Exception {
+        // keys sorted as the adapter encodes maps: rows come before types and success
+        CovenantResponseReader reader = reader("{\"data\":{\"columns\":[\"id\",\"name\"]," +
+            "\"rows\":[[1,\"a\"],[2,null]],\"types\":[\"INTEGER\",\"TEXT\"]},\"status\":\"ok\",\"success\":true}");
+
+        assertTrue(reader.isSuccess());
+        assertEquals(reader.getColumns(), Arrays.asList("id", "name"));
+        assertNull(reader.getTypes());
+
+        assertEquals(reader.nextRow(), new Object[]{1, "a"});
+        assertEquals(reader.nextRow(), new Object[]{2, null});
+        assertNull(reader.nextRow());
+
+        assertTrue(reader.isFinished());
+        assertEquals(reader.getTypes(), Arrays.asList("INTEGER", "TEXT"));
+        assertEquals(reader.getStatus(), "ok");
+        reader.close();
+    }
+
+    @Test
+    public void readFailure() throws Exception {
+        CovenantResponseReader reader = reader("{\"data\":null,\"status\":\"no such table\",\"success\":false}");
+
+        assertFalse(reader.isSuccess());
+        assertEquals(reader.getStatus(), "no such table");
+        assertNull(reader.nextRow());
+        reader.close();
+    }
+
+    @Test
+    public void streamResultSet() throws Exception {
+        CovenantResponseReader reader = reader("{\"success\":true,\"status\":\"ok\",\"data\":{" +
+            "\"types\":[\"INTEGER\",\"REAL\"],\"columns\":[\"id\",\"score\"],\"rows\":[[1,1.5],[2,2.5],[3,3.5]]}}");
+        CovenantResultSet resultSet = new CovenantResultSet(reader, "db", "t", null);
+        resultSet.setMaxRows(2);
+
+        assertTrue(resultSet.next());
+        assertEquals(resultSet.getLong("id"), 1L);
+        assertEquals(resultSet.getDouble(2), 1.5);
+        assertTrue(resultSet.next());
+        assertEquals(resultSet.getObject(1), 2L);
+        assertFalse(resultSet.next());
+
+        assertEquals(resultSet.getType(), ResultSet.TYPE_FORWARD_ONLY);
+        resultSet.close();
+        assertTrue(resultSet.isClosed());
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response;
+
+import io.covenantsql.connector.response.beans.CovenantResponseBean;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class CovenantResultSetTests {
+    private static CovenantResponseBean.DataBean bean(List<String> columns, List<String> types, Object[]... rows) {
+        CovenantResponseBean.DataBean bean = new CovenantResponseBean.DataBean();
+        bean.setColumns(columns);
+        bean.setTypes(types);
+        List<List<Object>> rowList = new ArrayList<>();
+        for (Object[] row : rows) {
+            rowList.add(Arrays.asList(row));
+        }
+        bean.setRows(rowList);
+        return bean;
+    }
+
+    @Test
+    public void columnAccess() throws Exception {
+        CovenantResultSet resultSet = new CovenantResultSet(bean(
+            Arrays.asList("id", "score", "name"),
+            Arrays.asList("INTEGER", "REAL", "TEXT"),
+            new Object[]{1, 1.5, "a"},
+            new Object[]{null, 2.5, null},
+            new Object[]{3000000000L, 3, "c"}), "db", "t", null);
+
+        assertEquals(resultSet.getLongColumn(1), new long[]{1, 0, 3000000000L});
+        assertEquals(resultSet.getDoubleColumn(2), new double[]{1.5, 2.5, 3.0});
+        assertEquals(resultSet.getStringColumn(3), new String[]{"a", null, "c"});
+
+        BitSet nulls = new BitSet();
+        nulls.set(1);
+        assertEquals(resultSet.getNullColumn(1), nulls);
+
+        resultSet.setMaxRows(2);
+        assertEquals(resultSet.getLongColumn(1).length, 2);
+
+        assertTrue(resultSet.next());
+        assertEquals(resultSet.getObject(1), 1L);
+        assertEquals(resultSet.getString("name"), "a");
+        assertTrue(resultSet.next());
+        assertEquals(resultSet.getLong(1), 0L);
+        assertTrue(resultSet.wasNull());
+        assertNull(resultSet.getString(3));
+        assertFalse(resultSet.next());
+    }
+
+    @Test
+    public void declaredTypeMatrix() throws Exception {
+        CovenantResultSet resultSet = new CovenantResultSet(bean(
+            Arrays.asList("b", "i", "r", "t", "x", "d", "ts", "n", "u"),
+            Arrays.asList("BOOLEAN", "INTEGER", "REAL", "TEXT", "BLOB", "DATE", "TIMESTAMP", "DECIMAL(10,2)", null),
+            new Object[]{true, 300, 2.5, "12", "raw", "2019-01-02", "2019-01-02 03:04:05", 1.25, 7},
+            new Object[]{false, -2, 0.0, "0", "", "2019-01-03", "2019-01-03 00:00:00", 0, "v"}), "db", "t", null);
+
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        assertEquals(metaData.getColumnType(1), Types.BOOLEAN);
+        assertEquals(metaData.getColumnType(2), Types.BIGINT);
+        assertEquals(metaData.getColumnType(3), Types.DOUBLE);
+        assertEquals(metaData.getColumnType(4), Types.VARCHAR);
+        assertEquals(metaData.getColumnType(5), Types.BLOB);
+        assertEquals(metaData.getColumnType(6), Types.DATE);
+        assertEquals(metaData.getColumnType(7), Types.TIMESTAMP);
+        assertEquals(metaData.getColumnType(8), Types.DECIMAL);
+        assertEquals(metaData.getColumnTypeName(2), "INTEGER");
+
+        assertTrue(resultSet.next());
+        assertEquals(resultSet.getObject(1), true);
+        assertEquals(resultSet.getObject(2), 300L);
+        assertEquals(resultSet.getObject(3), 2.5);
+        assertEquals(resultSet.getObject(4), "12");
+        assertEquals(resultSet.getObject(5), "raw");
+        assertEquals(resultSet.getObject(6), Date.valueOf("2019-01-02"));
+        assertEquals(resultSet.getObject(7), Timestamp.valueOf("2019-01-02 03:04:05"));
+        assertEquals(resultSet.getObject(8), new BigDecimal("1.25"));
+        assertEquals(resultSet.getObject(9), 7);
+
+        // primitive getters read the column storage, with the conversions of the boxed path
+        assertTrue(resultSet.getBoolean(2));
+        assertEquals(resultSet.getInt(2), 300);
+        assertEquals(resultSet.getShort(2), (short) 300);
+        assertEquals(resultSet.getByte(2), (byte) 300);
+        assertEquals(resultSet.getInt(3), 2);
+        assertEquals(resultSet.getFloat(3), 2.5f);
+        assertTrue(resultSet.getBoolean(3));
+        assertEquals(resultSet.getInt(4), 12);
+        assertEquals(resultSet.getFloat(4), 12f);
+        assertFalse(resultSet.getBoolean(4));
+        assertEquals(resultSet.getInt(9), 7);
+        assertFalse(resultSet.wasNull());
+
+        assertTrue(resultSet.next());
+        assertEquals(resultSet.getObject(1), false);
+        assertFalse(resultSet.getBoolean(2));
+        assertEquals(resultSet.getInt(2), -2);
+        assertFalse(resultSet.getBoolean(3));
+        assertEquals(resultSet.getString(9), "v");
+        assertFalse(resultSet.next());
+    }
+
+    @Test
+    public void nullCellsReadAsZero() throws Exception {
+        CovenantResultSet resultSet = new CovenantResultSet(bean(
+            Arrays.asList("i", "r", "t"), Arrays.asList("INTEGER", "REAL", "TEXT"),
+            new Object[]{null, null, null}), "db", "t", null);
+
+        assertTrue(resultSet.next());
+        assertEquals(resultSet.getInt(1), 0);
+        assertTrue(resultSet.wasNull());
+        assertEquals(resultSet.getShort(1), (short) 0);
+        assertEquals(resultSet.getByte(1), (byte) 0);
+        assertEquals(resultSet.getFloat(2), 0f);
+        assertTrue(resultSet.wasNull());
+        assertFalse(resultSet.getBoolean(2));
+        assertEquals(resultSet.getInt(3), 0);
+        assertTrue(resultSet.wasNull());
+    }
+
+    @Test
+    public void integersOfFloatingColumnsKeepTheirText() throws Exception {
+        CovenantResultSet resultSet = new CovenantResultSet(bean(
+            Arrays.asList("r"), Arrays.asList("REAL"),
+            new Object[]{1}, new Object[]{100000000000000000L}, new Object[]{1.0}, new Object[]{1e20}),
+            "db", "t", null);
+
+        // beyond 2^53 the integer would be rounded, the column keeps the decoded values instead
+        assertEquals(resultSet.getStringColumn(1), new String[]{"1", "100000000000000000", "1.0", "1.0E20"});
+
+        resultSet = new CovenantResultSet(bean(
+            Arrays.asList("r"), Arrays.asList("REAL"),
+            new Object[]{-3}, new Object[]{2.5}), "db", "t", null);
+        assertEquals(resultSet.getDoubleColumn(1), new double[]{-3, 2.5});
+        assertEquals(resultSet.getStringColumn(1), new String[]{"-3", "2.5"});
+        assertTrue(resultSet.next());
+        assertEquals(resultSet.getString(1), "-3");
+        assertEquals(resultSet.getDouble(1), -3.0);
+    }
+
+    @Test
+    public void mixedValuesDemoteColumn() throws Exception {
+        // dynamic typing: text stored in an integer column
+        CovenantResultSet resultSet = new CovenantResultSet(bean(
+            Arrays.asList("v"), Arrays.asList("INT"),
+            new Object[]{7}, new Object[]{"n/a"}), "db", "t", null);
+
+        assertEquals(resultSet.getStringColumn(1), new String[]{"7", "n/a"});
+        assertTrue(resultSet.next());
+        assertEquals(resultSet.getInt(1), 7);
+        assertTrue(resultSet.next());
+        assertEquals(resultSet.getString(1), "n/a");
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.response;
+
+import io.covenantsql.connector.util.TypeUtils;
+import org.testng.annotations.Test;
+
+import java.sql.Types;
+
+import static org.testng.Assert.*;
+
+public class ValueConverterTests {
+    private static ValueConverter forDeclared(String declaredType) {
+        return ValueConverter.forSQLType(TypeUtils.toSQLType(declaredType));
+    }
+
+    @Test
+    public void declaredTypes() {
+        assertEquals(forDeclared("BOOLEAN"), ValueConverter.BOOLEAN);
+        assertEquals(forDeclared("INTEGER"), ValueConverter.LONG);
+        assertEquals(forDeclared("unsigned big int"), ValueConverter.LONG);
+        assertEquals(forDeclared("REAL"), ValueConverter.DOUBLE);
+        assertEquals(forDeclared("DOUBLE PRECISION"), ValueConverter.DOUBLE);
+        assertEquals(forDeclared("VARCHAR(16)"), ValueConverter.STRING);
+        assertEquals(forDeclared("BLOB"), ValueConverter.STRING);
+        assertEquals(forDeclared(""), ValueConverter.STRING);
+        assertEquals(forDeclared("DATE"), ValueConverter.DATE);
+        assertEquals(forDeclared("DATETIME"), ValueConverter.TIMESTAMP);
+        assertEquals(forDeclared("TIME"), ValueConverter.TIME);
+        assertEquals(forDeclared("DECIMAL(10,2)"), ValueConverter.DECIMAL);
+        assertEquals(forDeclared("NUMERIC"), ValueConverter.DETECT);
+        assertEquals(forDeclared(null), ValueConverter.DETECT);
+    }
+
+    @Test
+    public void sqlTypes() {
+        assertEquals(ValueConverter.forSQLType(Types.BIT), ValueConverter.BOOLEAN);
+        assertEquals(ValueConverter.forSQLType(Types.TINYINT), ValueConverter.INTEGER);
+        assertEquals(ValueConverter.forSQLType(Types.SMALLINT), ValueConverter.INTEGER);
+        assertEquals(ValueConverter.forSQLType(Types.INTEGER), ValueConverter.INTEGER);
+        assertEquals(ValueConverter.forSQLType(Types.FLOAT), ValueConverter.FLOAT);
+        assertEquals(ValueConverter.forSQLType(Types.REAL), ValueConverter.FLOAT);
+        assertEquals(ValueConverter.forSQLType(Types.NUMERIC), ValueConverter.DECIMAL);
+        assertEquals(ValueConverter.forSQLType(Types.VARCHAR), ValueConverter.STRING);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class BatchInsertRewriterTests {
+    @Test
+    public void rewriteSingleRowInsert() {
+        BatchInsertRewriter rewriter = BatchInsertRewriter.parse(
+            "INSERT INTO `t` (a, b) VALUES (?, 'x?') ON CONFLICT DO NOTHING;");
+
+        assertEquals(rewriter.getParameterCount(), 1);
+        assertEquals(rewriter.rewrite(1), "INSERT INTO `t` (a, b) VALUES (?, 'x?') ON CONFLICT DO NOTHING");
+        assertEquals(rewriter.rewrite(3),
+            "INSERT INTO `t` (a, b) VALUES (?, 'x?'),(?, 'x?'),(?, 'x?') ON CONFLICT DO NOTHING");
+
+        rewriter = BatchInsertRewriter.parse("/* load */ replace into t values(?, lower(?))");
+        assertEquals(rewriter.getParameterCount(), 2);
+        assertEquals(rewriter.rewrite(2), "/* load */ replace into t values(?, lower(?)),(?, lower(?))");
+    }
+
+    @Test
+    public void rejectOtherStatements() {
+        assertNull(BatchInsertRewriter.parse("UPDATE t SET a = ? WHERE b = ?"));
+        assertNull(BatchInsertRewriter.parse("INSERT INTO t SELECT * FROM s WHERE a = ?"));
+        assertNull(BatchInsertRewriter.parse("INSERT INTO t VALUES (?), (?)"));
+        assertNull(BatchInsertRewriter.parse("INSERT INTO t VALUES (?1, ?2)"));
+        assertNull(BatchInsertRewriter.parse("INSERT INTO t VALUES (:a)"));
+        assertNull(BatchInsertRewriter.parse("INSERT INTO t VALUES (?) ON CONFLICT(a) DO UPDATE SET b = ?"));
+        assertNull(BatchInsertRewriter.parse("INSERT INTO t VALUES (?); DELETE FROM t"));
+    }
+}
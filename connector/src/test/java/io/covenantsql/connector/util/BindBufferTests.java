@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.covenantsql.connector.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class BindBufferTests {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void encodeTypedValues() throws Exception {
+        BindBuffer binds = new BindBuffer(2);
+        binds.setBoolean(0, true);
+        binds.setInt(1, -7);
+        binds.setShort(2, (short) 3);
+        binds.setLong(3, Long.MIN_VALUE);
+        binds.setFloat(4, 1.5f);
+        binds.setDouble(5, 0.1);
+        binds.setString(6, "a\"b");
+        binds.setDecimal(7, new BigDecimal("1E+3"));
+        binds.setBigInteger(8, new BigInteger("123456789012345678901234567890"));
+        binds.setBytes(9, "héllo".getBytes(StandardCharsets.UTF_8));
+        binds.setTimestamp(10, 1551675967891L);
+        binds.setDate(11, Date.valueOf("2019-03-04").getTime());
+        binds.set(13, Arrays.asList(1, 2));
+
+        List<Object> expected = Arrays.<Object>asList(true, -7, (short) 3, Long.MIN_VALUE, 1.5f, 0.1, "a\"b", "1000",
+            "123456789012345678901234567890", "héllo", "2019-03-04 05:06:07+00:00", "2019-03-04", null, Arrays.asList(1, 2));
+        assertEquals(binds, expected);
+        ParsedSql parsed = new ParsedSql("SELECT 1");
+        assertEquals(new String(parsed.encode(objectMapper, "db", binds), StandardCharsets.UTF_8),
+            new String(parsed.encode(objectMapper, "db", new ArrayList<>(expected)), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void timestampsAreUtc() {
+        BindBuffer binds = new BindBuffer(0);
+        binds.setTimestamp(0, 1551675967891L);
+        binds.setTimestamp(1, -1000L);
+        assertEquals(binds.get(0), "2019-03-04 05:06:07+00:00");
+        assertEquals(binds.get(1), "1969-12-31 23:59:59+00:00");
+    }
+
+    @Test
+    public void copyAndClear() {
+        BindBuffer binds = new BindBuffer(1);
+        byte[] bytes = {'a'};
+        binds.setBytes(0, bytes);
+        binds.setLong(2, 5);
+        bytes[0] = 'b';
+
+        BindBuffer copy = binds.copy();
+        binds.clearValues();
+        assertEquals(binds, Arrays.asList(null, null, null));
+        assertEquals(copy, Arrays.<Object>asList("a", null, 5L));
+
+        binds.setInt(0, 1);
+        assertEquals(copy.get(0), "a");
+        binds.clear();
+        assertTrue(binds.isEmpty());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import io.covenantsql.connector.response.beans.CovenantResponseBean;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.testng.Assert.*;
+
+public class CovenantDiskCacheTests {
+    private static CovenantResponseBean.DataBean bean() {
+        CovenantResponseBean.DataBean bean = new CovenantResponseBean.DataBean();
+        bean.setColumns(Collections.singletonList("a"));
+        bean.setTypes(Collections.singletonList("INTEGER"));
+        bean.setRows(Collections.singletonList(Collections.<Object>singletonList(5)));
+        return bean;
+    }
+
+    @Test
+    public void entriesSurviveReopen() throws Exception {
+        Path directory = Files.createTempDirectory("cql-cache");
+        CovenantDiskCache cache = new CovenantDiskCache(directory);
+
+        cache.put("a", bean(), System.currentTimeMillis() + 60000, Arrays.asList("db", "db/t"));
+        cache.put("b", bean(), System.currentTimeMillis() + 60000, Arrays.asList("db", "db/u"));
+        cache.put("c", bean(), System.currentTimeMillis() - 1, Collections.singletonList("db"));
+        assertEquals(cache.get("a").getData().getRows().get(0).get(0), 5);
+        assertNull(cache.get("c"));
+        assertNull(cache.get("d"));
+
+        CovenantDiskCache reopened = new CovenantDiskCache(directory);
+        assertNotNull(reopened.get("a"));
+        reopened.invalidate("db/t");
+        assertNull(reopened.get("a"));
+        assertNotNull(reopened.get("b"));
+        assertNull(cache.get("a"));
+
+        reopened.invalidate("db");
+        assertNull(reopened.get("b"));
+        assertEquals(directory.toFile().list().length, 0);
+    }
+}
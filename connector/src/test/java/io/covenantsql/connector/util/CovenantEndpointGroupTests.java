@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import io.covenantsql.connector.settings.CovenantProperties;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.HttpHostConnectException;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+public class CovenantEndpointGroupTests {
+    private static CovenantEndpointGroup group(String loadBalance) {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setLoadBalance(loadBalance);
+        properties.setHosts(Arrays.asList(new HttpHost("a", 1), new HttpHost("b", 2), new HttpHost("c", 3)));
+        properties.setFailoverQuarantine(60 * 1000);
+        properties.setFailoverMaxQuarantine(10 * 60 * 1000);
+        return new CovenantEndpointGroup(null, properties);
+    }
+
+    @Test
+    public void quarantinedEndpointsGoLast() {
+        CovenantEndpointGroup group = group(CovenantEndpointGroup.BALANCE_ORDERED);
+        List<CovenantEndpoint> endpoints = group.getEndpoints();
+        assertEquals(group.candidates(), endpoints);
+
+        endpoints.get(0).markFailure();
+        endpoints.get(0).markFailure();
+        endpoints.get(1).markFailure();
+        assertFalse(endpoints.get(0).isAvailable());
+        // second failure doubles the quarantine, so "a" is released after "b"
+        assertTrue(endpoints.get(0).getQuarantinedUntil() > endpoints.get(1).getQuarantinedUntil());
+        assertEquals(group.candidates(), Arrays.asList(endpoints.get(2), endpoints.get(1), endpoints.get(0)));
+
+        endpoints.get(0).markSuccess();
+        assertTrue(endpoints.get(0).isAvailable());
+        assertEquals(endpoints.get(0).getQuarantinedUntil(), 0);
+        assertEquals(group.candidates(), Arrays.asList(endpoints.get(0), endpoints.get(2), endpoints.get(1)));
+    }
+
+    @Test
+    public void powerOfTwoChoices() {
+        CovenantEndpointGroup group = group(CovenantEndpointGroup.BALANCE_LATENCY);
+        List<CovenantEndpoint> endpoints = group.getEndpoints();
+        CovenantEndpoint slow = endpoints.get(0);
+        CovenantEndpoint fast = endpoints.get(1);
+        endpoints.get(2).markFailure();
+
+        slow.end(slow.begin() - TimeUnit.MILLISECONDS.toNanos(100));
+        fast.end(fast.begin() - TimeUnit.MILLISECONDS.toNanos(10));
+        // latencies include the real time between begin and end, a pause of the test thread adds to it
+        assertEquals(slow.getLatency(), 100, 20);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(group.candidates(), Arrays.asList(fast, slow, endpoints.get(2)));
+        }
+
+        // requests queued on the fast endpoint push traffic to the slow one
+        long[] started = new long[10];
+        for (int i = 0; i < started.length; i++) {
+            started[i] = fast.begin();
+        }
+        assertEquals(fast.getInFlight(), 10);
+        assertSame(group.candidates().get(0), slow);
+
+        // a slower response is taken at once, a faster one only decays the average
+        for (long start : started) {
+            fast.end(start - TimeUnit.MILLISECONDS.toNanos(200));
+        }
+        assertEquals(fast.getLatency(), 200, 20);
+        fast.end(fast.begin());
+        assertTrue(fast.getLatency() > 190);
+        assertEquals(fast.getRequestCount(), 12);
+    }
+
+    @Test
+    public void quarantineIsBounded() {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setFailoverQuarantine(1000);
+        properties.setFailoverMaxQuarantine(4000);
+        CovenantEndpoint endpoint = new CovenantEndpoint(null, properties, new HttpHost("a", 1));
+
+        for (int i = 0; i < 64; i++) {
+            endpoint.markFailure();
+        }
+        long remaining = endpoint.getQuarantinedUntil() - System.currentTimeMillis();
+        assertTrue(remaining > 2000 && remaining <= 4800, String.valueOf(remaining));
+    }
+
+    @Test
+    public void connectFailures() {
+        assertTrue(CovenantEndpointGroup.isConnectFailure(new ConnectException()));
+        assertTrue(CovenantEndpointGroup.isConnectFailure(
+            new HttpHostConnectException(new ConnectException(), new HttpHost("a", 1))));
+        assertTrue(CovenantEndpointGroup.isConnectFailure(new IOException(new ConnectException())));
+        // the request may have reached the adapter
+        assertFalse(CovenantEndpointGroup.isConnectFailure(new SocketTimeoutException()));
+        assertFalse(CovenantEndpointGroup.isConnectFailure(null));
+    }
+}
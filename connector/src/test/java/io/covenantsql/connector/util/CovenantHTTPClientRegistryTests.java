@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import io.covenantsql.connector.settings.CovenantProperties;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class CovenantHTTPClientRegistryTests {
+    // every test talks to adapters of its own, the registry is shared by the whole JVM
+    private static final AtomicInteger ports = new AtomicInteger(20000);
+
+    private final CovenantHTTPClientRegistry registry = CovenantHTTPClientRegistry.getInstance();
+
+    private static CovenantProperties properties() {
+        CovenantProperties properties = new CovenantProperties();
+        properties.setHost("127.0.0.1");
+        properties.setPort(ports.incrementAndGet());
+        properties.setDatabase("db");
+        // no background probes of adapters that do not exist
+        properties.setHealthCheckInterval(0);
+        properties.setIdleConnectionTimeout(60 * 1000);
+        return properties;
+    }
+
+    @Test
+    public void databasesShareClient() throws Exception {
+        CovenantProperties properties = properties();
+        try (CovenantHTTPClientRegistry.ClientLease first = registry.acquire(properties)) {
+            CovenantProperties other = new CovenantProperties(properties);
+            other.setDatabase("other");
+            try (CovenantHTTPClientRegistry.ClientLease second = registry.acquire(other)) {
+                assertSame(second.getClient(), first.getClient());
+                assertSame(second.getEndpoints(), first.getEndpoints());
+            }
+
+            // setCatalog switches the database of the properties a connection acquired its lease with
+            properties.setDatabase("switched");
+            try (CovenantHTTPClientRegistry.ClientLease third = registry.acquire(properties)) {
+                assertSame(third.getClient(), first.getClient());
+            }
+        }
+    }
+
+    @Test
+    public void adaptersGetClientsOfTheirOwn() throws Exception {
+        CovenantProperties properties = properties();
+        CovenantProperties otherHost = properties();
+        CovenantProperties ssl = new CovenantProperties(properties);
+        ssl.setSsl(true);
+        ssl.setSslMode("none");
+        CovenantProperties balanced = new CovenantProperties(properties);
+        balanced.setLoadBalance(CovenantEndpointGroup.BALANCE_ORDERED);
+
+        try (CovenantHTTPClientRegistry.ClientLease lease = registry.acquire(properties);
+             CovenantHTTPClientRegistry.ClientLease hostLease = registry.acquire(otherHost);
+             CovenantHTTPClientRegistry.ClientLease sslLease = registry.acquire(ssl);
+             CovenantHTTPClientRegistry.ClientLease balancedLease = registry.acquire(balanced)) {
+            assertNotSame(hostLease.getClient(), lease.getClient());
+            assertNotSame(sslLease.getClient(), lease.getClient());
+            assertNotSame(balancedLease.getClient(), lease.getClient());
+            assertNotSame(balancedLease.getEndpoints(), lease.getEndpoints());
+        }
+    }
+
+    @Test
+    public void clientsAreReferenceCounted() throws Exception {
+        CovenantProperties properties = properties();
+        properties.setIdleConnectionTimeout(50);
+
+        CovenantHTTPClientRegistry.ClientLease first = registry.acquire(properties);
+        CovenantHTTPClientRegistry.ClientLease second = registry.acquire(properties);
+        first.close();
+        // releasing a lease twice does not drop the reference of another one
+        first.close();
+        Thread.sleep(200);
+
+        try (CovenantHTTPClientRegistry.ClientLease third = registry.acquire(properties)) {
+            assertSame(third.getClient(), second.getClient());
+        }
+        second.close();
+    }
+
+    @Test
+    public void releasedClientLingers() throws Exception {
+        CovenantProperties properties = properties();
+        properties.setIdleConnectionTimeout(1000);
+
+        CovenantHTTPClientRegistry.ClientLease first = registry.acquire(properties);
+        first.close();
+        Thread.sleep(100);
+
+        try (CovenantHTTPClientRegistry.ClientLease second = registry.acquire(properties)) {
+            assertSame(second.getClient(), first.getClient());
+        }
+    }
+
+    @Test
+    public void idleClientIsReaped() throws Exception {
+        CovenantProperties properties = properties();
+        properties.setIdleConnectionTimeout(50);
+
+        CovenantHTTPClientRegistry.ClientLease first = registry.acquire(properties);
+        first.close();
+        Thread.sleep(400);
+
+        try (CovenantHTTPClientRegistry.ClientLease second = registry.acquire(properties)) {
+            assertNotSame(second.getClient(), first.getClient());
+        }
+    }
+
+    @Test
+    public void releasedLeaseBuildsNoAsyncClient() throws Exception {
+        CovenantProperties properties = properties();
+        properties.setIdleConnectionTimeout(50);
+
+        CovenantHTTPClientRegistry.ClientLease first = registry.acquire(properties);
+        CovenantHTTPClientRegistry.ClientLease second = registry.acquire(properties);
+        first.close();
+        try {
+            first.getAsyncClient();
+            fail("released lease should not build an async client");
+        } catch (IllegalStateException expected) {
+        }
+
+        assertNotNull(second.getAsyncClient());
+
+        second.close();
+        Thread.sleep(400);
+        try {
+            second.getAsyncClient();
+            fail("reaped client should not build an async client");
+        } catch (IllegalStateException expected) {
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.covenantsql.connector.settings.CovenantProperties;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class CovenantHealthMonitorTests {
+    private HttpServer server;
+    private final AtomicInteger probes = new AtomicInteger();
+    private volatile boolean healthy;
+    private CovenantProperties properties;
+    private CloseableHttpClient client;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        probes.set(0);
+        healthy = true;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                probes.incrementAndGet();
+                byte[] body = (healthy ? "{\"status\":\"ok\",\"success\":true,\"data\":{}}"
+                    : "{\"status\":\"database not found\",\"success\":false}").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+
+        properties = new CovenantProperties();
+        properties.setHost("127.0.0.1");
+        properties.setPort(server.getAddress().getPort());
+        properties.setDatabase("db");
+        properties.setConnectionTimeout(1000);
+        properties.setHealthCheckInterval(0);
+        client = new CovenantHTTPClientBuilder(properties).buildClient();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void freshStateIsCached() {
+        properties.setHealthFreshness(60 * 1000);
+        CovenantHealthMonitor monitor = new CovenantHealthMonitor(client, properties);
+
+        assertTrue(monitor.isAlive(1000));
+        assertTrue(monitor.isAlive(1000));
+        assertEquals(probes.get(), 1);
+    }
+
+    @Test
+    public void staleStateIsProbed() {
+        properties.setHealthFreshness(0);
+        CovenantHealthMonitor monitor = new CovenantHealthMonitor(client, properties);
+
+        assertTrue(monitor.isAlive(1000));
+        healthy = false;
+        assertFalse(monitor.isAlive(1000));
+        assertTrue(monitor.getCheckedAt() > 0);
+    }
+
+    @Test
+    public void backgroundProbes() throws Exception {
+        properties.setHealthFreshness(60 * 1000);
+        properties.setHealthCheckInterval(20);
+        CovenantHealthMonitor monitor = new CovenantHealthMonitor(client, properties);
+        monitor.start();
+
+        try {
+            for (int i = 0; i < 100 && probes.get() < 2; i++) {
+                Thread.sleep(20);
+            }
+            assertTrue(probes.get() >= 2);
+            int probed = probes.get();
+            assertTrue(monitor.isAlive(1000));
+            assertTrue(probes.get() - probed <= 1);
+        } finally {
+            monitor.stop();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class CovenantSingleFlightTests {
+    @Test
+    public void concurrentCallsAreShared() throws Exception {
+        CovenantSingleFlight<String, String> flights = new CovenantSingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> call = new CompletableFuture<>();
+        long before = System.nanoTime();
+
+        CompletableFuture<String> first = flights.execute("a", before, () -> {
+            calls.incrementAndGet();
+            return call;
+        });
+        CompletableFuture<String> second = flights.execute("a", before, () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        assertEquals(calls.get(), 1);
+        assertEquals(flights.size(), 1);
+
+        // cancelling one caller leaves the others alone
+        first.cancel(false);
+        call.complete("x");
+        assertEquals(second.get(), "x");
+        assertEquals(flights.size(), 0);
+
+        // completed calls are not reused
+        flights.execute("a", before, () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("y");
+        });
+        assertEquals(calls.get(), 2);
+    }
+
+    @Test
+    public void callsStartedTooEarlyAreNotJoined() throws Exception {
+        CovenantSingleFlight<String, String> flights = new CovenantSingleFlight<>();
+        CompletableFuture<String> stale = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flights.execute("a", System.nanoTime(), () -> stale);
+        Thread.sleep(1);
+        CompletableFuture<String> second = flights.execute("a", System.nanoTime(),
+            () -> CompletableFuture.completedFuture("fresh"));
+        assertEquals(second.get(), "fresh");
+
+        stale.completeExceptionally(new IllegalStateException());
+        assertTrue(first.isCompletedExceptionally());
+        assertEquals(flights.size(), 0);
+    }
+}
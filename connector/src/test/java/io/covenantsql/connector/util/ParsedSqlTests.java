@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.covenantsql.connector.response.beans.CovenantRequestBean;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class ParsedSqlTests {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void classification() {
+        ParsedSql query = new ParsedSql("SELECT a FROM `t` WHERE b = ? AND c = '?'");
+        assertTrue(query.isSelect());
+        assertEquals(query.getTableName(), "t");
+        assertEquals(query.getParameterCount(), 1);
+
+        ParsedSql update = new ParsedSql("UPDATE t SET a = ?2 -- ?\n WHERE b = ?1");
+        assertFalse(update.isSelect());
+        assertEquals(update.getTableName(), "");
+        assertEquals(update.getParameterCount(), 2);
+        assertEquals(new ParsedSql("SELECT * FROM t WHERE a = :a").getParameterCount(), -1);
+
+        assertTrue(query.hasPlainParameters());
+        assertFalse(update.hasPlainParameters());
+        assertFalse(new ParsedSql("SELECT * FROM t WHERE a = :a").hasPlainParameters());
+    }
+
+    @Test
+    public void encodeMatchesRequestBean() throws Exception {
+        ParsedSql parsed = new ParsedSql("SELECT \"a\" FROM t WHERE b = ?");
+        List<Object> args = Arrays.<Object>asList(1, "x\ny", null);
+
+        for (String database : Arrays.asList("db", "other", null)) {
+            CovenantRequestBean bean = new CovenantRequestBean();
+            bean.setDatabase(database);
+            bean.setQuery(parsed.getSql());
+            bean.setArgs(args);
+            assertEquals(new String(parsed.encode(objectMapper, database, args), StandardCharsets.UTF_8),
+                objectMapper.writeValueAsString(bean));
+        }
+
+        CovenantRequestBean bean = new CovenantRequestBean();
+        bean.setDatabase("db");
+        bean.setQuery(parsed.getSql());
+        assertEquals(new String(parsed.encode(objectMapper, "db", null), StandardCharsets.UTF_8),
+            objectMapper.writeValueAsString(bean));
+    }
+}
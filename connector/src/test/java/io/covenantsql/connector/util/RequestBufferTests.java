@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class RequestBufferTests {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void encodeIntoRecycledBuffer() throws Exception {
+        ParsedSql parsed = new ParsedSql("INSERT INTO t VALUES (?, ?)");
+        List<Object> args = Arrays.<Object>asList(1, "x");
+
+        RequestBuffer body = RequestBuffer.recycled();
+        parsed.encode(objectMapper, "db", args, body);
+        assertEquals(Arrays.copyOf(body.getBuffer(), body.size()), parsed.encode(objectMapper, "db", args));
+
+        RequestBuffer again = RequestBuffer.recycled();
+        assertSame(again, body);
+        assertEquals(again.size(), 0);
+
+        // buffers grown by large bodies are not retained
+        again.write(new byte[RequestBuffer.MAX_RETAINED + 1], 0, RequestBuffer.MAX_RETAINED + 1);
+        assertNotSame(RequestBuffer.recycled(), again);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.testng.Assert.*;
+
+public class SqlScannerTests {
+    @Test
+    public void classifyStatements() {
+        assertTrue(SqlScanner.isQuery("select 1"));
+        assertTrue(SqlScanner.isQuery("  -- leading comment\n /* block */ SELECT * FROM t"));
+        assertTrue(SqlScanner.isQuery("(SELECT a FROM t) UNION (SELECT a FROM u)"));
+        assertTrue(SqlScanner.isQuery("WITH x(a) AS (SELECT 1), y AS (VALUES (2)) SELECT * FROM x, y"));
+        assertTrue(SqlScanner.isQuery("EXPLAIN QUERY PLAN DELETE FROM t"));
+        assertTrue(SqlScanner.isQuery("PRAGMA table_info(t)"));
+        assertTrue(SqlScanner.isQuery("SHOW TABLES"));
+        assertTrue(SqlScanner.isQuery("DESC t"));
+
+        assertFalse(SqlScanner.isQuery("WITH x AS (SELECT id FROM t) DELETE FROM u WHERE id IN x"));
+        assertFalse(SqlScanner.isQuery("PRAGMA foreign_keys = ON"));
+        assertFalse(SqlScanner.isQuery("SELECTED"));
+        assertFalse(SqlScanner.isQuery("/* SELECT */ INSERT INTO t VALUES (1)"));
+        assertFalse(SqlScanner.isQuery("DESCENDING"));
+        assertFalse(SqlScanner.isQuery(""));
+    }
+
+    @Test
+    public void trimEnd() {
+        assertEquals(SqlScanner.trimEnd("DELETE FROM t; -- done"), "DELETE FROM t");
+        assertEquals(SqlScanner.trimEnd("UPDATE t SET a = ';' ;\n;  "), "UPDATE t SET a = ';'");
+        assertEquals(SqlScanner.trimEnd("UPDATE t SET a = 1 /* ; */"), "UPDATE t SET a = 1");
+        assertEquals(SqlScanner.trimEnd("UPDATE t SET a = 1"), "UPDATE t SET a = 1");
+    }
+
+    @Test
+    public void readTables() {
+        assertEquals(SqlScanner.getReadTables("SELECT * FROM Users WHERE id = 1"), Collections.singleton("users"));
+        assertEquals(SqlScanner.getReadTables("SELECT a.x FROM `a` x, main.b AS y JOIN \"C\" ON c.id = x.id"),
+            new HashSet<>(Arrays.asList("a", "b", "c")));
+        assertEquals(SqlScanner.getReadTables("SELECT * FROM (SELECT id FROM t) WHERE 'FROM x' = ''"),
+            Collections.singleton("t"));
+        assertEquals(SqlScanner.getReadTables("SELECT * FROM a -- FROM b\n LEFT OUTER JOIN c USING (id)"),
+            new HashSet<>(Arrays.asList("a", "c")));
+        assertTrue(SqlScanner.getReadTables("SELECT 1").isEmpty());
+    }
+
+    @Test
+    public void writtenTables() {
+        assertEquals(SqlScanner.getWrittenTables("INSERT OR REPLACE INTO t (a) SELECT a FROM s"),
+            Collections.singleton("t"));
+        assertEquals(SqlScanner.getWrittenTables("UPDATE OR IGNORE [T] SET a = 1; DELETE FROM u"),
+            new HashSet<>(Arrays.asList("t", "u")));
+        assertEquals(SqlScanner.getWrittenTables("CREATE TABLE IF NOT EXISTS t (a INT)"), Collections.singleton("t"));
+        assertEquals(SqlScanner.getWrittenTables("CREATE INDEX i ON t (a)"), Collections.singleton("t"));
+        assertNull(SqlScanner.getWrittenTables("DROP INDEX i"));
+        assertNull(SqlScanner.getWrittenTables("PRAGMA foreign_keys = ON"));
+        assertNull(SqlScanner.getWrittenTables("WITH x AS (SELECT 1) INSERT INTO t SELECT * FROM x"));
+    }
+
+    @Test
+    public void hintsAndNormalization() {
+        String sql = "SELECT /*+ cache_ttl=5000 */ a\n  FROM t -- comment\n WHERE b = 'x  y'";
+        assertEquals(SqlScanner.getCacheTtl(sql), 5000);
+        assertEquals(SqlScanner.getCacheTtl("SELECT /* cache_ttl=5000 */ a FROM t"), -1);
+        assertEquals(SqlScanner.normalize(sql), "SELECT a FROM t WHERE b = 'x  y'");
+    }
+}
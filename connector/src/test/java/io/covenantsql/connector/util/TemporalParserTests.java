@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import org.testng.annotations.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TemporalParserTests {
+    private static final ZoneId zone = ZoneId.of("Asia/Shanghai");
+
+    private static long local(int year, int month, int day, int hour, int minute, int second) {
+        return LocalDateTime.of(year, month, day, hour, minute, second).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    @Test
+    public void parseFastLayouts() {
+        TemporalParser parser = new TemporalParser(zone);
+
+        assertEquals(parser.parse("2019-03-04 05:06:07").getTime(), local(2019, 3, 4, 5, 6, 7));
+        assertEquals(parser.parse("2019-03-04T05:06:07").getTime(), local(2019, 3, 4, 5, 6, 7));
+        assertEquals(parser.parse("2019-03-04").getTime(), local(2019, 3, 4, 0, 0, 0));
+        assertEquals(parser.parse("05:06:07").getTime(), local(1970, 1, 1, 5, 6, 7));
+
+        long utc = LocalDateTime.of(2019, 3, 4, 5, 6, 7).toInstant(ZoneOffset.UTC).toEpochMilli();
+        assertEquals(parser.parse("2019-03-04T05:06:07Z").getTime(), utc);
+        assertEquals(parser.parse("2019-03-04 07:06:07+02:00").getTime(), utc);
+        assertEquals(parser.parse("2019-03-04T00:06:07-0500").getTime(), utc);
+
+        Timestamp fraction = parser.parse("2019-03-04 05:06:07.123456789+00:00");
+        assertEquals(fraction.getNanos(), 123456789);
+        assertEquals(parser.parse("2019-03-04 05:06:07.5Z").getNanos(), 500000000);
+    }
+
+    @Test
+    public void parsePatternLayouts() {
+        TemporalParser parser = new TemporalParser(zone);
+
+        assertEquals(parser.parse("04/03/2019 05:06:07").getTime(), local(2019, 3, 4, 5, 6, 7));
+        // learned layout is tried first, others still match
+        assertEquals(parser.parse("05-03-2019").getTime(), local(2019, 3, 5, 0, 0, 0));
+        assertEquals(parser.parse("2019-03-06").getTime(), local(2019, 3, 6, 0, 0, 0));
+    }
+
+    @Test
+    public void rejectInvalid() {
+        TemporalParser parser = new TemporalParser(zone);
+
+        assertNull(parser.parse(""));
+        assertNull(parser.parse("not a date"));
+        assertNull(parser.parse("2019-02-30"));
+        assertNull(parser.parse("2019-03-04 25:00:00"));
+        assertNull(parser.parse("2019-03-04 05:06:07."));
+        assertNull(parser.parse("2019-03-04 05:06:07 trailing"));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.connector.util;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+public class TinyLfuCacheTests {
+    private static final long TTL = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    public void frequentEntriesSurviveScans() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(1000);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(cache.put("hot" + i, "v", 50, TTL, Collections.<String>emptyList(), cache.tick()));
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(cache.get("hot" + i), "v");
+            }
+        }
+
+        // one-off entries do not displace the frequently read ones
+        for (int i = 0; i < 200; i++) {
+            cache.put("cold" + i, "v", 50, TTL, Collections.<String>emptyList(), cache.tick());
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(cache.get("hot" + i), "v");
+        }
+        assertTrue(cache.weight() <= 1000);
+
+        // too heavy to be cached at all
+        assertFalse(cache.put("big", "v", 1000, TTL, Collections.<String>emptyList(), cache.tick()));
+    }
+
+    @Test
+    public void tagsAndExpiry() throws Exception {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(1000);
+
+        long since = cache.tick();
+        cache.put("a", "1", 10, TTL, Arrays.asList("db", "db/a"), since);
+        cache.put("b", "2", 10, TTL, Arrays.asList("db", "db/b"), since);
+        cache.invalidate("db/a");
+        assertNull(cache.get("a"));
+        assertEquals(cache.get("b"), "2");
+
+        // computed before the invalidation
+        assertFalse(cache.put("a", "1", 10, TTL, Arrays.asList("db", "db/a"), since));
+        assertTrue(cache.put("a", "1", 10, TTL, Arrays.asList("db", "db/a"), cache.tick()));
+
+        cache.invalidate("db");
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.weight(), 0);
+
+        cache.put("c", "3", 10, TimeUnit.MILLISECONDS.toNanos(1), Collections.<String>emptyList(), cache.tick());
+        Thread.sleep(5);
+        assertNull(cache.get("c"));
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import io.covenantsql.connector.util.TemporalParser;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * Conversions between the json values of the adapter protocol and java types.
+ * <p>
+ * Bound values are encoded the way the jdbc prepared statement encodes them. Decoding keeps a temporal parser
+ * that learns the layout used by a column, so one instance is meant to be used by a single result.
+ */
+final class Codecs {
+    private static final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("uuuu-MM-dd");
+    private static final DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final DateTimeFormatter dateTimeFormat =
+        DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss'+00:00'").withZone(ZoneOffset.UTC);
+
+    private final TemporalParser temporalParser = new TemporalParser();
+
+    /**
+     * @param value bound value
+     * @return value as sent in the request arguments
+     */
+    static Object encode(Object value) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        } else if (value instanceof byte[]) {
+            return new String((byte[]) value, StandardCharsets.UTF_8);
+        } else if (value instanceof LocalDate) {
+            return dateFormat.format((LocalDate) value);
+        } else if (value instanceof LocalTime) {
+            return timeFormat.format((LocalTime) value);
+        } else if (value instanceof LocalDateTime) {
+            return dateTimeFormat.format(((LocalDateTime) value).atZone(ZoneId.systemDefault()));
+        } else if (value instanceof Instant || value instanceof OffsetDateTime || value instanceof ZonedDateTime) {
+            return dateTimeFormat.format((TemporalAccessor) value);
+        } else if (value instanceof java.util.Date) {
+            return dateTimeFormat.format(((java.util.Date) value).toInstant());
+        }
+        return value;
+    }
+
+    /**
+     * @param value decoded json value
+     * @param type  requested type
+     * @return value converted to type
+     * @throws IllegalArgumentException if the value can not be represented as type
+     */
+    @SuppressWarnings("unchecked")
+    <T> T decode(Object value, Class<T> type) {
+        if (value == null) {
+            return null;
+        }
+
+        Class<?> boxed = box(type);
+        if (boxed.isInstance(value)) {
+            return (T) value;
+        }
+
+        Object converted;
+        if (value instanceof Number) {
+            converted = fromNumber((Number) value, boxed);
+        } else if (value instanceof Boolean) {
+            converted = fromNumber((Boolean) value ? 1 : 0, boxed);
+        } else if (value instanceof String) {
+            converted = fromString((String) value, boxed);
+        } else {
+            converted = boxed == String.class ? value.toString() : null;
+        }
+
+        if (converted == null) {
+            throw new IllegalArgumentException(
+                String.format("cannot decode %s as %s", value.getClass().getName(), type.getName()));
+        }
+        return (T) converted;
+    }
+
+    private static Object fromNumber(Number value, Class<?> type) {
+        if (type == Long.class) {
+            return value.longValue();
+        } else if (type == Integer.class) {
+            return value.intValue();
+        } else if (type == Short.class) {
+            return value.shortValue();
+        } else if (type == Byte.class) {
+            return value.byteValue();
+        } else if (type == Double.class) {
+            return value.doubleValue();
+        } else if (type == Float.class) {
+            return value.floatValue();
+        } else if (type == Boolean.class) {
+            return value.longValue() != 0;
+        } else if (type == BigDecimal.class) {
+            if (value instanceof BigInteger) {
+                return new BigDecimal((BigInteger) value);
+            }
+            return value instanceof Double || value instanceof Float
+                ? BigDecimal.valueOf(value.doubleValue()) : BigDecimal.valueOf(value.longValue());
+        } else if (type == BigInteger.class) {
+            return value instanceof BigInteger ? value : BigInteger.valueOf(value.longValue());
+        } else if (type == String.class) {
+            return value.toString();
+        }
+        return null;
+    }
+
+    private Object fromString(String value, Class<?> type) {
+        try {
+            if (type == Long.class) {
+                return Long.valueOf(value);
+            } else if (type == Integer.class) {
+                return Integer.valueOf(value);
+            } else if (type == Short.class) {
+                return Short.valueOf(value);
+            } else if (type == Byte.class) {
+                return Byte.valueOf(value);
+            } else if (type == Double.class) {
+                return Double.valueOf(value);
+            } else if (type == Float.class) {
+                return Float.valueOf(value);
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(value);
+            } else if (type == BigInteger.class) {
+                return new BigInteger(value);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("cannot decode '%s' as %s", value, type.getName()), e);
+        }
+
+        if (type == Boolean.class) {
+            return "1".equals(value) || "true".equalsIgnoreCase(value);
+        } else if (type == byte[].class) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        } else if (type == LocalDateTime.class || type == LocalDate.class || type == LocalTime.class
+            || type == Instant.class || type == OffsetDateTime.class || type == ZonedDateTime.class
+            || type == Timestamp.class) {
+            Timestamp timestamp = temporalParser.parse(value);
+            if (timestamp == null) {
+                throw new IllegalArgumentException(String.format("cannot decode '%s' as %s", value, type.getName()));
+            }
+            return fromTimestamp(timestamp, type);
+        }
+        return null;
+    }
+
+    private static Object fromTimestamp(Timestamp timestamp, Class<?> type) {
+        if (type == LocalDateTime.class) {
+            return timestamp.toLocalDateTime();
+        } else if (type == LocalDate.class) {
+            return timestamp.toLocalDateTime().toLocalDate();
+        } else if (type == LocalTime.class) {
+            return timestamp.toLocalDateTime().toLocalTime();
+        } else if (type == Instant.class) {
+            return timestamp.toInstant();
+        } else if (type == OffsetDateTime.class) {
+            return timestamp.toInstant().atZone(ZoneId.systemDefault()).toOffsetDateTime();
+        } else if (type == ZonedDateTime.class) {
+            return timestamp.toInstant().atZone(ZoneId.systemDefault());
+        }
+        return timestamp;
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == int.class) {
+            return Integer.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        }
+        return type;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import io.r2dbc.spi.Batch;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Statements executed one after another, each producing its own result.
+ */
+public final class CovenantBatch implements Batch {
+    private final CovenantConnection connection;
+    private final List<String> statements = new ArrayList<>();
+
+    CovenantBatch(CovenantConnection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public CovenantBatch add(String sql) {
+        statements.add(Objects.requireNonNull(sql, "sql must not be null"));
+        return this;
+    }
+
+    @Override
+    public Flux<CovenantResult> execute() {
+        final List<String> executions = new ArrayList<>(statements);
+        statements.clear();
+
+        return Flux.fromIterable(executions)
+            .concatMap(sql -> connection.execute(sql, null));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import io.covenantsql.connector.util.TypeUtils;
+import io.r2dbc.spi.ColumnMetadata;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+public final class CovenantColumnMetadata implements ColumnMetadata {
+    private final String name;
+    private final String declaredType;
+
+    CovenantColumnMetadata(String name, String declaredType) {
+        this.name = name;
+        this.declaredType = declaredType;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The adapter reports declared types after the rows, so the type is unknown for a result that is still being
+     * read.
+     *
+     * @return java type of the declared column type, null if not known
+     */
+    @Override
+    public Class<?> getJavaType() {
+        int sqlType = TypeUtils.toSQLType(declaredType);
+        if (declaredType == null || sqlType == Types.OTHER) {
+            return null;
+        }
+
+        try {
+            Class<?> type = TypeUtils.toClass(sqlType);
+            if (type == Timestamp.class) {
+                return LocalDateTime.class;
+            } else if (type == Date.class) {
+                return LocalDate.class;
+            } else if (type == Time.class) {
+                return LocalTime.class;
+            }
+            return type;
+        } catch (SQLException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return declared column type, null if not known
+     */
+    @Override
+    public String getNativeTypeMetadata() {
+        return declaredType;
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.covenantsql.connector.CovenantDriver;
+import io.covenantsql.connector.CovenantStatementImpl;
+import io.covenantsql.connector.except.CovenantTransientException;
+import io.covenantsql.connector.settings.CovenantProperties;
+import io.covenantsql.connector.util.CovenantEndpoint;
+import io.covenantsql.connector.util.CovenantEndpointGroup;
+import io.covenantsql.connector.util.CovenantHTTPClientRegistry;
+import io.covenantsql.connector.util.CovenantRetryPolicy;
+import io.covenantsql.connector.util.ParsedSql;
+import io.covenantsql.connector.util.ParsedSqlCache;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.ValidationDepth;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connection to a CovenantSQL adapter.
+ * <p>
+ * Like the jdbc connection every statement is committed on its own; transaction and savepoint methods are
+ * accepted and do nothing. Requests go through the non-blocking http client the driver shares between all
+ * connections to the same adapter, with the timeouts, {@code read_hosts} routing and retries of jdbc statements.
+ * Rows are streamed, so like streamed jdbc results queries are not hedged.
+ */
+public final class CovenantConnection implements Connection {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String API_EXEC = "/v1/exec";
+    private static final String API_QUERY = "/v1/query";
+
+    private static final ConnectionMetadata metadata = new ConnectionMetadata() {
+        @Override
+        public String getDatabaseProductName() {
+            return "CovenantSQL";
+        }
+
+        @Override
+        public String getDatabaseVersion() {
+            return CovenantDriver.Version;
+        }
+    };
+
+    private final CovenantProperties properties;
+    private final CovenantHTTPClientRegistry.ClientLease clientLease;
+    // lease of read_hosts, null if queries go to the write hosts as well
+    private final CovenantHTTPClientRegistry.ClientLease readLease;
+    private final CovenantRetryPolicy retryPolicy;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    // parsed statements, bounded by statement_cache_size
+    private final ParsedSqlCache statements;
+    // System.nanoTime() until which queries stay on the write hosts after a write
+    private volatile long readsPinnedUntil = System.nanoTime();
+
+    CovenantConnection(CovenantProperties properties, CovenantHTTPClientRegistry.ClientLease clientLease,
+                       CovenantHTTPClientRegistry.ClientLease readLease) {
+        this.properties = properties;
+        this.statements = new ParsedSqlCache(properties.getStatementCacheSize());
+        this.retryPolicy = CovenantRetryPolicy.create(properties);
+        this.clientLease = clientLease;
+        this.readLease = readLease;
+    }
+
+    @Override
+    public Mono<Void> beginTransaction() {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> close() {
+        return Mono.fromRunnable(() -> {
+            if (closed.compareAndSet(false, true)) {
+                clientLease.close();
+                if (readLease != null) {
+                    readLease.close();
+                }
+            }
+        });
+    }
+
+    @Override
+    public Mono<Void> commitTransaction() {
+        return Mono.empty();
+    }
+
+    @Override
+    public CovenantBatch createBatch() {
+        return new CovenantBatch(this);
+    }
+
+    @Override
+    public Mono<Void> createSavepoint(String name) {
+        return Mono.empty();
+    }
+
+    @Override
+    public CovenantStatement createStatement(String sql) {
+        return new CovenantStatement(this, sql);
+    }
+
+    @Override
+    public boolean isAutoCommit() {
+        return true;
+    }
+
+    @Override
+    public ConnectionMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public IsolationLevel getTransactionIsolationLevel() {
+        return IsolationLevel.SERIALIZABLE;
+    }
+
+    @Override
+    public Mono<Void> releaseSavepoint(String name) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> rollbackTransaction() {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> rollbackTransactionToSavepoint(String name) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> setAutoCommit(boolean autoCommit) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Boolean> validate(ValidationDepth depth) {
+        if (closed.get()) {
+            return Mono.just(false);
+        }
+
+        if (depth == ValidationDepth.LOCAL) {
+            return Mono.just(true);
+        }
+
+        return execute("SELECT 1", null)
+            .flatMapMany(result -> result.map((row, rowMetadata) -> true))
+            .then(Mono.just(true))
+            .onErrorReturn(false);
+    }
+
+    /**
+     * Send a statement, the result is emitted once the adapter has answered and its rows are read on demand.
+     */
+    Mono<CovenantResult> execute(final String sql, final List<Object> args) {
+        return Mono.defer(() -> {
+            if (closed.get()) {
+                return Mono.error(new CovenantR2dbcException("connection is closed",
+                    properties.getHost(), properties.getPort()));
+            }
+
+            ParsedSql parsed = statements.get(sql);
+            int timeout = properties.getOperationTimeout();
+            long deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+            return attempt(parsed, args, deadline, 1);
+        });
+    }
+
+    /**
+     * Send a statement to the adapters it is routed to, retrying queries on transient failures as the retry policy
+     * allows within the operation timeout.
+     */
+    private Mono<CovenantResult> attempt(final ParsedSql parsed, final List<Object> args, final long deadline,
+                                         final int attempts) {
+        final boolean query = parsed.isSelect();
+        final CovenantHTTPClientRegistry.ClientLease lease = route(query);
+
+        return execute(lease, lease.getEndpoints().candidates().iterator(), parsed, args, deadline)
+            .onErrorResume(e -> {
+                long delay = getRetryDelay(query, attempts, e, deadline);
+                if (delay < 0) {
+                    return Mono.error(e);
+                }
+                return Mono.delay(Duration.ofMillis(delay)).then(attempt(parsed, args, deadline, attempts + 1));
+            });
+    }
+
+    /**
+     * Send to the next candidate endpoint, failing over on connect failures which never reached the adapter.
+     */
+    private Mono<CovenantResult> execute(final CovenantHTTPClientRegistry.ClientLease lease,
+                                         final Iterator<CovenantEndpoint> candidates, final ParsedSql parsed,
+                                         final List<Object> args, final long deadline) {
+        final CovenantEndpoint endpoint = candidates.next();
+        final boolean query = parsed.isSelect();
+        final int timeout = getRemaining(deadline);
+        final ResponseStream stream;
+        final long started = endpoint.begin();
+
+        try {
+            stream = new ResponseStream(endpoint.getHost(), endpoint.getPort());
+            stream.start(lease.getAsyncClient(),
+                buildRequest(endpoint, query ? API_QUERY : API_EXEC, parsed, args, timeout));
+        } catch (Exception e) {
+            endpoint.end(started);
+            return Mono.error(new CovenantR2dbcException(e, endpoint.getHost(), endpoint.getPort()));
+        }
+
+        Mono<Void> received = stream.getReceived();
+        if (timeout > 0) {
+            // the deadline covers the request up to the start of the rows, reading them is bounded by socket timeout
+            received = received.timeout(Duration.ofMillis(timeout), Mono.error(() -> new CovenantR2dbcException(
+                String.format("request timed out after %d ms", properties.getOperationTimeout()),
+                endpoint.getHost(), endpoint.getPort())));
+        }
+
+        return received
+            .doOnCancel(stream::abort)
+            .doOnError(e -> stream.abort())
+            .doFinally(signal -> endpoint.end(started))
+            .doOnSuccess(ignored -> {
+                endpoint.markSuccess();
+                if (!query) {
+                    wrote();
+                }
+            })
+            .thenReturn(new CovenantResult(stream, query))
+            .onErrorResume(e -> {
+                if (!CovenantEndpointGroup.isConnectFailure(e)) {
+                    return Mono.error(e);
+                }
+                endpoint.markFailure();
+                return candidates.hasNext() ? execute(lease, candidates, parsed, args, deadline) : Mono.error(e);
+            });
+    }
+
+    /**
+     * @param read whether the request is a query
+     * @return lease of the adapters the request should go to
+     */
+    private CovenantHTTPClientRegistry.ClientLease route(boolean read) {
+        if (!read || readLease == null || System.nanoTime() - readsPinnedUntil < 0) {
+            // writes, and queries reading their own recent writes
+            return clientLease;
+        }
+        return readLease;
+    }
+
+    /**
+     * Record a successful write, pinning queries to the write hosts for {@code read_your_writes_window}.
+     */
+    private void wrote() {
+        int window = properties.getReadYourWritesWindow();
+        if (window > 0 && readLease != null) {
+            readsPinnedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(window);
+        }
+    }
+
+    /**
+     * @return delay in milliseconds before the next attempt, negative if the statement must not be retried
+     */
+    private long getRetryDelay(boolean query, int attempts, Throwable failure, long deadline) {
+        // only failures before the adapter got the query and overloaded adapters are retried, timeouts and adapter
+        // errors are final
+        Throwable cause = failure.getCause();
+        boolean transientFailure = failure instanceof CovenantR2dbcTransientException
+            || failure instanceof CovenantR2dbcException && cause instanceof IOException;
+        if (!query || !transientFailure) {
+            return -1;
+        }
+
+        String sqlState = CovenantEndpointGroup.isConnectFailure(cause) ? CovenantTransientException.CONNECT_FAILURE
+            : CovenantTransientException.CONNECTION_FAILURE;
+        long delay = retryPolicy.nextDelay(attempts,
+            new CovenantTransientException(sqlState, cause, properties.getHost(), properties.getPort()));
+        if (delay < 0 || (deadline != 0 && System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) - deadline >= 0)) {
+            return -1;
+        }
+        return delay;
+    }
+
+    /**
+     * @return milliseconds left until the deadline, at least 1, or 0 for no deadline
+     */
+    private static int getRemaining(long deadline) {
+        if (deadline == 0) {
+            return 0;
+        }
+        return (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    private HttpPost buildRequest(CovenantEndpoint endpoint, String path, ParsedSql parsed, List<Object> args,
+                                  int timeout) throws Exception {
+        HttpPost request = new HttpPost(new URIBuilder()
+            .setHost(endpoint.getHost())
+            .setPort(endpoint.getPort())
+            .setScheme(properties.isSsl() ? "https" : "http")
+            .setPath(path)
+            .build());
+        // the http client is shared between connections, so timeouts are applied per request
+        request.setConfig(RequestConfig.custom()
+            .setConnectTimeout(properties.getConnectionTimeout())
+            .setConnectionRequestTimeout(timeout)
+            .setSocketTimeout(timeout)
+            .build());
+        if (timeout > 0) {
+            request.setHeader(CovenantStatementImpl.DEADLINE_HEADER,
+                String.valueOf(System.currentTimeMillis() + timeout));
+        }
+        request.setEntity(new ByteArrayEntity(parsed.encode(objectMapper, properties.getDatabase(), args),
+            ContentType.APPLICATION_JSON));
+        return request;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import io.covenantsql.connector.CovenantURLParser;
+import io.covenantsql.connector.settings.CovenantProperties;
+import io.covenantsql.connector.util.CovenantHTTPClientRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import reactor.core.publisher.Mono;
+
+import java.net.URISyntaxException;
+import java.util.Properties;
+
+/**
+ * Reactive connection factory, connections follow the same url rules and properties as the jdbc driver.
+ */
+public final class CovenantConnectionFactory implements ConnectionFactory {
+    private static final ConnectionFactoryMetadata metadata = new ConnectionFactoryMetadata() {
+        @Override
+        public String getName() {
+            return "CovenantSQL";
+        }
+    };
+
+    private final CovenantProperties properties;
+
+    public CovenantConnectionFactory(CovenantProperties properties) {
+        this.properties = new CovenantProperties(properties);
+    }
+
+    /**
+     * @param url  jdbc url, e.g. {@code jdbc:covenantsql://127.0.0.1:11108/database}
+     * @param info connection properties
+     * @return connection factory
+     * @throws URISyntaxException on malformed url
+     */
+    public static CovenantConnectionFactory from(String url, Properties info) throws URISyntaxException {
+        return new CovenantConnectionFactory(CovenantURLParser.parse(url, info != null ? info : new Properties()));
+    }
+
+    public CovenantProperties getProperties() {
+        return new CovenantProperties(properties);
+    }
+
+    @Override
+    public Mono<CovenantConnection> create() {
+        return Mono.fromCallable(() -> {
+            CovenantHTTPClientRegistry.ClientLease clientLease =
+                CovenantHTTPClientRegistry.getInstance().acquire(properties);
+            try {
+                return new CovenantConnection(properties, clientLease,
+                    CovenantHTTPClientRegistry.getInstance().acquireReadHosts(properties));
+            } catch (Exception e) {
+                clientLease.close();
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return metadata;
+    }
+}
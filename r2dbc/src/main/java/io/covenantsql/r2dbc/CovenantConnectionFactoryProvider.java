@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import io.covenantsql.connector.CovenantURLParser;
+import io.covenantsql.connector.settings.CovenantConnectionSettings;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.ConnectionFactoryProvider;
+import io.r2dbc.spi.Option;
+
+import java.net.URISyntaxException;
+import java.util.Properties;
+
+/**
+ * Discovered by {@code ConnectionFactories} for urls like
+ * {@code r2dbc:covenantsql://127.0.0.1:11108/database?key_path=...}. Url query options use the jdbc property
+ * names and the url itself is validated by {@link CovenantURLParser}.
+ */
+public final class CovenantConnectionFactoryProvider implements ConnectionFactoryProvider {
+    public static final String DRIVER = "covenantsql";
+
+    @Override
+    public CovenantConnectionFactory create(ConnectionFactoryOptions options) {
+        Properties info = new Properties();
+        for (CovenantConnectionSettings setting : CovenantConnectionSettings.values()) {
+            Object value = options.getValue(Option.valueOf(setting.getKey()));
+            if (value != null) {
+                info.setProperty(setting.getKey(), value.toString());
+            }
+        }
+
+        Object ssl = options.getValue(ConnectionFactoryOptions.SSL);
+        if (ssl != null) {
+            info.setProperty(CovenantConnectionSettings.SSL.getKey(), ssl.toString());
+        }
+
+        Object database = options.getValue(ConnectionFactoryOptions.DATABASE);
+        String url = String.format("%s//%s:%s/%s", CovenantURLParser.JDBC_DB_PREFIX,
+            options.getRequiredValue(ConnectionFactoryOptions.HOST),
+            options.getRequiredValue(ConnectionFactoryOptions.PORT),
+            database != null ? database : "");
+
+        try {
+            return CovenantConnectionFactory.from(url, info);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean supports(ConnectionFactoryOptions options) {
+        return DRIVER.equals(options.getValue(ConnectionFactoryOptions.DRIVER));
+    }
+
+    @Override
+    public String getDriver() {
+        return DRIVER;
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import io.r2dbc.spi.R2dbcTransientResourceException;
+
+/**
+ * Failure the adapter may recover from, e.g. an overloaded adapter answering 429 or 503. Queries are retried on it.
+ */
+public class CovenantR2dbcTransientException extends R2dbcTransientResourceException {
+    public CovenantR2dbcTransientException(Throwable cause, String host, int port) {
+        super(String.format("CovenantException, host: %s, port: %d; %s",
+            host, port, (cause == null ? "" : cause.getMessage())), cause);
+    }
+}
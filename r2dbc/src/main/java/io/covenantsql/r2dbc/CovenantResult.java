@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * Result of one request. Rows are read from the network as they are requested, a result can be consumed once,
+ * either by mapping its rows or by its update count.
+ */
+public final class CovenantResult implements Result {
+    private final ResponseStream stream;
+    private final boolean query;
+    private final Codecs codecs = new Codecs();
+    private volatile CovenantRowMetadata metadata;
+
+    CovenantResult(ResponseStream stream, boolean query) {
+        this.stream = stream;
+        this.query = query;
+    }
+
+    /**
+     * @return affected rows of an update, empty for a query
+     */
+    @Override
+    public Publisher<Integer> getRowsUpdated() {
+        stream.discardRows();
+
+        return stream.getResponse()
+            .flatMap(response -> query || response.getData() == null
+                ? Mono.<Integer>empty() : Mono.just(response.getData().getAffectedRows()));
+    }
+
+    @Override
+    public <T> Publisher<T> map(final BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+        Objects.requireNonNull(mappingFunction, "mappingFunction must not be null");
+
+        return Flux.<Object[]>create(stream::subscribe)
+            .map(values -> {
+                CovenantRowMetadata rowMetadata = getMetadata();
+                return mappingFunction.apply(new CovenantRow(values, rowMetadata, codecs), rowMetadata);
+            });
+    }
+
+    private CovenantRowMetadata getMetadata() {
+        if (metadata == null) {
+            // column names precede the rows in the response
+            ResponseDecoder decoder = stream.getDecoder();
+            metadata = new CovenantRowMetadata(decoder.getColumns(), decoder.getTypes());
+        }
+        return metadata;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import io.r2dbc.spi.Row;
+
+import java.util.Objects;
+
+public final class CovenantRow implements Row {
+    private final Object[] values;
+    private final CovenantRowMetadata metadata;
+    private final Codecs codecs;
+
+    CovenantRow(Object[] values, CovenantRowMetadata metadata, Codecs codecs) {
+        this.values = values;
+        this.metadata = metadata;
+        this.codecs = codecs;
+    }
+
+    @Override
+    public <T> T get(int index, Class<T> type) {
+        Objects.requireNonNull(type, "type must not be null");
+
+        if (index < 0 || index >= values.length) {
+            throw new ArrayIndexOutOfBoundsException("column index out of range: " + index);
+        }
+        return codecs.decode(values[index], type);
+    }
+
+    @Override
+    public <T> T get(String name, Class<T> type) {
+        Objects.requireNonNull(name, "name must not be null");
+        return get(metadata.indexOf(name), type);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import io.r2dbc.spi.RowMetadata;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public final class CovenantRowMetadata implements RowMetadata {
+    private final List<CovenantColumnMetadata> columns;
+    private final List<String> columnNames;
+
+    CovenantRowMetadata(List<String> names, List<String> types) {
+        List<CovenantColumnMetadata> columns = new ArrayList<>();
+        if (names != null) {
+            for (int i = 0; i < names.size(); i++) {
+                columns.add(new CovenantColumnMetadata(names.get(i),
+                    types != null && i < types.size() ? types.get(i) : null));
+            }
+        }
+        this.columns = Collections.unmodifiableList(columns);
+        this.columnNames = names != null ? Collections.unmodifiableList(new ArrayList<>(names))
+            : Collections.<String>emptyList();
+    }
+
+    @Override
+    public CovenantColumnMetadata getColumnMetadata(int index) {
+        if (index < 0 || index >= columns.size()) {
+            throw new ArrayIndexOutOfBoundsException("column index out of range: " + index);
+        }
+        return columns.get(index);
+    }
+
+    @Override
+    public CovenantColumnMetadata getColumnMetadata(String name) {
+        return columns.get(indexOf(name));
+    }
+
+    @Override
+    public Iterable<CovenantColumnMetadata> getColumnMetadatas() {
+        return columns;
+    }
+
+    @Override
+    public Collection<String> getColumnNames() {
+        return columnNames;
+    }
+
+    int getColumnCount() {
+        return columns.size();
+    }
+
+    /**
+     * @param name column name, matched case insensitively
+     * @return zero based column index
+     * @throws NoSuchElementException if there is no such column
+     */
+    int indexOf(String name) {
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (columnNames.get(i).equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        throw new NoSuchElementException("no such column: " + name);
+    }
+}
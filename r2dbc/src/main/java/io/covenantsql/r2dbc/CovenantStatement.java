@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Statement with positional {@code ?} parameters.
+ * <p>
+ * Parameters are bound by zero based index, or by name where the name is the one based position prefixed with
+ * {@code ?}, {@code $} or {@code :}, e.g. {@code "$1"}. Each binding set added with {@link #add()} is executed
+ * as its own request and produces its own result.
+ */
+public final class CovenantStatement implements Statement {
+    private final CovenantConnection connection;
+    private final String sql;
+    private final List<List<Object>> bindings = new ArrayList<>();
+    private List<Object> current = new ArrayList<>();
+
+    CovenantStatement(CovenantConnection connection, String sql) {
+        this.connection = connection;
+        this.sql = Objects.requireNonNull(sql, "sql must not be null");
+    }
+
+    @Override
+    public CovenantStatement add() {
+        bindings.add(current);
+        current = new ArrayList<>();
+        return this;
+    }
+
+    @Override
+    public CovenantStatement bind(int index, Object value) {
+        Objects.requireNonNull(value, "value must not be null, use bindNull instead");
+        set(index, Codecs.encode(value));
+        return this;
+    }
+
+    @Override
+    public CovenantStatement bind(String name, Object value) {
+        return bind(indexOf(name), value);
+    }
+
+    @Override
+    public CovenantStatement bindNull(int index, Class<?> type) {
+        set(index, null);
+        return this;
+    }
+
+    @Override
+    public CovenantStatement bindNull(String name, Class<?> type) {
+        return bindNull(indexOf(name), type);
+    }
+
+    @Override
+    public Flux<CovenantResult> execute() {
+        final List<List<Object>> executions = new ArrayList<>(bindings);
+        if (!current.isEmpty() || executions.isEmpty()) {
+            executions.add(current);
+        }
+
+        bindings.clear();
+        current = new ArrayList<>();
+
+        return Flux.fromIterable(executions)
+            .concatMap(args -> connection.execute(sql, args.isEmpty() ? null : args));
+    }
+
+    private void set(int index, Object value) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("parameter index out of range: " + index);
+        }
+
+        while (current.size() <= index) {
+            current.add(null);
+        }
+        current.set(index, value);
+    }
+
+    private static int indexOf(String name) {
+        Objects.requireNonNull(name, "name must not be null");
+
+        String position = name;
+        if (!position.isEmpty() && "?$:".indexOf(position.charAt(0)) >= 0) {
+            position = position.substring(1);
+        }
+
+        try {
+            return Integer.parseInt(position) - 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("unknown parameter name: " + name + ", positional name expected");
+        }
+    }
+}
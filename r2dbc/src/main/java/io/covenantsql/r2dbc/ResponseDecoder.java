@@ -0,0 +1,274 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import io.covenantsql.connector.response.beans.CovenantResponseBean;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Push based decoder of an adapter response.
+ * <p>
+ * Bytes are fed as they arrive from the network and parsed by Jackson's non-blocking parser; rows are handed to
+ * the listener one at a time, everything else is collected into a {@link CovenantResponseBean} without rows.
+ * Fields may come in any order, the adapter sends rows before types and the success flag.
+ */
+final class ResponseDecoder {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    interface Listener {
+        void onRow(Object[] row);
+    }
+
+    private enum State {
+        START, RESPONSE, DATA, STRINGS, ROWS, ROW, DONE
+    }
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Listener listener;
+    private final CovenantResponseBean response = new CovenantResponseBean();
+
+    private State state = State.START;
+    private String field;
+    private int skipDepth;
+    private List<String> strings;
+    // containers of the row being decoded, the row itself at the bottom
+    private final Deque<Object> containers = new ArrayDeque<>();
+    private final Deque<String> keys = new ArrayDeque<>();
+
+    ResponseDecoder(Listener listener) throws IOException {
+        this.parser = jsonFactory.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.listener = listener;
+    }
+
+    /**
+     * @return response fields read so far, rows are never collected
+     */
+    CovenantResponseBean getResponse() {
+        return response;
+    }
+
+    /**
+     * @return column names, null while they have not been read
+     */
+    List<String> getColumns() {
+        return response.getData() != null ? response.getData().getColumns() : null;
+    }
+
+    /**
+     * @return declared column types, null while they have not been read
+     */
+    List<String> getTypes() {
+        return response.getData() != null ? response.getData().getTypes() : null;
+    }
+
+    boolean isFinished() {
+        return state == State.DONE;
+    }
+
+    /**
+     * Decode the next chunk of the response, the array may be reused once the call returns.
+     */
+    void feed(byte[] buffer, int offset, int length) throws IOException {
+        feeder.feedInput(buffer, offset, offset + length);
+        drain();
+    }
+
+    /**
+     * Signal the end of the response.
+     *
+     * @throws IOException if the response is truncated
+     */
+    void endOfInput() throws IOException {
+        feeder.endOfInput();
+        drain();
+
+        if (state != State.DONE) {
+            throw new IOException("unexpected end of response");
+        }
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            onToken(token);
+        }
+    }
+
+    private void onToken(JsonToken token) throws IOException {
+        if (skipDepth > 0) {
+            if (token.isStructStart()) {
+                skipDepth++;
+            } else if (token.isStructEnd()) {
+                skipDepth--;
+            }
+            return;
+        }
+
+        switch (state) {
+            case START:
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("unexpected response, object expected");
+                }
+                state = State.RESPONSE;
+                break;
+            case RESPONSE:
+                onResponseField(token);
+                break;
+            case DATA:
+                onDataField(token);
+                break;
+            case STRINGS:
+                if (token == JsonToken.END_ARRAY) {
+                    if ("types".equals(field)) {
+                        response.getData().setTypes(strings);
+                    } else {
+                        response.getData().setColumns(strings);
+                    }
+                    strings = null;
+                    state = State.DATA;
+                } else {
+                    strings.add(parser.getValueAsString());
+                }
+                break;
+            case ROWS:
+                if (token == JsonToken.END_ARRAY) {
+                    state = State.DATA;
+                } else if (token == JsonToken.START_ARRAY) {
+                    containers.push(new ArrayList<>(getColumns() != null ? getColumns().size() : 8));
+                    state = State.ROW;
+                } else {
+                    throw new IOException("unexpected token in rows: " + token);
+                }
+                break;
+            case ROW:
+                onRowToken(token);
+                break;
+            default:
+                throw new IOException("unexpected content after response: " + token);
+        }
+    }
+
+    private void onResponseField(JsonToken token) throws IOException {
+        if (token == JsonToken.END_OBJECT) {
+            state = State.DONE;
+        } else if (token == JsonToken.FIELD_NAME) {
+            field = parser.getCurrentName();
+        } else if ("status".equals(field)) {
+            response.setStatus(parser.getValueAsString());
+        } else if ("success".equals(field)) {
+            response.setSuccess(parser.getValueAsBoolean());
+        } else if ("data".equals(field) && token == JsonToken.START_OBJECT) {
+            response.setData(new CovenantResponseBean.DataBean());
+            state = State.DATA;
+        } else {
+            skip(token);
+        }
+    }
+
+    private void onDataField(JsonToken token) throws IOException {
+        if (token == JsonToken.END_OBJECT) {
+            state = State.RESPONSE;
+        } else if (token == JsonToken.FIELD_NAME) {
+            field = parser.getCurrentName();
+        } else if (("types".equals(field) || "columns".equals(field)) && token == JsonToken.START_ARRAY) {
+            strings = new ArrayList<>();
+            state = State.STRINGS;
+        } else if ("affected_rows".equals(field)) {
+            response.getData().setAffectedRows(parser.getValueAsInt());
+        } else if ("last_insert_id".equals(field)) {
+            response.getData().setLastInsertId(parser.getValueAsInt());
+        } else if ("rows".equals(field) && token == JsonToken.START_ARRAY) {
+            state = State.ROWS;
+        } else {
+            skip(token);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onRowToken(JsonToken token) throws IOException {
+        switch (token) {
+            case START_ARRAY:
+                containers.push(new ArrayList<>());
+                return;
+            case START_OBJECT:
+                containers.push(new LinkedHashMap<String, Object>());
+                return;
+            case FIELD_NAME:
+                keys.push(parser.getCurrentName());
+                return;
+            case END_ARRAY:
+            case END_OBJECT:
+                Object container = containers.pop();
+                if (containers.isEmpty()) {
+                    listener.onRow(((List<Object>) container).toArray());
+                    state = State.ROWS;
+                } else {
+                    addValue(container);
+                }
+                return;
+            case VALUE_NULL:
+                addValue(null);
+                return;
+            case VALUE_STRING:
+                addValue(parser.getText());
+                return;
+            case VALUE_NUMBER_INT:
+                addValue(parser.getNumberValue());
+                return;
+            case VALUE_NUMBER_FLOAT:
+                addValue(parser.getDoubleValue());
+                return;
+            case VALUE_TRUE:
+                addValue(Boolean.TRUE);
+                return;
+            case VALUE_FALSE:
+                addValue(Boolean.FALSE);
+                return;
+            default:
+                throw new IOException("unexpected token in row: " + token);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addValue(Object value) {
+        Object container = containers.peek();
+        if (container instanceof Map) {
+            ((Map<String, Object>) container).put(keys.pop(), value);
+        } else {
+            ((List<Object>) container).add(value);
+        }
+    }
+
+    private void skip(JsonToken token) {
+        if (token.isStructStart()) {
+            skipDepth = 1;
+        }
+    }
+}
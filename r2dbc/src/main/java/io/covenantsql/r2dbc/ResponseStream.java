@@ -0,0 +1,275 @@
+/*
+ * Copyright 2018 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import io.covenantsql.connector.response.beans.CovenantResponseBean;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Response of a single request, decoded as it is received.
+ * <p>
+ * Decoded rows are queued until the row subscriber requests them. Whenever rows are left over after a chunk is
+ * decoded, input from the socket is suspended, and resumed once the subscriber has drained the queue, so the
+ * memory held is bounded by the demand plus one network buffer.
+ */
+final class ResponseStream extends AbstractAsyncResponseConsumer<CovenantResponseBean>
+    implements ResponseDecoder.Listener {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final String host;
+    private final int port;
+    private final ResponseDecoder decoder;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final Queue<Object[]> rows = new ConcurrentLinkedQueue<>();
+    private final CompletableFuture<Void> received = new CompletableFuture<>();
+    private final CompletableFuture<CovenantResponseBean> result = new CompletableFuture<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicBoolean suspended = new AtomicBoolean();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private volatile Future<CovenantResponseBean> request;
+    private volatile IOControl control;
+    private volatile FluxSink<Object[]> sink;
+    private volatile boolean discard;
+    private volatile HttpResponseException overloaded;
+
+    ResponseStream(String host, int port) throws IOException {
+        this.host = host;
+        this.port = port;
+        this.decoder = new ResponseDecoder(this);
+    }
+
+    void start(CloseableHttpAsyncClient client, HttpUriRequest httpRequest) {
+        request = client.execute(HttpAsyncMethods.create(httpRequest), this, new FutureCallback<CovenantResponseBean>() {
+            @Override
+            public void completed(CovenantResponseBean response) {
+                HttpResponseException unavailable = overloaded;
+                if (unavailable != null) {
+                    // the adapter did not run the statement, it may be tried again
+                    CovenantR2dbcTransientException error =
+                        new CovenantR2dbcTransientException(unavailable, host, port);
+                    received.completeExceptionally(error);
+                    result.completeExceptionally(error);
+                } else if (response.isSuccess()) {
+                    result.complete(response);
+                } else {
+                    result.completeExceptionally(new CovenantR2dbcException(response.getStatus(), host, port));
+                }
+                drain();
+            }
+
+            @Override
+            public void failed(Exception e) {
+                CovenantR2dbcException error = new CovenantR2dbcException(e, host, port);
+                received.completeExceptionally(error);
+                result.completeExceptionally(error);
+                drain();
+            }
+
+            @Override
+            public void cancelled() {
+                received.cancel(false);
+                result.cancel(false);
+                drain();
+            }
+        });
+    }
+
+    ResponseDecoder getDecoder() {
+        return decoder;
+    }
+
+    /**
+     * @return completes once the response head has been received, i.e. the adapter has run the statement
+     */
+    Mono<Void> getReceived() {
+        return Mono.fromFuture(received);
+    }
+
+    /**
+     * @return the response without rows, completes once the whole response has been received
+     */
+    Mono<CovenantResponseBean> getResponse() {
+        return Mono.fromFuture(result);
+    }
+
+    /**
+     * Drop queued and future rows, e.g. when only the update count is consumed.
+     */
+    void discardRows() {
+        discard = true;
+        drain();
+    }
+
+    /**
+     * Attach the single row subscriber.
+     */
+    void subscribe(FluxSink<Object[]> rowSink) {
+        if (!subscribed.compareAndSet(false, true)) {
+            rowSink.error(new IllegalStateException("result rows have already been consumed"));
+            return;
+        }
+
+        rowSink.onRequest(n -> drain());
+        rowSink.onCancel(() -> {
+            discard = true;
+            abort();
+        });
+        sink = rowSink;
+        drain();
+    }
+
+    /**
+     * Abort the request, the underlying connection is not reused.
+     */
+    void abort() {
+        Future<CovenantResponseBean> pending = request;
+        if (pending != null && !pending.isDone()) {
+            pending.cancel(true);
+        }
+        drain();
+    }
+
+    @Override
+    public void onRow(Object[] row) {
+        if (!discard) {
+            rows.offer(row);
+        }
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        int status = response.getStatusLine().getStatusCode();
+        if (status == 429 || status == HttpStatus.SC_BAD_GATEWAY || status == HttpStatus.SC_SERVICE_UNAVAILABLE
+            || status == HttpStatus.SC_GATEWAY_TIMEOUT) {
+            // the body is not a response to decode, it is skipped so that the connection can be reused; the
+            // request fails once the exchange completed
+            overloaded = new HttpResponseException(status,
+                "adapter unavailable: " + response.getStatusLine().getReasonPhrase());
+            return;
+        }
+        received.complete(null);
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder contentDecoder, IOControl ioControl) throws IOException {
+        control = ioControl;
+
+        int read;
+        while ((read = contentDecoder.read(buffer)) > 0) {
+            if (overloaded != null) {
+                buffer.clear();
+                continue;
+            }
+            decoder.feed(buffer.array(), 0, read);
+            buffer.clear();
+
+            if (!rows.isEmpty() && !contentDecoder.isCompleted()) {
+                // demand is exhausted, stop reading until the subscriber catches up; a completed response gives its
+                // connection back to the pool, where it must not be left suspended
+                suspended.set(true);
+                ioControl.suspendInput();
+                break;
+            }
+        }
+
+        drain();
+    }
+
+    @Override
+    protected CovenantResponseBean buildResult(HttpContext context) throws Exception {
+        if (overloaded != null) {
+            return null;
+        }
+        decoder.endOfInput();
+        return decoder.getResponse();
+    }
+
+    @Override
+    protected void releaseResources() {
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            FluxSink<Object[]> rowSink = sink;
+
+            if (discard) {
+                rows.clear();
+            } else if (rowSink != null) {
+                Object[] row;
+                while (rowSink.requestedFromDownstream() > 0 && (row = rows.poll()) != null) {
+                    rowSink.next(row);
+                }
+            }
+
+            if (rows.isEmpty()) {
+                if (result.isDone()) {
+                    if (rowSink != null && !discard) {
+                        complete(rowSink);
+                    }
+                } else if (suspended.compareAndSet(true, false)) {
+                    control.requestInput();
+                }
+            }
+
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void complete(FluxSink<Object[]> rowSink) {
+        sink = null;
+        result.whenComplete((response, e) -> {
+            if (e != null) {
+                rowSink.error(e);
+            } else {
+                rowSink.complete();
+            }
+        });
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.ValidationDepth;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class CovenantConnectionTests {
+    private static final Duration timeout = Duration.ofSeconds(10);
+
+    private MockAdapter adapter;
+    private Connection connection;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        adapter = new MockAdapter();
+        ConnectionFactory factory = ConnectionFactories.get(adapter.getUrl("db"));
+        assertTrue(factory instanceof CovenantConnectionFactory);
+        connection = Mono.from(factory.create()).block(timeout);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        Mono.from(connection.close()).block(timeout);
+        adapter.close();
+    }
+
+    @Test
+    public void queryRows() {
+        adapter.response = "{\"data\":{\"columns\":[\"id\",\"day\"],\"rows\":[[1,\"2019-03-04\"],[2,null]]," +
+            "\"types\":[\"INTEGER\",\"DATE\"]},\"status\":\"ok\",\"success\":true}";
+
+        List<String> rows = Flux.from(connection.createStatement("SELECT id, day FROM t WHERE id > ?")
+            .bind("$1", 0)
+            .execute())
+            .concatMap(result -> result.map((row, metadata) ->
+                row.get("id", Long.class) + ":" + row.get(1, LocalDate.class)))
+            .collectList()
+            .block(timeout);
+
+        assertEquals(rows, Arrays.asList("1:2019-03-04", "2:null"));
+        assertEquals(adapter.paths, Arrays.asList("/v1/query"));
+        assertEquals(adapter.requests.get(0).getArgs(), Arrays.<Object>asList(0));
+    }
+
+    @Test
+    public void updateCounts() {
+        adapter.response = "{\"data\":{\"affected_rows\":2,\"last_insert_id\":0},\"status\":\"ok\",\"success\":true}";
+
+        List<Integer> counts = Flux.from(connection.createStatement("UPDATE t SET a = ? WHERE b = ?")
+            .bind(0, 1).bind(1, "x").add()
+            .bind(0, 2).bindNull(1, String.class)
+            .execute())
+            .concatMap(Result::getRowsUpdated)
+            .collectList()
+            .block(timeout);
+
+        assertEquals(counts, Arrays.asList(2, 2));
+        assertEquals(adapter.paths, Arrays.asList("/v1/exec", "/v1/exec"));
+        assertEquals(adapter.requests.get(1).getArgs(), Arrays.<Object>asList(2, null));
+    }
+
+    @Test
+    public void rowsAreReadOnDemand() {
+        StringBuilder response = new StringBuilder("{\"data\":{\"columns\":[\"v\"],\"rows\":[");
+        for (int i = 0; i < 50000; i++) {
+            response.append(i > 0 ? "," : "").append('[').append(i).append(']');
+        }
+        adapter.response = response.append("]},\"status\":\"ok\",\"success\":true}").toString();
+
+        List<Integer> rows = Flux.from(connection.createStatement("SELECT v FROM t").execute())
+            .concatMap(result -> result.map((row, metadata) -> row.get(0, Integer.class)))
+            .limitRate(16)
+            .take(100)
+            .collectList()
+            .block(timeout);
+
+        assertEquals(rows.size(), 100);
+        assertEquals(rows.get(99), Integer.valueOf(99));
+
+        // the aborted response does not affect later requests
+        adapter.response = "{\"data\":{\"columns\":[\"v\"],\"rows\":[[1]]},\"status\":\"ok\",\"success\":true}";
+        assertTrue(Mono.from(connection.validate(ValidationDepth.REMOTE)).block(timeout));
+    }
+
+    @Test
+    public void adapterError() {
+        adapter.response = "{\"data\":null,\"status\":\"no such table\",\"success\":false}";
+
+        try {
+            Flux.from(connection.createStatement("SELECT * FROM x").execute())
+                .concatMap(result -> result.map((row, metadata) -> row.get(0)))
+                .blockLast(timeout);
+            fail("query should fail");
+        } catch (CovenantR2dbcException e) {
+            assertTrue(e.getMessage().contains("no such table"));
+        }
+    }
+
+    @Test
+    public void overloadedAdapterIsRetried() {
+        adapter.response = "{\"data\":{\"columns\":[\"v\"],\"rows\":[[1]]},\"status\":\"ok\",\"success\":true}";
+        adapter.unavailable.set(1);
+
+        List<Object> rows = Flux.from(connection.createStatement("SELECT v FROM t").execute())
+            .concatMap(result -> result.map((row, metadata) -> row.get(0)))
+            .collectList()
+            .block(timeout);
+        assertEquals(rows, Arrays.<Object>asList(1));
+        assertEquals(adapter.paths, Arrays.asList("/v1/query", "/v1/query"));
+
+        // writes are not retried
+        adapter.response = "{\"data\":{\"affected_rows\":1,\"last_insert_id\":0},\"status\":\"ok\",\"success\":true}";
+        adapter.unavailable.set(1);
+        try {
+            Flux.from(connection.createStatement("DELETE FROM t").execute())
+                .concatMap(Result::getRowsUpdated)
+                .blockLast(timeout);
+            fail("write should fail");
+        } catch (CovenantR2dbcTransientException e) {
+            assertTrue(e.getMessage().contains("unavailable"), e.getMessage());
+        }
+        assertEquals(adapter.paths.size(), 3);
+    }
+
+    @Test
+    public void queriesGoToReadHosts() throws Exception {
+        try (MockAdapter reader = new MockAdapter()) {
+            reader.response = "{\"data\":{\"columns\":[\"v\"],\"rows\":[[1]]},\"status\":\"ok\",\"success\":true}";
+            Connection routed = Mono.from(ConnectionFactories.get(adapter.getUrl("db")
+                + "?read_hosts=127.0.0.1:" + reader.getPort() + "&read_your_writes_window=0").create()).block(timeout);
+            try {
+                Flux.from(routed.createStatement("SELECT v FROM t").execute())
+                    .concatMap(result -> result.map((row, metadata) -> row.get(0)))
+                    .blockLast(timeout);
+                Flux.from(routed.createStatement("DELETE FROM t").execute())
+                    .concatMap(Result::getRowsUpdated)
+                    .blockLast(timeout);
+
+                assertEquals(reader.paths, Arrays.asList("/v1/query"));
+                assertEquals(adapter.paths, Arrays.asList("/v1/exec"));
+            } finally {
+                Mono.from(routed.close()).block(timeout);
+            }
+        }
+    }
+
+    @Test
+    public void operationTimeout() {
+        Connection limited = Mono.from(ConnectionFactories.get(adapter.getUrl("db") + "?operation_timeout=300")
+            .create()).block(timeout);
+        try {
+            adapter.delayMillis = 2000;
+            long started = System.nanoTime();
+            try {
+                Flux.from(limited.createStatement("UPDATE t SET a = 1").execute())
+                    .concatMap(Result::getRowsUpdated)
+                    .blockLast(timeout);
+                fail("statement should time out");
+            } catch (CovenantR2dbcException e) {
+                assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+            }
+            assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 1500);
+            assertNotNull(adapter.headers.get(0).getFirst("X-CQL-Deadline"));
+        } finally {
+            adapter.delayMillis = 0;
+            Mono.from(limited.close()).block(timeout);
+        }
+    }
+}
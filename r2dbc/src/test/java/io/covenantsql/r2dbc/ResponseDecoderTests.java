@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 The CovenantSQL Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.covenantsql.r2dbc;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class ResponseDecoderTests {
+    private static List<Object[]> decode(ResponseDecoder decoder, List<Object[]> rows, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        // feed one byte at a time, tokens are split at every possible position
+        for (int i = 0; i < bytes.length; i++) {
+            decoder.feed(bytes, i, 1);
+        }
+        decoder.endOfInput();
+        return rows;
+    }
+
+    @Test
+    public void decodeRowsIncrementally() throws Exception {
+        final List<Object[]> rows = new ArrayList<>();
+        ResponseDecoder decoder = new ResponseDecoder(new ResponseDecoder.Listener() {
+            @Override
+            public void onRow(Object[] row) {
+                rows.add(row);
+            }
+        });
+
+        decode(decoder, rows, "{\"data\":{\"columns\":[\"id\",\"tags\"],\"extra\":{\"a\":[1,2]}," +
+            "\"rows\":[[1,[\"x\",{\"k\":2.5}]],[3000000000,null]],\"types\":[\"INTEGER\",\"JSON\"]}," +
+            "\"status\":\"ok\",\"success\":true}");
+
+        assertTrue(decoder.isFinished());
+        assertTrue(decoder.getResponse().isSuccess());
+        assertEquals(decoder.getColumns(), Arrays.asList("id", "tags"));
+        assertEquals(decoder.getTypes(), Arrays.asList("INTEGER", "JSON"));
+        assertEquals(rows.size(), 2);
+        assertEquals(rows.get(0)[0], 1);
+        assertEquals(rows.get(0)[1], Arrays.asList("x", Collections.singletonMap("k", 2.5)));
+        assertEquals(rows.get(1), new Object[]{3000000000L, null});
+    }
+
+    @Test
+    public void decodeFailure() throws Exception {
+        ResponseDecoder decoder = new ResponseDecoder(null);
+        decode(decoder, null, "{\"data\":null,\"status\":\"no such table\",\"success\":false}");
+
+        assertFalse(decoder.getResponse().isSuccess());
+        assertEquals(decoder.getResponse().getStatus(), "no such table");
+        assertNull(decoder.getColumns());
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void rejectTruncated() throws Exception {
+        decode(new ResponseDecoder(null), null, "{\"data\":{\"rows\":[");
+    }
+}